@@ -13,7 +13,21 @@
  */
 package net.za.slyfox.minecraft.nbt;
 
+import java.nio.ByteBuffer;
+
 public interface NbtByteArray extends NbtValue {
 
+	/**
+	 * Returns a read-only view of the contents of the array, positioned at the first element. The view
+	 * shares the storage of the value, so obtaining it never copies the bytes.
+	 */
+	ByteBuffer asByteBuffer();
+
+	/**
+	 * Returns the contents of the array. Values that a reader created as {@link
+	 * NbtReader#ARRAY_VIEWS views} over its source, or shared through its {@link
+	 * NbtReader#CANONICAL_CACHE_SIZE table of canonical values}, return a new copy on each call;
+	 * other values return their backing array.
+	 */
 	byte[] getArray();
 }
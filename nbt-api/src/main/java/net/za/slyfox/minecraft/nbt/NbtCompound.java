@@ -15,9 +15,34 @@ package net.za.slyfox.minecraft.nbt;
 
 import java.util.Map;
 
+/**
+ * A compound tag, mapping the names of its children to their values.
+ *
+ * <p>The typed getters without a default value throw a {@code NullPointerException} if there is no
+ * child with the given name, and a {@code ClassCastException} if the child has a different type;
+ * getters of reference types return {@code null} if there is no such child instead. The getters with
+ * a default value return it if there is no child with the given name, or if the child has a
+ * different type. Numeric getters convert between number types as the primitive conversions of the
+ * Java language do.</p>
+ */
 public interface NbtCompound extends NbtValue, Map<String, NbtValue> {
 
+	byte getByte(String name);
+	byte getByte(String name, byte defaultValue);
+	byte[] getByteArray(String name);
 	NbtCompound getCompound(String name);
+	double getDouble(String name);
+	double getDouble(String name, double defaultValue);
 	float getFloat(String name);
+	float getFloat(String name, float defaultValue);
+	int getInt(String name);
+	int getInt(String name, int defaultValue);
+	int[] getIntArray(String name);
+	<T extends NbtValue> NbtList<T> getList(String name);
+	long getLong(String name);
+	long getLong(String name, long defaultValue);
+	short getShort(String name);
+	short getShort(String name, short defaultValue);
 	String getString(String name);
+	String getString(String name, String defaultValue);
 }
@@ -11,9 +11,9 @@
  * or implied. See the License for the specific language governing permissions and limitations under
  * the License.
  */
-package net.za.slyfox.minecraft.nbt.stream;
+package net.za.slyfox.minecraft.nbt;
 
-public interface DelegatingAction {
+public interface NbtInt extends NbtNumber {
 
-	int getDepth();
+	int getInt();
 }
@@ -15,6 +15,13 @@ package net.za.slyfox.minecraft.nbt;
 
 import java.util.List;
 
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
 public interface NbtList<T extends NbtValue> extends List<T>, NbtValue {
 
+	/**
+	 * Returns the tag type of the elements of this list. This is {@link NbtTagType#END} for an empty
+	 * list whose element type is not known.
+	 */
+	NbtTagType getElementType();
 }
@@ -15,6 +15,11 @@ package net.za.slyfox.minecraft.nbt;
 
 public interface NbtNumber extends NbtValue {
 
+	byte byteValue();
+	double doubleValue();
 	float floatValue();
 	Number getNumber();
+	int intValue();
+	long longValue();
+	short shortValue();
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compiled set of tag paths used to read only selected parts of an NBT document.
+ *
+ * <p>Paths are relative to the root compound and consist of tag names separated by {@code '.'}. A
+ * name followed by {@code []} selects every element of a list, and may be repeated for nested lists.
+ * For example, {@code Level.Sections[].Y} selects the {@code Y} tag of every compound in the {@code
+ * Sections} list of the {@code Level} compound, and {@code Data.Player.Inventory[]} selects every
+ * element of the {@code Inventory} list. A path that ends at a compound or list selects its whole
+ * subtree. Tag names containing {@code '.'} or ending in {@code []} cannot be expressed.</p>
+ *
+ * <p>The paths are compiled once into a tree of {@link Node}s that readers walk in step with the
+ * document, so that values outside the projection can be skipped without being decoded. Instances
+ * are immutable and may be shared between threads.</p>
+ */
+public final class NbtProjection {
+
+	private final Node root;
+
+	private NbtProjection(Node root) {
+
+		this.root = root;
+	}
+
+	public static NbtProjection compile(String... paths) {
+
+		return compile(Arrays.asList(paths));
+	}
+
+	public static NbtProjection compile(Collection<String> paths) {
+
+		Node root = new Node();
+		for(String path: paths) {
+			if(path.isEmpty()) {
+				throw new IllegalArgumentException("Empty projection path");
+			}
+			Node node = root;
+			for(String segment: path.split("\\.", -1)) {
+				int end = segment.length();
+				while((end >= 2) && segment.startsWith("[]", end - 2)) {
+					end -= 2;
+				}
+				if(end == 0) {
+					throw new IllegalArgumentException("Empty tag name in projection path \""
+							+ path + '"');
+				}
+				node = node.child(segment.substring(0, end));
+				for(int i = end; i < segment.length(); i += 2) {
+					node = node.elements();
+				}
+			}
+			node.included = true;
+		}
+		root.freeze();
+		return new NbtProjection(root);
+	}
+
+	/**
+	 * Returns the node that corresponds to the children of the root compound.
+	 */
+	public Node getRoot() {
+
+		return root;
+	}
+
+	/**
+	 * A position in a compiled projection, corresponding to a compound, list or value in the
+	 * document being read.
+	 */
+	public static final class Node {
+
+		private Map<String, Node> children = new HashMap<>();
+		private Node elements;
+		private boolean included;
+
+		private Node() { }
+
+		/**
+		 * Returns the node for the child tag with the given name, or {@code null} if no path passes
+		 * through that tag and it should be skipped. For an {@link #isIncluded included} node, this
+		 * method returns the node itself.
+		 */
+		public Node getChild(String name) {
+
+			return included ? this : children.get(name);
+		}
+
+		/**
+		 * Returns the node for the elements of a list, or {@code null} if no path passes through the
+		 * list elements. For an {@link #isIncluded included} node, this method returns the node
+		 * itself.
+		 */
+		public Node getElements() {
+
+			return included ? this : elements;
+		}
+
+		/**
+		 * Returns whether the value at this node is selected in its entirety.
+		 */
+		public boolean isIncluded() {
+
+			return included;
+		}
+
+		private Node child(String name) {
+
+			Node child = children.get(name);
+			if(child == null) {
+				child = new Node();
+				children.put(name, child);
+			}
+			return child;
+		}
+
+		private Node elements() {
+
+			if(elements == null) {
+				elements = new Node();
+			}
+			return elements;
+		}
+
+		private void freeze() {
+
+			for(Node child: children.values()) {
+				child.freeze();
+			}
+			if(elements != null) {
+				elements.freeze();
+			}
+			children = children.isEmpty() ? Collections.<String, Node>emptyMap()
+					: Collections.unmodifiableMap(children);
+		}
+	}
+}
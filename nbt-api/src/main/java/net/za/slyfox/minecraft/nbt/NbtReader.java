@@ -14,8 +14,72 @@
 package net.za.slyfox.minecraft.nbt;
 
 import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public interface NbtReader extends Closeable {
 
+	/**
+	 * Configuration key that enables array views. When the value is {@code true} (as a {@code
+	 * Boolean} or its string form), readers over a {@code ByteBuffer} return byte and integer arrays
+	 * as read-only views over the source buffer instead of copying their contents; the contents are
+	 * only copied when {@link NbtByteArray#getArray()} or {@link NbtIntArray#getArray()} is called.
+	 * The contents of the source buffer must not be modified while such arrays are in use. Readers
+	 * over an {@code InputStream} return views only when {@link #LAZY_COMPOUNDS lazy compounds} are
+	 * enabled, over the buffer that the stream is read into. The default is {@code false}.
+	 */
+	String ARRAY_VIEWS = "net.za.slyfox.minecraft.nbt.NbtReader.arrayViews";
+
+	/**
+	 * Configuration key for the number of entries in the table of canonical values, as an {@code
+	 * Integer} or its string form. When the value is greater than {@code 0}, a reader shares
+	 * identical values, such as empty sections, default arrays and repeated item stacks, between and
+	 * within the documents it reads, through a bounded table of recently read values. All compounds
+	 * and lists other than the root compound are then unmodifiable, and byte and integer arrays
+	 * return a copy of their contents from {@code getArray()}. With {@link #ARRAY_VIEWS array
+	 * views}, arrays are copied out of the source buffer when they are added to the table, so that
+	 * the table does not keep earlier buffers reachable. Projected reads and lazy compounds do not
+	 * share values. The default is {@code 0}, which disables sharing.
+	 */
+	String CANONICAL_CACHE_SIZE = "net.za.slyfox.minecraft.nbt.NbtReader.canonicalCacheSize";
+
+	/**
+	 * Configuration key that enables lazy compounds. When the value is {@code true} (as a {@code
+	 * Boolean} or its string form), {@link #read()} returns a compound that decodes its children from
+	 * the serialised data only when they are accessed. Readers over an {@code InputStream} read the
+	 * stream completely before returning the compound; readers over a {@code ByteBuffer} keep a
+	 * reference to the buffer, whose contents must not be modified while the compound is in use.
+	 */
+	String LAZY_COMPOUNDS = "net.za.slyfox.minecraft.nbt.NbtReader.lazyCompounds";
+
 	NbtCompound read();
+
+	/**
+	 * Reads the root compound, keeping only the tags selected by the given projection. Compounds and
+	 * lists on the way to a selected tag are kept as containers for it; all other values are skipped
+	 * without being decoded.
+	 *
+	 * @param projection the compiled paths of the tags to read
+	 * @return the pruned root compound
+	 */
+	NbtCompound read(NbtProjection projection);
+
+	/**
+	 * Prepares the reader to read a new document from the given stream, keeping its parser, buffers
+	 * and tag name table. Reusing one reader per thread avoids repeating this setup for every
+	 * document. The previous input is not closed.
+	 *
+	 * @param inputStream the stream to read the next document from
+	 * @throws UnsupportedOperationException when the reader does not read from streams
+	 */
+	void reset(InputStream inputStream);
+
+	/**
+	 * Prepares the reader to read a new document from the remaining contents of the given buffer, in
+	 * the same way as {@link #reset(InputStream)}. The position of the given buffer is not modified.
+	 *
+	 * @param buffer the buffer to read the next document from
+	 * @throws UnsupportedOperationException when the reader does not read from buffers
+	 */
+	void reset(ByteBuffer buffer);
 }
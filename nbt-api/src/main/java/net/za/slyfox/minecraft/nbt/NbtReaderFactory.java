@@ -14,8 +14,27 @@
 package net.za.slyfox.minecraft.nbt;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
 
 public interface NbtReaderFactory {
 
 	NbtReader createReader(InputStream in);
+
+	/**
+	 * Creates a reader that reads NBT data from the remaining contents of a {@code ByteBuffer},
+	 * without copying them. The position of the given buffer is not modified.
+	 *
+	 * @param buffer the buffer to read NBT data from
+	 * @return a reader over the buffer contents
+	 */
+	NbtReader createReader(ByteBuffer buffer);
+
+	/**
+	 * Returns the effective configuration of this factory, including default values for settings
+	 * that were not supplied. Settings that the factory does not support are not included.
+	 *
+	 * @return an unmodifiable map of the configuration in use
+	 */
+	Map<String, ?> getConfigInUse();
 }
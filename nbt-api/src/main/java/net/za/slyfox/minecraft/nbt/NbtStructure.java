@@ -0,0 +1,436 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+import net.za.slyfox.minecraft.nbt.stream.NbtVisitor;
+
+/**
+ * Structural hashing and equality of NBT values, independent of the classes that implement them.
+ *
+ * <p>The structural hash of a value is a 64-bit hash of its tag type and content. The names of the
+ * children of a compound are part of its content, but the name of the value itself is not, and the
+ * hash of a compound does not depend on the order of its children. The elements of a list are
+ * hashed in order, together with the element type of the list. The same hash is computed for a tree
+ * of values and, through {@link #hash(NbtParser)}, directly from the serialised document, so a
+ * document can be compared with a tree without decoding it.</p>
+ *
+ * <p>Unmodifiable compounds and lists of the implementation, such as those shared through a
+ * canonical value table, cache their structural hash, which makes hashing a tree that shares them
+ * cheap. The byte and integer arrays in such trees must then not be modified; those shared through
+ * a canonical value table are read-only.</p>
+ */
+public final class NbtStructure {
+
+	private static final long FNV_PRIME = 0x100000001B3L;
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private NbtStructure() { }
+
+	/**
+	 * Returns whether two values have the same tag type and content, ignoring their own names in the
+	 * same way as {@link #hash(NbtValue)}. Identical subtrees are recognised without being compared,
+	 * and subtrees whose hashes have already been cached and differ are rejected without being
+	 * compared; no hashes are computed, so the comparison takes time linear in the size of the
+	 * trees.
+	 */
+	public static boolean equal(NbtValue a, NbtValue b) {
+
+		if(a == b) {
+			return true;
+		}
+		if(cachedHashesDiffer(a, b)) {
+			return false;
+		}
+		NbtTagType type = NbtValues.tagTypeOf(a);
+		if(type != NbtValues.tagTypeOf(b)) {
+			return false;
+		}
+		switch(type) {
+			case BYTE_ARRAY:
+				return ((NbtByteArray)a).asByteBuffer().equals(((NbtByteArray)b).asByteBuffer());
+
+			case COMPOUND:
+				NbtCompound compoundA = (NbtCompound)a;
+				NbtCompound compoundB = (NbtCompound)b;
+				if(compoundA.size() != compoundB.size()) {
+					return false;
+				}
+				for(Map.Entry<String, NbtValue> entry : compoundA.entrySet()) {
+					NbtValue other = compoundB.get(entry.getKey());
+					if((other == null) || !equal(entry.getValue(), other)) {
+						return false;
+					}
+				}
+				return true;
+
+			case INT_ARRAY:
+				return ((NbtIntArray)a).asIntBuffer().equals(((NbtIntArray)b).asIntBuffer());
+
+			case LIST:
+				NbtList<?> listA = (NbtList<?>)a;
+				NbtList<?> listB = (NbtList<?>)b;
+				if((listA.getElementType() != listB.getElementType())
+						|| (listA.size() != listB.size())) {
+					return false;
+				}
+				for(int i = 0; i < listA.size(); ++i) {
+					if(!equal(listA.get(i), listB.get(i))) {
+						return false;
+					}
+				}
+				return true;
+
+			case STRING:
+				return ((NbtString)a).getString().equals(((NbtString)b).getString());
+
+			default:
+				return numberBits(type, (NbtNumber)a) == numberBits(type, (NbtNumber)b);
+		}
+	}
+
+	/**
+	 * Computes the structural hash of the document that the given parser is positioned at, from its
+	 * events and without building a tree of values. The parser must not have been advanced, and is
+	 * positioned at the end of the document afterwards.
+	 *
+	 * @return the structural hash of the root compound of the document
+	 * @throws IllegalStateException if the parser has already been advanced
+	 */
+	public static long hash(NbtParser parser) {
+
+		HashingVisitor visitor = new HashingVisitor();
+		parser.accept(visitor);
+		return visitor.result;
+	}
+
+	/**
+	 * Computes the structural hash of a value and its subtree, or returns the cached hash of an
+	 * unmodifiable compound or list.
+	 */
+	public static long hash(NbtValue value) {
+
+		if(value instanceof Hashed) {
+			return ((Hashed)value).structuralHash();
+		}
+		return compute(value);
+	}
+
+	private static long bytesHash(ByteBuffer buffer) {
+
+		long h = seed(NbtTagType.BYTE_ARRAY) ^ buffer.remaining();
+		for(int i = buffer.position(); i < buffer.limit(); ++i) {
+			h = (h ^ (buffer.get(i) & 0xFF)) * FNV_PRIME;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Returns whether both values have cached structural hashes, and those hashes differ.
+	 */
+	private static boolean cachedHashesDiffer(NbtValue a, NbtValue b) {
+
+		return (a instanceof Hashed) && ((Hashed)a).isStructuralHashCached()
+				&& (b instanceof Hashed) && ((Hashed)b).isStructuralHashCached()
+				&& (((Hashed)a).structuralHash() != ((Hashed)b).structuralHash());
+	}
+
+	/**
+	 * Computes the structural hash of a value without consulting its own cached hash; the cached
+	 * hashes of its children are still used. This is the computation behind {@link Hashed}.
+	 */
+	static long compute(NbtValue value) {
+
+		NbtTagType type = NbtValues.tagTypeOf(value);
+		switch(type) {
+			case BYTE_ARRAY:
+				return bytesHash(((NbtByteArray)value).asByteBuffer());
+
+			case COMPOUND:
+				NbtCompound compound = (NbtCompound)value;
+				long entries = 0;
+				for(Map.Entry<String, NbtValue> entry : compound.entrySet()) {
+					entries += entryHash(stringHash(entry.getKey()), hash(entry.getValue()));
+				}
+				return compoundHash(entries, compound.size());
+
+			case INT_ARRAY:
+				return intsHash(((NbtIntArray)value).asIntBuffer());
+
+			case LIST:
+				return listHash((NbtList<?>)value);
+
+			case STRING:
+				return stringHash(((NbtString)value).getString());
+
+			default:
+				return numberHash(type, numberBits(type, (NbtNumber)value));
+		}
+	}
+
+	private static long compoundHash(long entries, int size) {
+
+		return mix((seed(NbtTagType.COMPOUND) ^ size) + entries);
+	}
+
+	private static long entryHash(long nameHash, long valueHash) {
+
+		return mix(nameHash * GOLDEN_GAMMA + valueHash);
+	}
+
+	private static long intsHash(IntBuffer buffer) {
+
+		long h = seed(NbtTagType.INT_ARRAY) ^ buffer.remaining();
+		for(int i = buffer.position(); i < buffer.limit(); ++i) {
+			h = (h ^ (buffer.get(i) & 0xFFFFFFFFL)) * FNV_PRIME;
+		}
+		return mix(h);
+	}
+
+	private static long listHash(NbtList<?> list) {
+
+		NbtTagType elementType = list.getElementType();
+		int size = list.size();
+		long h = listSeed(elementType, size);
+		if(list instanceof NbtIntList) {
+			NbtIntList ints = (NbtIntList)list;
+			for(int i = 0; i < size; ++i) {
+				h = h * GOLDEN_GAMMA + numberHash(NbtTagType.INT, ints.getInt(i));
+			}
+		} else if(list instanceof NbtLongList) {
+			NbtLongList longs = (NbtLongList)list;
+			for(int i = 0; i < size; ++i) {
+				h = h * GOLDEN_GAMMA + numberHash(NbtTagType.LONG, longs.getLong(i));
+			}
+		} else if(list instanceof NbtFloatList) {
+			NbtFloatList floats = (NbtFloatList)list;
+			for(int i = 0; i < size; ++i) {
+				h = h * GOLDEN_GAMMA + numberHash(NbtTagType.FLOAT,
+						Float.floatToIntBits(floats.getFloat(i)));
+			}
+		} else if(list instanceof NbtDoubleList) {
+			NbtDoubleList doubles = (NbtDoubleList)list;
+			for(int i = 0; i < size; ++i) {
+				h = h * GOLDEN_GAMMA + numberHash(NbtTagType.DOUBLE,
+						Double.doubleToLongBits(doubles.getDouble(i)));
+			}
+		} else {
+			for(NbtValue element : list) {
+				h = h * GOLDEN_GAMMA + hash(element);
+			}
+		}
+		return mix(h);
+	}
+
+	private static long listSeed(NbtTagType elementType, int size) {
+
+		return mix(seed(NbtTagType.LIST) ^ ((long)elementType.id << 32) ^ size);
+	}
+
+	/**
+	 * Finalisation step of MurmurHash3, which spreads every input bit over the whole hash.
+	 */
+	private static long mix(long h) {
+
+		h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+		h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return h ^ (h >>> 33);
+	}
+
+	/**
+	 * Returns the bits of a number that take part in its hash and comparison, so that floating-point
+	 * values are compared by representation rather than by numeric value.
+	 */
+	private static long numberBits(NbtTagType type, NbtNumber number) {
+
+		switch(type) {
+			case DOUBLE: return Double.doubleToLongBits(number.doubleValue());
+			case FLOAT: return Float.floatToIntBits(number.floatValue());
+			default: return number.longValue();
+		}
+	}
+
+	private static long numberHash(NbtTagType type, long bits) {
+
+		return mix(seed(type) ^ bits);
+	}
+
+	private static long seed(NbtTagType type) {
+
+		return (type.id + 1) * GOLDEN_GAMMA;
+	}
+
+	private static long stringHash(String value) {
+
+		long h = seed(NbtTagType.STRING) ^ value.length();
+		for(int i = 0; i < value.length(); ++i) {
+			h = (h ^ value.charAt(i)) * FNV_PRIME;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Implemented by values that can cache their structural hash, which they compute through
+	 * {@link NbtStructure#compute(NbtValue)}.
+	 */
+	interface Hashed {
+
+		/**
+		 * Returns whether the structural hash has already been computed and cached, so that {@link
+		 * #structuralHash()} returns it without visiting the subtree.
+		 */
+		boolean isStructuralHashCached();
+
+		long structuralHash();
+	}
+
+	/**
+	 * Visitor that computes structural hashes bottom-up from parser events. Open compounds and lists
+	 * are kept on a stack holding the hash accumulated from their children so far; compounds are
+	 * marked by a {@code null} element type.
+	 */
+	private static final class HashingVisitor implements NbtVisitor {
+
+		private long[] accumulated = new long[16];
+		private NbtTagType[] elementType = new NbtTagType[16];
+		private String[] name = new String[16];
+		long result;
+		private int[] size = new int[16];
+		private int top = -1;
+
+		@Override
+		public boolean enterCompound(String compoundName) {
+
+			push(compoundName, null, 0, 0);
+			return true;
+		}
+
+		@Override
+		public boolean enterList(String listName, NbtTagType listElementType, int listSize) {
+
+			push(listName, listElementType, listSize, listSeed(listElementType, listSize));
+			return true;
+		}
+
+		@Override
+		public void exitCompound() {
+
+			long h = compoundHash(accumulated[top], size[top]);
+			String compoundName = name[top];
+			name[top--] = null;
+			add(compoundName, h);
+		}
+
+		@Override
+		public void exitList() {
+
+			long h = mix(accumulated[top]);
+			String listName = name[top];
+			name[top--] = null;
+			add(listName, h);
+		}
+
+		@Override
+		public void visitByte(String valueName, byte value) {
+
+			add(valueName, numberHash(NbtTagType.BYTE, value));
+		}
+
+		@Override
+		public void visitByteArray(String valueName, byte[] array, int offset, int length) {
+
+			add(valueName, bytesHash(ByteBuffer.wrap(array, offset, length)));
+		}
+
+		@Override
+		public void visitDouble(String valueName, double value) {
+
+			add(valueName, numberHash(NbtTagType.DOUBLE, Double.doubleToLongBits(value)));
+		}
+
+		@Override
+		public void visitFloat(String valueName, float value) {
+
+			add(valueName, numberHash(NbtTagType.FLOAT, Float.floatToIntBits(value)));
+		}
+
+		@Override
+		public void visitInt(String valueName, int value) {
+
+			add(valueName, numberHash(NbtTagType.INT, value));
+		}
+
+		@Override
+		public void visitIntArray(String valueName, int[] array, int offset, int length) {
+
+			add(valueName, intsHash(IntBuffer.wrap(array, offset, length)));
+		}
+
+		@Override
+		public void visitLong(String valueName, long value) {
+
+			add(valueName, numberHash(NbtTagType.LONG, value));
+		}
+
+		@Override
+		public void visitShort(String valueName, short value) {
+
+			add(valueName, numberHash(NbtTagType.SHORT, value));
+		}
+
+		@Override
+		public void visitString(String valueName, String value) {
+
+			add(valueName, stringHash(value));
+		}
+
+		/**
+		 * Adds the hash of a completed value to the container that holds it, or records it as the
+		 * result when it is the root.
+		 */
+		private void add(String valueName, long h) {
+
+			if(top < 0) {
+				result = h;
+			} else if(elementType[top] == null) {
+				accumulated[top] += entryHash(stringHash(valueName), h);
+				++size[top];
+			} else {
+				accumulated[top] = accumulated[top] * GOLDEN_GAMMA + h;
+			}
+		}
+
+		private void push(String containerName, NbtTagType containerElementType,
+				int containerSize, long seed) {
+
+			if(++top == accumulated.length) {
+				int capacity = top * 2;
+				accumulated = Arrays.copyOf(accumulated, capacity);
+				elementType = Arrays.copyOf(elementType, capacity);
+				name = Arrays.copyOf(name, capacity);
+				size = Arrays.copyOf(size, capacity);
+			}
+			accumulated[top] = seed;
+			elementType[top] = containerElementType;
+			name[top] = containerName;
+			size[top] = containerSize;
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * Helpers for working with trees of {@link NbtValue} instances, independently of their
+ * implementation classes.
+ */
+public final class NbtValues {
+
+	private NbtValues() { }
+
+	/**
+	 * Returns the tag type under which a value is serialised.
+	 */
+	public static NbtTagType tagTypeOf(NbtValue value) {
+
+		if(value instanceof NbtCompound) {
+			return NbtTagType.COMPOUND;
+		} else if(value instanceof NbtList) {
+			return NbtTagType.LIST;
+		} else if(value instanceof NbtString) {
+			return NbtTagType.STRING;
+		} else if(value instanceof NbtByteArray) {
+			return NbtTagType.BYTE_ARRAY;
+		} else if(value instanceof NbtIntArray) {
+			return NbtTagType.INT_ARRAY;
+		} else if(value instanceof NbtInt) {
+			return NbtTagType.INT;
+		} else if(value instanceof NbtDouble) {
+			return NbtTagType.DOUBLE;
+		} else if(value instanceof NbtByte) {
+			return NbtTagType.BYTE;
+		} else if(value instanceof NbtFloat) {
+			return NbtTagType.FLOAT;
+		} else if(value instanceof NbtLong) {
+			return NbtTagType.LONG;
+		} else if(value instanceof NbtShort) {
+			return NbtTagType.SHORT;
+		} else if(value instanceof NbtNumber) {
+			Number number = ((NbtNumber)value).getNumber();
+			if(number instanceof Byte) {
+				return NbtTagType.BYTE;
+			} else if(number instanceof Short) {
+				return NbtTagType.SHORT;
+			} else if(number instanceof Integer) {
+				return NbtTagType.INT;
+			} else if(number instanceof Long) {
+				return NbtTagType.LONG;
+			} else if(number instanceof Float) {
+				return NbtTagType.FLOAT;
+			} else if(number instanceof Double) {
+				return NbtTagType.DOUBLE;
+			}
+			throw new NbtException("Unsupported number type " + number.getClass().getName());
+		}
+		throw new NbtException("Unsupported value type " + value.getClass().getName());
+	}
+}
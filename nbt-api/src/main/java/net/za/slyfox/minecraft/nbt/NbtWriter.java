@@ -14,8 +14,31 @@
 package net.za.slyfox.minecraft.nbt;
 
 import java.io.Closeable;
+import java.nio.ByteBuffer;
 
 public interface NbtWriter extends Closeable {
 
+	/**
+	 * Returns the exact number of bytes that {@link #write} or {@link #writeTo} produce for the given
+	 * root compound.
+	 *
+	 * @param compound the root compound
+	 * @return the serialised size of the compound in bytes
+	 */
+	int getSerializedSize(NbtCompound compound);
+
 	void write(NbtCompound compound);
+
+	/**
+	 * Serialises the given root compound into a buffer, starting at its position, instead of to the
+	 * output of this writer. The position of the buffer is advanced past the written data; its byte
+	 * order is not modified.
+	 *
+	 * @param compound the root compound
+	 * @param buffer the buffer to write to
+	 * @throws java.nio.BufferOverflowException if the remaining space in the buffer is smaller than
+	 *         the {@link #getSerializedSize serialised size} of the compound, in which case nothing is
+	 *         written
+	 */
+	void writeTo(NbtCompound compound, ByteBuffer buffer);
 }
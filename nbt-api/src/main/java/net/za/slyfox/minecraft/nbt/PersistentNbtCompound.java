@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+/**
+ * An unmodifiable compound whose modified versions are derived from it by sharing its structure,
+ * rather than by copying it. Each derived compound is a separate snapshot, and deriving one from a
+ * compound of {@code n} children takes {@code O(log n)} time and space, so editing a value nested
+ * {@code d} compounds deep, by deriving each compound on the way to it, takes {@code O(d log n)}.
+ *
+ * <p>The operations of {@link java.util.Map} that would modify the compound throw {@code
+ * UnsupportedOperationException}. Compounds and lists stored in a persistent compound are
+ * themselves persistent, so the whole tree below it is unmodifiable, apart from the contents of byte
+ * and integer arrays, which are shared and must not be modified.</p>
+ *
+ * <p>Persistent compounds are created by a {@link PersistentNbtFactory}, which is obtained from
+ * {@link net.za.slyfox.minecraft.nbt.spi.NbtProvider#createPersistentFactory()}.</p>
+ */
+public interface PersistentNbtCompound extends NbtCompound {
+
+	/**
+	 * Returns a compound with the same children as this one, except that {@code name} maps to {@code
+	 * value}. A compound or list that is not persistent is copied into a persistent one first.
+	 *
+	 * @return the derived compound, or this compound if {@code name} already maps to {@code value}
+	 */
+	PersistentNbtCompound with(String name, NbtValue value);
+
+	/**
+	 * Returns a compound with the same children as this one, except for the child named {@code name}.
+	 *
+	 * @return the derived compound, or this compound if it has no such child
+	 */
+	PersistentNbtCompound without(String name);
+}
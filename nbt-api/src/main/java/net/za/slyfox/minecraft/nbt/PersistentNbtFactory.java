@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * Creates {@link PersistentNbtCompound persistent compounds} and {@link PersistentNbtList lists},
+ * either empty or as copies of existing trees.
+ */
+public interface PersistentNbtFactory {
+
+	/**
+	 * Returns a persistent copy of a compound, copying the compounds and lists of its subtree into
+	 * persistent ones as well. Persistent compounds and lists in the subtree are shared rather than
+	 * copied, as are all other values, so the byte and integer arrays of the compound must not be
+	 * modified afterwards.
+	 *
+	 * @return the copy, or the compound itself if it is already a persistent compound
+	 */
+	PersistentNbtCompound copyOf(NbtCompound compound);
+
+	/**
+	 * Returns a persistent copy of a list, copying compounds and lists among its elements in the
+	 * same way as {@link #copyOf(NbtCompound)}.
+	 *
+	 * @return the copy, or the list itself if it is already a persistent list
+	 */
+	<T extends NbtValue> PersistentNbtList<T> copyOf(NbtList<T> list);
+
+	/**
+	 * Returns an empty persistent compound with the given name.
+	 */
+	PersistentNbtCompound createCompound(String name);
+
+	/**
+	 * Returns an empty persistent list with the given name and element type.
+	 */
+	<T extends NbtValue> PersistentNbtList<T> createList(String name, NbtTagType elementType);
+}
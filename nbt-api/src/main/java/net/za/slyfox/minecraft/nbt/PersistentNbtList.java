@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+/**
+ * An unmodifiable list whose modified versions are derived from it by sharing its structure, in the
+ * same way as a {@link PersistentNbtCompound}. Deriving a list of {@code n} elements takes {@code
+ * O(log n)} time and space.
+ *
+ * <p>The operations of {@link java.util.List} that would modify the list throw {@code
+ * UnsupportedOperationException}.</p>
+ *
+ * <p>Persistent lists are created by a {@link PersistentNbtFactory}.</p>
+ */
+public interface PersistentNbtList<T extends NbtValue> extends NbtList<T> {
+
+	/**
+	 * Returns a list with the elements of this one, followed by the given element. A compound or list
+	 * that is not persistent is copied into a persistent one first.
+	 *
+	 * @throws IllegalArgumentException if the element is not of the element type of the list
+	 */
+	PersistentNbtList<T> plus(T element);
+
+	/**
+	 * Returns a list with the same elements as this one, except that the element at {@code index} is
+	 * replaced by the given element. A compound or list that is not persistent is copied into a
+	 * persistent one first.
+	 *
+	 * @throws IllegalArgumentException if the element is not of the element type of the list
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	PersistentNbtList<T> with(int index, T element);
+}
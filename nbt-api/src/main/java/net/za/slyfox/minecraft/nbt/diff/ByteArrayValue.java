@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.diff;
+
+import java.nio.ByteBuffer;
+
+import net.za.slyfox.minecraft.nbt.NbtByteArray;
+
+/**
+ * {@link NbtByteArray} over a buffer, used for the elements of splices and for the arrays that
+ * applying a splice produces.
+ */
+final class ByteArrayValue implements NbtByteArray {
+
+	private final ByteBuffer contents;
+	private final String name;
+
+	/**
+	 * @param contents the remaining contents of the buffer, which are not copied
+	 */
+	ByteArrayValue(String name, ByteBuffer contents) {
+
+		this.contents = contents.slice();
+		this.name = name;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+
+		return contents.asReadOnlyBuffer();
+	}
+
+	@Override
+	public byte[] getArray() {
+
+		byte[] array = new byte[contents.remaining()];
+		contents.duplicate().get(array);
+		return array;
+	}
+
+	@Override
+	public String getName() {
+
+		return name;
+	}
+
+	/**
+	 * Returns the buffer holding the contents, which may be written while the array is private to a
+	 * patch application.
+	 */
+	ByteBuffer contents() {
+
+		return contents;
+	}
+}
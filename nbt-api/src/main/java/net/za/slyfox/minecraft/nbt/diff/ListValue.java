@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.diff;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import net.za.slyfox.minecraft.nbt.NbtList;
+import net.za.slyfox.minecraft.nbt.NbtValue;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * Unmodifiable {@link NbtList} over a range of another list, used for the elements of list splices.
+ */
+final class ListValue<T extends NbtValue> extends AbstractList<T> implements NbtList<T>,
+		RandomAccess {
+
+	private final NbtTagType elementType;
+	private final List<T> elements;
+
+	/**
+	 * @param elements the elements of the list, which are not copied
+	 */
+	ListValue(NbtTagType elementType, List<T> elements) {
+
+		this.elementType = elementType;
+		this.elements = elements;
+	}
+
+	@Override
+	public T get(int index) {
+
+		return elements.get(index);
+	}
+
+	@Override
+	public NbtTagType getElementType() {
+
+		return elementType;
+	}
+
+	@Override
+	public String getName() {
+
+		return null;
+	}
+
+	@Override
+	public int size() {
+
+		return elements.size();
+	}
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.diff;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.NbtByteArray;
+import net.za.slyfox.minecraft.nbt.NbtCompound;
+import net.za.slyfox.minecraft.nbt.NbtIntArray;
+import net.za.slyfox.minecraft.nbt.NbtList;
+import net.za.slyfox.minecraft.nbt.NbtStructure;
+import net.za.slyfox.minecraft.nbt.NbtValue;
+import net.za.slyfox.minecraft.nbt.diff.NbtEdit.Operation;
+
+/**
+ * Computes the {@link NbtPatch} that turns one compound into another.
+ *
+ * <p>Compounds are compared child by child, and lists of the same element type and size element by
+ * element, so that an edit is only produced for the innermost values that differ. A list that
+ * changes in size is edited with a {@link Operation#SPLICE splice} of the elements between the
+ * longest common prefix and suffix, so that adding or removing an element, such as an entity, does
+ * not replace the whole list; a list that changes in element type is replaced as a whole. Byte and
+ * integer arrays with at least a threshold number of elements are edited with splices of the ranges
+ * that differ. Splices are only used when replacing the whole list or array is not smaller.
+ * Subtrees shared by both trees are not compared at all, and every other value is visited once, so
+ * diffing takes time linear in the size of the trees.</p>
+ *
+ * <p>The values of the edits are those of the target tree and are not copied.</p>
+ */
+public final class NbtDiff {
+
+	/**
+	 * Default minimum number of elements of an array for it to be edited with splices.
+	 */
+	public static final int DEFAULT_SPLICE_THRESHOLD = 64;
+
+	/**
+	 * Ranges of differing array elements that are separated by at most this many equal elements are
+	 * merged into one splice, as each splice has a fixed overhead in the encoded patch.
+	 */
+	private static final int SPLICE_GAP = 8;
+
+	private final List<NbtEdit> edits = new ArrayList<>();
+	private final List<Object> path = new ArrayList<>();
+	private final int spliceThreshold;
+
+	private NbtDiff(int spliceThreshold) {
+
+		this.spliceThreshold = spliceThreshold;
+	}
+
+	public static NbtPatch diff(NbtCompound base, NbtCompound target) {
+
+		return diff(base, target, DEFAULT_SPLICE_THRESHOLD);
+	}
+
+	/**
+	 * Computes the patch that turns {@code base} into {@code target}.
+	 *
+	 * @param spliceThreshold the minimum number of elements of an array for it to be edited with
+	 *        splices rather than replaced
+	 */
+	public static NbtPatch diff(NbtCompound base, NbtCompound target, int spliceThreshold) {
+
+		NbtDiff diff = new NbtDiff(spliceThreshold);
+		diff.compareCompounds(base, target);
+		return new NbtPatch(diff.edits);
+	}
+
+	private void add(Operation operation, NbtValue value, int offset, int length) {
+
+		edits.add(new NbtEdit(operation, Collections.unmodifiableList(Arrays.asList(path.toArray())),
+				value, offset, length));
+	}
+
+	/**
+	 * Adds the edits for two values at the current path. Compounds and lists are compared through
+	 * their children rather than through {@link NbtStructure#equal}, which would visit every
+	 * subtree once for each of its ancestors.
+	 */
+	private void compare(NbtValue base, NbtValue target) {
+
+		if(base == target) {
+			return;
+		}
+		if((base instanceof NbtCompound) && (target instanceof NbtCompound)) {
+			compareCompounds((NbtCompound)base, (NbtCompound)target);
+		} else if((base instanceof NbtList) && (target instanceof NbtList)) {
+			compareLists((NbtList<?>)base, (NbtList<?>)target);
+		} else if(NbtStructure.equal(base, target)) {
+			return;
+		} else if((base instanceof NbtByteArray) && (target instanceof NbtByteArray)) {
+			compareArrays(target, new ByteElements(((NbtByteArray)base).asByteBuffer(),
+					((NbtByteArray)target).asByteBuffer()));
+		} else if((base instanceof NbtIntArray) && (target instanceof NbtIntArray)) {
+			compareArrays(target, new IntElements(((NbtIntArray)base).asIntBuffer(),
+					((NbtIntArray)target).asIntBuffer()));
+		} else {
+			add(Operation.CHANGE, target, 0, 0);
+		}
+	}
+
+	/**
+	 * Adds the edits for two arrays of the same type. When the lengths differ, a single splice
+	 * replaces everything between the longest common prefix and suffix. Otherwise, each range of
+	 * differing elements becomes a splice. In either case, the array is replaced instead when the
+	 * splices would cover more than half of it.
+	 */
+	private void compareArrays(NbtValue targetArray, Elements elements) {
+
+		int baseLength = elements.baseLength();
+		int targetLength = elements.targetLength();
+		if(Math.max(baseLength, targetLength) < spliceThreshold) {
+			add(Operation.CHANGE, targetArray, 0, 0);
+			return;
+		}
+		if(baseLength != targetLength) {
+			int limit = Math.min(baseLength, targetLength);
+			int prefix = 0;
+			while((prefix < limit) && !elements.differ(prefix, prefix)) {
+				++prefix;
+			}
+			int suffix = 0;
+			while((suffix < limit - prefix)
+					&& !elements.differ(baseLength - 1 - suffix, targetLength - 1 - suffix)) {
+				++suffix;
+			}
+			if((targetLength - prefix - suffix) * 2 > targetLength) {
+				add(Operation.CHANGE, targetArray, 0, 0);
+			} else {
+				splice(targetArray, prefix, baseLength - prefix - suffix, targetLength - suffix);
+			}
+			return;
+		}
+		int[] ranges = new int[8];
+		int count = 0;
+		int spliced = 0;
+		int i = 0;
+		while(i < baseLength) {
+			if(!elements.differ(i, i)) {
+				++i;
+				continue;
+			}
+			int last = i;
+			for(int j = i + 1; (j < baseLength) && (j - last <= SPLICE_GAP + 1); ++j) {
+				if(elements.differ(j, j)) {
+					last = j;
+				}
+			}
+			if(count == ranges.length) {
+				ranges = Arrays.copyOf(ranges, count * 2);
+			}
+			ranges[count++] = i;
+			ranges[count++] = last + 1;
+			spliced += last + 1 - i;
+			i = last + 1;
+		}
+		if(spliced * 2 > baseLength) {
+			add(Operation.CHANGE, targetArray, 0, 0);
+			return;
+		}
+		for(int r = 0; r < count; r += 2) {
+			splice(targetArray, ranges[r], ranges[r + 1] - ranges[r], ranges[r + 1]);
+		}
+	}
+
+	private void compareCompounds(NbtCompound base, NbtCompound target) {
+
+		for(Map.Entry<String, NbtValue> entry : base.entrySet()) {
+			path.add(entry.getKey());
+			NbtValue targetValue = target.get(entry.getKey());
+			if(targetValue == null) {
+				add(Operation.REMOVE, null, 0, 0);
+			} else {
+				compare(entry.getValue(), targetValue);
+			}
+			path.remove(path.size() - 1);
+		}
+		for(Map.Entry<String, NbtValue> entry : target.entrySet()) {
+			if(!base.containsKey(entry.getKey())) {
+				path.add(entry.getKey());
+				add(Operation.ADD, entry.getValue(), 0, 0);
+				path.remove(path.size() - 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds the edits for two lists. Lists of the same size are compared element by element. When
+	 * the sizes differ, the elements between the longest common prefix and suffix are spliced,
+	 * unless they make up more than half of the target list, in which case the list is replaced.
+	 */
+	private <T extends NbtValue> void compareLists(NbtList<?> base, NbtList<T> target) {
+
+		if(base.getElementType() != target.getElementType()) {
+			add(Operation.CHANGE, target, 0, 0);
+			return;
+		}
+		if(base.size() != target.size()) {
+			int limit = Math.min(base.size(), target.size());
+			int prefix = 0;
+			while((prefix < limit) && NbtStructure.equal(base.get(prefix), target.get(prefix))) {
+				++prefix;
+			}
+			int suffix = 0;
+			while((suffix < limit - prefix) && NbtStructure.equal(
+					base.get(base.size() - 1 - suffix), target.get(target.size() - 1 - suffix))) {
+				++suffix;
+			}
+			int targetEnd = target.size() - suffix;
+			if((targetEnd - prefix) * 2 > target.size()) {
+				add(Operation.CHANGE, target, 0, 0);
+			} else {
+				add(Operation.SPLICE, new ListValue<>(target.getElementType(),
+						target.subList(prefix, targetEnd)), prefix, base.size() - prefix - suffix);
+			}
+			return;
+		}
+		for(int i = 0; i < base.size(); ++i) {
+			path.add(i);
+			compare(base.get(i), target.get(i));
+			path.remove(path.size() - 1);
+		}
+	}
+
+	/**
+	 * Adds a splice that replaces {@code length} elements of the base array, starting at {@code
+	 * offset}, with the elements of the target array from {@code offset} up to {@code targetEnd}.
+	 */
+	private void splice(NbtValue targetArray, int offset, int length, int targetEnd) {
+
+		NbtValue elements;
+		if(targetArray instanceof NbtByteArray) {
+			ByteBuffer buffer = ((NbtByteArray)targetArray).asByteBuffer();
+			buffer.limit(buffer.position() + targetEnd).position(buffer.position() + offset);
+			elements = new ByteArrayValue(null, buffer);
+		} else {
+			IntBuffer buffer = ((NbtIntArray)targetArray).asIntBuffer();
+			buffer.limit(buffer.position() + targetEnd).position(buffer.position() + offset);
+			elements = new IntArrayValue(null, buffer);
+		}
+		add(Operation.SPLICE, elements, offset, length);
+	}
+
+	/**
+	 * Element-wise comparison of a base array and a target array of the same type.
+	 */
+	private abstract static class Elements {
+
+		abstract int baseLength();
+
+		abstract boolean differ(int baseIndex, int targetIndex);
+
+		abstract int targetLength();
+	}
+
+	private static final class ByteElements extends Elements {
+
+		private final ByteBuffer base;
+		private final ByteBuffer target;
+
+		ByteElements(ByteBuffer base, ByteBuffer target) {
+
+			this.base = base;
+			this.target = target;
+		}
+
+		@Override
+		int baseLength() {
+
+			return base.remaining();
+		}
+
+		@Override
+		boolean differ(int baseIndex, int targetIndex) {
+
+			return base.get(base.position() + baseIndex)
+					!= target.get(target.position() + targetIndex);
+		}
+
+		@Override
+		int targetLength() {
+
+			return target.remaining();
+		}
+	}
+
+	private static final class IntElements extends Elements {
+
+		private final IntBuffer base;
+		private final IntBuffer target;
+
+		IntElements(IntBuffer base, IntBuffer target) {
+
+			this.base = base;
+			this.target = target;
+		}
+
+		@Override
+		int baseLength() {
+
+			return base.remaining();
+		}
+
+		@Override
+		boolean differ(int baseIndex, int targetIndex) {
+
+			return base.get(base.position() + baseIndex)
+					!= target.get(target.position() + targetIndex);
+		}
+
+		@Override
+		int targetLength() {
+
+			return target.remaining();
+		}
+	}
+}
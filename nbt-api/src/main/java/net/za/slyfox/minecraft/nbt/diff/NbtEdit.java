@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.diff;
+
+import java.util.List;
+
+import net.za.slyfox.minecraft.nbt.NbtByteArray;
+import net.za.slyfox.minecraft.nbt.NbtIntArray;
+import net.za.slyfox.minecraft.nbt.NbtList;
+import net.za.slyfox.minecraft.nbt.NbtValue;
+
+/**
+ * A single edit of an {@link NbtPatch}. The path of an edit leads from the root compound to the value
+ * that it edits; each segment is either a {@code String}, naming a child of a compound, or an {@code
+ * Integer}, indexing an element of a list. Instances are immutable.
+ */
+public final class NbtEdit {
+
+	/**
+	 * The kinds of edit, in the order of their codes in the encoded form of a patch.
+	 */
+	public enum Operation {
+
+		/** Adds a child that does not exist to a compound. */
+		ADD,
+
+		/** Replaces an existing child of a compound or element of a list. */
+		CHANGE,
+
+		/** Removes an existing child from a compound. */
+		REMOVE,
+
+		/**
+		 * Replaces {@link NbtEdit#getLength() length} elements of a byte or integer array or of a
+		 * list, starting at {@link NbtEdit#getOffset() offset}, with the elements of the {@link
+		 * NbtEdit#getValue() value}, which is an array of the same type or a list of the same
+		 * element type.
+		 */
+		SPLICE
+	}
+
+	private final int length;
+	private final int offset;
+	private final Operation operation;
+	private final List<Object> path;
+	private final NbtValue value;
+
+	NbtEdit(Operation operation, List<Object> path, NbtValue value, int offset, int length) {
+
+		this.length = length;
+		this.offset = offset;
+		this.operation = operation;
+		this.path = path;
+		this.value = value;
+	}
+
+	/**
+	 * Returns the number of array or list elements that a {@link Operation#SPLICE splice} replaces,
+	 * or {@code 0} for other edits.
+	 */
+	public int getLength() {
+
+		return length;
+	}
+
+	/**
+	 * Returns the index of the first array or list element that a {@link Operation#SPLICE splice}
+	 * replaces, or {@code 0} for other edits.
+	 */
+	public int getOffset() {
+
+		return offset;
+	}
+
+	public Operation getOperation() {
+
+		return operation;
+	}
+
+	/**
+	 * Returns the unmodifiable path of the edited value.
+	 */
+	public List<Object> getPath() {
+
+		return path;
+	}
+
+	/**
+	 * Returns the value that is added, the replacement value, or the replacement elements of a
+	 * splice, or {@code null} for a removal.
+	 */
+	public NbtValue getValue() {
+
+		return value;
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder builder = new StringBuilder().append(operation).append(' ').append(path);
+		if(operation == Operation.SPLICE) {
+			int count;
+			if(value instanceof NbtByteArray) {
+				count = ((NbtByteArray)value).asByteBuffer().remaining();
+			} else if(value instanceof NbtIntArray) {
+				count = ((NbtIntArray)value).asIntBuffer().remaining();
+			} else {
+				count = ((NbtList<?>)value).size();
+			}
+			builder.append(" [").append(offset).append(", ").append(offset + length).append(") with ")
+					.append(count).append(" elements");
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,501 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.diff;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.za.slyfox.minecraft.nbt.NbtByteArray;
+import net.za.slyfox.minecraft.nbt.NbtCompound;
+import net.za.slyfox.minecraft.nbt.NbtException;
+import net.za.slyfox.minecraft.nbt.NbtIntArray;
+import net.za.slyfox.minecraft.nbt.NbtList;
+import net.za.slyfox.minecraft.nbt.NbtNumber;
+import net.za.slyfox.minecraft.nbt.NbtString;
+import net.za.slyfox.minecraft.nbt.NbtValue;
+import net.za.slyfox.minecraft.nbt.NbtValues;
+import net.za.slyfox.minecraft.nbt.diff.NbtEdit.Operation;
+import net.za.slyfox.minecraft.nbt.stream.NbtGenerator;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * An ordered list of {@link NbtEdit edits} that turns one compound into another, as computed by
+ * {@link NbtDiff}. Instances are immutable.
+ *
+ * <p>A patch is encoded as an NBT document, so that it can be written and read with any generator
+ * and reader, and compressed in the same way as other NBT data. The root compound holds a {@code
+ * Version} byte and an {@code Edits} list of compounds. Each edit holds its operation code as the
+ * {@code Op} byte, the compound keys of its path as the {@code Keys} list of strings, and the
+ * segments of its path as the {@code Steps} integer array, in which {@code -1} stands for the next
+ * key and any other value is a list index. Additions and changes hold their value in {@code Value},
+ * as the only child of a compound when the last segment is a key, and as the only element of a list
+ * when it is an index. Splices hold their replacement elements as the {@code Value} array or list,
+ * and their range as the {@code Offset} and {@code Length} integers.</p>
+ */
+public final class NbtPatch {
+
+	private static final byte VERSION = 1;
+
+	private final List<NbtEdit> edits;
+
+	NbtPatch(List<NbtEdit> edits) {
+
+		this.edits = Collections.unmodifiableList(new ArrayList<>(edits));
+	}
+
+	/**
+	 * Decodes a patch from the root compound of its encoded form.
+	 *
+	 * @throws NbtException if the compound is not a valid encoded patch
+	 */
+	public static NbtPatch read(NbtCompound document) {
+
+		NbtValue version = document.get("Version");
+		if(!(version instanceof NbtNumber) || (((NbtNumber)version).intValue() != VERSION)) {
+			throw new NbtException("Unsupported patch version " + version);
+		}
+		NbtList<?> encodedEdits = child(document, "Edits", NbtList.class);
+		List<NbtEdit> edits = new ArrayList<>(encodedEdits.size());
+		for(Object encodedEdit : encodedEdits) {
+			edits.add(readEdit(child((NbtValue)encodedEdit, null, NbtCompound.class)));
+		}
+		return new NbtPatch(edits);
+	}
+
+	/**
+	 * Applies the edits of the patch to the given compound, in order, modifying it in place. Added
+	 * and changed values are shared with the patch rather than copied; arrays that are spliced are
+	 * replaced by new arrays, while lists that are spliced are modified in place.
+	 *
+	 * @param base a modifiable compound equal to the base that the patch was computed from
+	 * @throws NbtException if an edit does not match the compound, in which case the edits before it
+	 *         have been applied
+	 */
+	public void apply(NbtCompound base) {
+
+		Set<NbtValue> created = Collections.newSetFromMap(new IdentityHashMap<NbtValue, Boolean>());
+		for(NbtEdit edit : edits) {
+			apply(base, edit, created);
+		}
+	}
+
+	public List<NbtEdit> getEdits() {
+
+		return edits;
+	}
+
+	public boolean isEmpty() {
+
+		return edits.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+
+		return "NbtPatch" + edits;
+	}
+
+	/**
+	 * Writes the encoded form of the patch as a complete document. The generator is neither flushed
+	 * nor closed.
+	 */
+	public void write(NbtGenerator generator) {
+
+		generator.writeStartCompound("").writeByte("Version", VERSION);
+		generator.writeStartList("Edits", NbtTagType.COMPOUND, edits.size());
+		for(NbtEdit edit : edits) {
+			generator.writeStartCompound().writeByte("Op", (byte)edit.getOperation().ordinal());
+			List<Object> path = edit.getPath();
+			int[] steps = new int[path.size()];
+			int keyCount = 0;
+			for(int i = 0; i < steps.length; ++i) {
+				Object segment = path.get(i);
+				steps[i] = (segment instanceof Integer) ? (Integer)segment : -1;
+				keyCount += (steps[i] == -1) ? 1 : 0;
+			}
+			generator.writeStartList("Keys", NbtTagType.STRING, keyCount);
+			for(Object segment : path) {
+				if(segment instanceof String) {
+					generator.writeString((String)segment);
+				}
+			}
+			generator.writeEnd().writeIntArray("Steps", steps);
+			switch(edit.getOperation()) {
+				case ADD:
+				case CHANGE:
+					Object last = path.get(path.size() - 1);
+					if(last instanceof String) {
+						generator.writeStartCompound("Value");
+						writeValue(generator, (String)last, edit.getValue());
+					} else {
+						NbtValue value = edit.getValue();
+						generator.writeStartList("Value", NbtValues.tagTypeOf(value), 1);
+						writeValue(generator, null, value);
+					}
+					generator.writeEnd();
+					break;
+
+				case SPLICE:
+					generator.writeInt("Offset", edit.getOffset()).writeInt("Length", edit.getLength());
+					writeValue(generator, "Value", edit.getValue());
+					break;
+
+				default:
+					break;
+			}
+			generator.writeEnd();
+		}
+		generator.writeEnd().writeEnd();
+	}
+
+	private static void apply(NbtCompound base, NbtEdit edit, Set<NbtValue> created) {
+
+		List<Object> path = edit.getPath();
+		NbtValue container = base;
+		for(int i = 0; i < path.size() - 1; ++i) {
+			container = get(container, path.get(i), path);
+		}
+		Object last = path.get(path.size() - 1);
+		if((last instanceof String) && (container instanceof NbtCompound)) {
+			NbtCompound compound = (NbtCompound)container;
+			String key = (String)last;
+			switch(edit.getOperation()) {
+				case ADD:
+					if(compound.containsKey(key)) {
+						throw new NbtException("Path " + path + " already exists in the base tree");
+					}
+					compound.put(key, edit.getValue());
+					return;
+
+				case REMOVE:
+					if(compound.remove(key) == null) {
+						throw new NbtException("Path " + path + " does not exist in the base tree");
+					}
+					return;
+
+				default:
+					break;
+			}
+		} else if((edit.getOperation() == Operation.ADD) || (edit.getOperation() == Operation.REMOVE)) {
+			throw new NbtException("Cannot " + edit.getOperation() + " list element " + path);
+		}
+		NbtValue value = edit.getValue();
+		if(edit.getOperation() == Operation.SPLICE) {
+			value = splice(get(container, last, path), edit, created);
+		} else {
+			get(container, last, path);
+		}
+		if(container instanceof NbtCompound) {
+			((NbtCompound)container).put((String)last, value);
+		} else {
+			@SuppressWarnings("unchecked")
+			NbtList<NbtValue> list = (NbtList<NbtValue>)container;
+			list.set((Integer)last, value);
+		}
+	}
+
+	private static void checkRange(NbtEdit edit, int size) {
+
+		if((edit.getOffset() < 0) || (edit.getLength() < 0)
+				|| (edit.getOffset() + edit.getLength() > size)) {
+			throw new NbtException("Splice range [" + edit.getOffset() + ", "
+					+ (edit.getOffset() + edit.getLength()) + ") of " + edit.getPath()
+					+ " is outside of the array of " + size + " elements");
+		}
+	}
+
+	/**
+	 * Returns a child of an encoded patch, or the value itself if {@code name} is {@code null},
+	 * checking that it is of the expected type.
+	 */
+	private static <T> T child(NbtValue value, String name, Class<T> type) {
+
+		NbtValue child = (name != null) ? ((NbtCompound)value).get(name) : value;
+		if(!type.isInstance(child)) {
+			throw new NbtException("Malformed patch: expected " + type.getSimpleName()
+					+ ((name != null) ? " <" + name + ">" : "") + ", was " + child);
+		}
+		return type.cast(child);
+	}
+
+	/**
+	 * Returns the child of a value in the base tree at the given path segment.
+	 */
+	private static NbtValue get(NbtValue container, Object segment, List<Object> path) {
+
+		NbtValue child = null;
+		if((segment instanceof String) && (container instanceof NbtCompound)) {
+			child = ((NbtCompound)container).get(segment);
+		} else if((segment instanceof Integer) && (container instanceof NbtList)) {
+			NbtList<?> list = (NbtList<?>)container;
+			int index = (Integer)segment;
+			child = ((index >= 0) && (index < list.size())) ? list.get(index) : null;
+		}
+		if(child == null) {
+			throw new NbtException("Path " + path + " does not exist in the base tree");
+		}
+		return child;
+	}
+
+	private static NbtEdit readEdit(NbtCompound encoded) {
+
+		byte code = child(encoded, "Op", NbtNumber.class).byteValue();
+		if((code < 0) || (code >= Operation.values().length)) {
+			throw new NbtException("Malformed patch: unknown operation " + code);
+		}
+		Operation operation = Operation.values()[code];
+		NbtList<?> keys = child(encoded, "Keys", NbtList.class);
+		int[] steps = child(encoded, "Steps", NbtIntArray.class).getArray();
+		if(steps.length == 0) {
+			throw new NbtException("Malformed patch: empty path");
+		}
+		Object[] path = new Object[steps.length];
+		int key = 0;
+		for(int i = 0; i < steps.length; ++i) {
+			if(steps[i] >= 0) {
+				path[i] = steps[i];
+			} else if(key < keys.size()) {
+				path[i] = child((NbtValue)keys.get(key++), null, NbtString.class).getString();
+			} else {
+				throw new NbtException("Malformed patch: missing key in path");
+			}
+		}
+		List<Object> pathList = Collections.unmodifiableList(Arrays.asList(path));
+		switch(operation) {
+			case ADD:
+			case CHANGE:
+				NbtValue wrapper = child(encoded, "Value", NbtValue.class);
+				NbtValue value = null;
+				if((path[path.length - 1] instanceof String) && (wrapper instanceof NbtCompound)) {
+					value = ((NbtCompound)wrapper).get(path[path.length - 1]);
+				} else if((wrapper instanceof NbtList) && (((NbtList<?>)wrapper).size() == 1)) {
+					value = (NbtValue)((NbtList<?>)wrapper).get(0);
+				}
+				if(value == null) {
+					throw new NbtException("Malformed patch: missing value for " + pathList);
+				}
+				return new NbtEdit(operation, pathList, value, 0, 0);
+
+			case SPLICE:
+				return new NbtEdit(operation, pathList, child(encoded, "Value", NbtValue.class),
+						child(encoded, "Offset", NbtNumber.class).intValue(),
+						child(encoded, "Length", NbtNumber.class).intValue());
+
+			default:
+				return new NbtEdit(operation, pathList, null, 0, 0);
+		}
+	}
+
+	/**
+	 * Returns the array or list produced by a splice. An array that was itself produced by an
+	 * earlier splice of the same application is modified in place when the splice does not change
+	 * its length, and a list is always modified in place.
+	 */
+	private static NbtValue splice(NbtValue array, NbtEdit edit, Set<NbtValue> created) {
+
+		int offset = edit.getOffset();
+		int length = edit.getLength();
+		if((array instanceof NbtList) && (edit.getValue() instanceof NbtList)) {
+			@SuppressWarnings("unchecked")
+			NbtList<NbtValue> list = (NbtList<NbtValue>)array;
+			NbtList<?> elements = (NbtList<?>)edit.getValue();
+			checkRange(edit, list.size());
+			if(!elements.isEmpty() && (elements.getElementType() != list.getElementType())) {
+				throw new NbtException("Cannot splice " + elements.getElementType()
+						+ " elements into " + list.getElementType() + " list " + edit.getPath());
+			}
+			List<NbtValue> range = list.subList(offset, offset + length);
+			range.clear();
+			for(Object element : elements) {
+				range.add((NbtValue)element);
+			}
+			return list;
+		} else if((array instanceof NbtByteArray) && (edit.getValue() instanceof NbtByteArray)) {
+			ByteBuffer current = ((NbtByteArray)array).asByteBuffer();
+			ByteBuffer elements = ((NbtByteArray)edit.getValue()).asByteBuffer();
+			checkRange(edit, current.remaining());
+			if((elements.remaining() == length) && created.contains(array)) {
+				ByteBuffer contents = ((ByteArrayValue)array).contents().duplicate();
+				contents.position(offset);
+				contents.put(elements);
+				return array;
+			}
+			ByteBuffer result = ByteBuffer.allocate(current.remaining() - length
+					+ elements.remaining());
+			ByteBuffer source = current.duplicate();
+			source.limit(current.position() + offset);
+			result.put(source);
+			result.put(elements);
+			source.limit(current.limit()).position(current.position() + offset + length);
+			result.put(source);
+			result.flip();
+			ByteArrayValue value = new ByteArrayValue(array.getName(), result);
+			created.add(value);
+			return value;
+		} else if((array instanceof NbtIntArray) && (edit.getValue() instanceof NbtIntArray)) {
+			IntBuffer current = ((NbtIntArray)array).asIntBuffer();
+			IntBuffer elements = ((NbtIntArray)edit.getValue()).asIntBuffer();
+			checkRange(edit, current.remaining());
+			if((elements.remaining() == length) && created.contains(array)) {
+				IntBuffer contents = ((IntArrayValue)array).contents().duplicate();
+				contents.position(offset);
+				contents.put(elements);
+				return array;
+			}
+			IntBuffer result = IntBuffer.allocate(current.remaining() - length
+					+ elements.remaining());
+			IntBuffer source = current.duplicate();
+			source.limit(current.position() + offset);
+			result.put(source);
+			result.put(elements);
+			source.limit(current.limit()).position(current.position() + offset + length);
+			result.put(source);
+			result.flip();
+			IntArrayValue value = new IntArrayValue(array.getName(), result);
+			created.add(value);
+			return value;
+		}
+		throw new NbtException("Cannot splice " + array + " at " + edit.getPath() + " with "
+				+ edit.getValue());
+	}
+
+	private static void writeNumber(NbtGenerator generator, String name, NbtTagType type,
+			NbtNumber number) {
+
+		switch(type) {
+			case BYTE:
+				if(name != null) {
+					generator.writeByte(name, number.byteValue());
+				} else {
+					generator.writeByte(number.byteValue());
+				}
+				break;
+
+			case DOUBLE:
+				if(name != null) {
+					generator.writeDouble(name, number.doubleValue());
+				} else {
+					generator.writeDouble(number.doubleValue());
+				}
+				break;
+
+			case FLOAT:
+				if(name != null) {
+					generator.writeFloat(name, number.floatValue());
+				} else {
+					generator.writeFloat(number.floatValue());
+				}
+				break;
+
+			case INT:
+				if(name != null) {
+					generator.writeInt(name, number.intValue());
+				} else {
+					generator.writeInt(number.intValue());
+				}
+				break;
+
+			case LONG:
+				if(name != null) {
+					generator.writeLong(name, number.longValue());
+				} else {
+					generator.writeLong(number.longValue());
+				}
+				break;
+
+			case SHORT:
+				if(name != null) {
+					generator.writeShort(name, number.shortValue());
+				} else {
+					generator.writeShort(number.shortValue());
+				}
+				break;
+
+			default:
+				throw new NbtException("Unsupported number type " + type);
+		}
+	}
+
+	/**
+	 * Writes a value and its subtree, unnamed when {@code name} is {@code null}.
+	 */
+	private static void writeValue(NbtGenerator generator, String name, NbtValue value) {
+
+		NbtTagType type = NbtValues.tagTypeOf(value);
+		switch(type) {
+			case BYTE_ARRAY:
+				byte[] bytes = ((NbtByteArray)value).getArray();
+				if(name != null) {
+					generator.writeByteArray(name, bytes);
+				} else {
+					generator.writeByteArray(bytes);
+				}
+				break;
+
+			case COMPOUND:
+				if(name != null) {
+					generator.writeStartCompound(name);
+				} else {
+					generator.writeStartCompound();
+				}
+				for(Map.Entry<String, NbtValue> entry : ((NbtCompound)value).entrySet()) {
+					writeValue(generator, entry.getKey(), entry.getValue());
+				}
+				generator.writeEnd();
+				break;
+
+			case INT_ARRAY:
+				int[] ints = ((NbtIntArray)value).getArray();
+				if(name != null) {
+					generator.writeIntArray(name, ints);
+				} else {
+					generator.writeIntArray(ints);
+				}
+				break;
+
+			case LIST:
+				NbtList<?> list = (NbtList<?>)value;
+				if(name != null) {
+					generator.writeStartList(name, list.getElementType(), list.size());
+				} else {
+					generator.writeStartList(list.getElementType(), list.size());
+				}
+				for(Object element : list) {
+					writeValue(generator, null, (NbtValue)element);
+				}
+				generator.writeEnd();
+				break;
+
+			case STRING:
+				String string = ((NbtString)value).getString();
+				if(name != null) {
+					generator.writeString(name, string);
+				} else {
+					generator.writeString(string);
+				}
+				break;
+
+			default:
+				writeNumber(generator, name, type, (NbtNumber)value);
+				break;
+		}
+	}
+}
@@ -24,16 +24,37 @@ import net.za.slyfox.minecraft.nbt.NbtReader;
 import net.za.slyfox.minecraft.nbt.NbtReaderFactory;
 import net.za.slyfox.minecraft.nbt.NbtWriter;
 import net.za.slyfox.minecraft.nbt.NbtWriterFactory;
+import net.za.slyfox.minecraft.nbt.PersistentNbtFactory;
+import net.za.slyfox.minecraft.nbt.stream.NbtGenerator;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorFactory;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserFactory;
 
 public abstract class NbtProvider {
 
 	private static final String DEFAULT_PROVIDER
 			= "net.za.slyfox.minecraft.nbt.spi.DefaultNbtProvider";
 
+	private static volatile NbtProvider cachedProvider;
+
 	protected NbtProvider() { }
 
+	/**
+	 * Returns the NBT provider. The provider is looked up the first time this method is called, and
+	 * the same instance is returned by later calls.
+	 */
 	public static NbtProvider provider() {
 
+		NbtProvider provider = cachedProvider;
+		if(provider == null) {
+			provider = loadProvider();
+			cachedProvider = provider;
+		}
+		return provider;
+	}
+
+	private static NbtProvider loadProvider() {
+
 		ServiceLoader<NbtProvider> loader = ServiceLoader.load(NbtProvider.class);
 		Iterator<NbtProvider> iterator = loader.iterator();
 		if(iterator.hasNext()) {
@@ -51,6 +72,11 @@ public abstract class NbtProvider {
 		}
 	}
 
+	public abstract NbtGenerator createGenerator(OutputStream outputStream);
+	public abstract NbtGeneratorFactory createGeneratorFactory(Map<String, ?> configuration);
+	public abstract NbtParser createParser(InputStream inputStream);
+	public abstract NbtParserFactory createParserFactory(Map<String, ?> configuration);
+	public abstract PersistentNbtFactory createPersistentFactory();
 	public abstract NbtReader createReader(InputStream inputStream);
 	public abstract NbtReaderFactory createReaderFactory(Map<String, ?> configuration);
 	public abstract NbtWriter createWriter(OutputStream outputStream);
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A non-blocking {@link NbtParser} that is fed input in fragments as it arrives, rather than reading
+ * from a blocking source. When the input fed so far ends part of the way through the next token,
+ * {@link #next} returns {@link NbtParser.Event#NEED_MORE_INPUT} without consuming it, and parsing
+ * resumes from the same token once more input has been fed.
+ *
+ * <p>The contents of a {@link NbtParser.Event#VALUE_ARRAY bulk array} are only reported once they
+ * have been fed in full. {@link #skipValue} and {@link #skipChildren} may be called at any time they
+ * are valid; if the skipped data has not been fed in full, the skip is completed by subsequent calls
+ * to {@code next}, which report {@code NEED_MORE_INPUT} until it is done.</p>
+ */
+public interface NbtAsyncParser extends NbtParser {
+
+	/**
+	 * Signals that no more input will be fed. If the document is incomplete, the next call to
+	 * {@link #next} that runs out of input throws an exception instead of returning {@link
+	 * NbtParser.Event#NEED_MORE_INPUT}.
+	 */
+	void endOfInput();
+
+	/**
+	 * Appends the remaining contents of the given buffer to the input of this parser. The contents
+	 * are copied, so the buffer may be reused once this method returns, and its position is advanced
+	 * to its limit. Any {@code CharSequence} previously returned by {@link #getCharSequence} becomes
+	 * invalid.
+	 *
+	 * @param buffer the next fragment of input
+	 * @throws IllegalStateException if {@link #endOfInput} has been called
+	 */
+	void feedInput(ByteBuffer buffer);
+
+	/**
+	 * Returns whether the parser has consumed all of the input fed to it so far.
+	 */
+	boolean needsInput();
+}
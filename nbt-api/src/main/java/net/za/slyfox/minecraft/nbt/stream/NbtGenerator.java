@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.Closeable;
+import java.io.Flushable;
+
+/**
+ * Writes NBT data to an output source as a stream of tags, without building an in-memory tree. The
+ * methods mirror the events reported by {@link NbtParser}: containers are opened with {@link
+ * #writeStartCompound} or {@link #writeStartList} and closed with {@link #writeEnd}.
+ *
+ * <p>Methods that take a {@code name} write a named tag, and may only be called directly within a
+ * compound, or for the root compound. Methods without a name write an element of the innermost
+ * list, whose element type must match and whose declared size must not be exceeded. Calling a method
+ * in the wrong context throws an {@code IllegalStateException}; I/O errors are reported as an {@link
+ * net.za.slyfox.minecraft.nbt.NbtException}.</p>
+ *
+ * <p>Generators buffer their output, and only write to the output source when their buffer is full,
+ * or when {@link #flush} or {@link #close} is called.</p>
+ */
+public interface NbtGenerator extends Closeable, Flushable {
+
+	/**
+	 * Configuration key for the size in bytes of the output buffer of a generator, as an {@code
+	 * Integer} or its string form.
+	 */
+	String BUFFER_SIZE = "net.za.slyfox.minecraft.nbt.stream.NbtGenerator.bufferSize";
+
+	/**
+	 * Flushes any buffered output and closes the output source.
+	 *
+	 * @throws net.za.slyfox.minecraft.nbt.NbtException if the root compound has not been closed
+	 */
+	@Override
+	void close();
+
+	@Override
+	void flush();
+
+	NbtGenerator writeByte(byte value);
+	NbtGenerator writeByte(String name, byte value);
+	NbtGenerator writeByteArray(byte[] value);
+	NbtGenerator writeByteArray(String name, byte[] value);
+	NbtGenerator writeDouble(double value);
+	NbtGenerator writeDouble(String name, double value);
+
+	/**
+	 * Closes the innermost open compound or list. Closing a compound writes its end tag; closing a
+	 * list verifies that its declared number of elements has been written.
+	 */
+	NbtGenerator writeEnd();
+
+	NbtGenerator writeFloat(float value);
+	NbtGenerator writeFloat(String name, float value);
+	NbtGenerator writeInt(int value);
+	NbtGenerator writeInt(String name, int value);
+	NbtGenerator writeIntArray(int[] value);
+	NbtGenerator writeIntArray(String name, int[] value);
+	NbtGenerator writeLong(long value);
+	NbtGenerator writeLong(String name, long value);
+	NbtGenerator writeShort(short value);
+	NbtGenerator writeShort(String name, short value);
+
+	/**
+	 * Opens a compound as an element of the innermost list.
+	 */
+	NbtGenerator writeStartCompound();
+
+	/**
+	 * Opens a named compound, or the root compound if nothing has been written yet.
+	 */
+	NbtGenerator writeStartCompound(String name);
+
+	/**
+	 * Opens a list as an element of the innermost list.
+	 *
+	 * @param elementType the tag type of the elements of the new list
+	 * @param size the number of elements that will be written to the new list
+	 */
+	NbtGenerator writeStartList(NbtTagType elementType, int size);
+
+	/**
+	 * Opens a named list. The elements of the list are written next, followed by {@link #writeEnd}.
+	 *
+	 * @param name the name of the list
+	 * @param elementType the tag type of the elements of the list
+	 * @param size the number of elements that will be written to the list
+	 */
+	NbtGenerator writeStartList(String name, NbtTagType elementType, int size);
+
+	NbtGenerator writeString(String value);
+	NbtGenerator writeString(String name, String value);
+}
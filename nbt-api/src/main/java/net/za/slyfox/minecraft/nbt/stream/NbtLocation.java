@@ -16,4 +16,10 @@ package net.za.slyfox.minecraft.nbt.stream;
 public interface NbtLocation {
 
 	int getDepth();
+
+	/**
+	 * Returns the number of bytes of input that the parser has consumed, or {@code -1} if the parser
+	 * does not track it.
+	 */
+	long getStreamOffset();
 }
@@ -14,9 +14,56 @@
 package net.za.slyfox.minecraft.nbt.stream;
 
 import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public interface NbtParser extends Closeable {
 
+	/**
+	 * Configuration key for the size in bytes of the buffer placed in front of an {@code InputStream}
+	 * source, as an {@code Integer} or its string form. A buffered parser may read ahead of the data
+	 * it has reported. A value of {@code 0} reads from the stream directly.
+	 */
+	String BUFFER_SIZE = "net.za.slyfox.minecraft.nbt.stream.NbtParser.bufferSize";
+
+	/**
+	 * Configuration key that enables bulk array mode. When the value is {@code true} (as a {@code
+	 * Boolean} or its string form), the contents of byte and integer arrays are reported by a single
+	 * {@link Event#VALUE_ARRAY} event following {@link Event#ARRAY_SIZE}, instead of one {@link
+	 * Event#VALUE_NUMBER} event per element.
+	 */
+	String BULK_ARRAYS = "net.za.slyfox.minecraft.nbt.stream.NbtParser.bulkArrays";
+
+	/**
+	 * Configuration key that enables lazy string values. When the value is {@code true} (as a {@code
+	 * Boolean} or its string form), the contents of {@link Event#VALUE_STRING} events are not decoded
+	 * when the event is produced. {@link #getCharSequence} then returns a view over the undecoded
+	 * data that is only valid until the parser is advanced, and {@link #getString} decodes the value
+	 * on demand.
+	 */
+	String LAZY_STRINGS = "net.za.slyfox.minecraft.nbt.stream.NbtParser.lazyStrings";
+
+	/**
+	 * Configuration key for the maximum element count of an array or list, as an {@code Integer} or
+	 * its string form. A parser throws an {@link net.za.slyfox.minecraft.nbt.NbtException} when a
+	 * longer array or list is encountered, before any of its contents are read.
+	 */
+	String MAX_ARRAY_LENGTH = "net.za.slyfox.minecraft.nbt.stream.NbtParser.maxArrayLength";
+
+	/**
+	 * Configuration key for the maximum number of nested compounds and lists, as an {@code Integer}
+	 * or its string form. A parser throws an {@link net.za.slyfox.minecraft.nbt.NbtException} when
+	 * the data is nested more deeply. The default is {@code 512}.
+	 */
+	String MAX_DEPTH = "net.za.slyfox.minecraft.nbt.stream.NbtParser.maxDepth";
+
+	/**
+	 * Configuration key for the maximum number of distinct tag names that a parser caches, as an
+	 * {@code Integer} or its string form. Cached names are returned as canonical {@code String}
+	 * instances without being decoded again. A value of {@code 0} disables the cache.
+	 */
+	String NAME_CACHE_SIZE = "net.za.slyfox.minecraft.nbt.stream.NbtParser.nameCacheSize";
+
 	enum Event {
 
 		/**
@@ -31,6 +78,13 @@ public interface NbtParser extends Closeable {
 		 */
 		LIST_TAG_ID,
 
+		/**
+		 * Reported only by an {@link NbtAsyncParser} when the input fed to it so far ends part of the
+		 * way through the next token. The position of the parser is unchanged, and the next event
+		 * can be produced after more input is fed. Value accessors must not be called in this state.
+		 */
+		NEED_MORE_INPUT,
+
 		/**
 		 * Tag type/ID value. The position of the parser is after the ID byte. The method {@link
 		 * #getTagType} returns the type value.
@@ -43,6 +97,15 @@ public interface NbtParser extends Closeable {
 		 */
 		TAG_NAME,
 
+		/**
+		 * Contents of a byte or integer array, reported only in {@link #BULK_ARRAYS bulk array mode}.
+		 * This event always follows the {@link #ARRAY_SIZE} event of the array, even for empty
+		 * arrays. The position of the parser is before the array contents; the methods {@link
+		 * #readByteArray} and {@link #readIntArray} read them, and advancing the parser without
+		 * calling either skips them.
+		 */
+		VALUE_ARRAY,
+
 		/**
 		 * Number value in a numeric tag. The position of the parser is after the number value. The
 		 * method {@link #getNumber} returns the number value.
@@ -56,8 +119,89 @@ public interface NbtParser extends Closeable {
 		VALUE_STRING
 	}
 
+	/**
+	 * Walks the document, reporting its values to the given visitor, instead of producing events.
+	 * This method should only be called before the parser is first advanced, or after it is reset;
+	 * once it returns, the parser has no more events.
+	 *
+	 * @param visitor the visitor to report values to
+	 * @throws IllegalStateException when the parser has already been advanced
+	 */
+	void accept(NbtVisitor visitor);
+
+	/**
+	 * Returns the current number value as a {@code byte}, converting it as by a narrowing primitive
+	 * conversion if the related tag type is not {@link NbtTagType#BYTE}. Unlike {@link #getNumber},
+	 * this method does not allocate. This method should only be called when the parser state is
+	 * {@link Event#ARRAY_SIZE} or {@link Event#VALUE_NUMBER}.
+	 *
+	 * @return the current number value as a {@code byte}
+	 * @throws IllegalStateException when the parser state is not {@code ARRAY_SIZE} or {@code
+	 *         VALUE_NUMBER}
+	 */
+	byte getByte();
+
+	/**
+	 * Returns the current number value as a {@code double}. This method should only be called when
+	 * the parser state is {@link Event#ARRAY_SIZE} or {@link Event#VALUE_NUMBER}.
+	 *
+	 * @return the current number value as a {@code double}
+	 * @throws IllegalStateException when the parser state is not {@code ARRAY_SIZE} or {@code
+	 *         VALUE_NUMBER}
+	 * @see #getByte
+	 */
+	double getDouble();
+
+	/**
+	 * Returns a {@code CharSequence} for a tag name or string value. In {@link #LAZY_STRINGS lazy
+	 * string mode}, the sequence returned for a string value is a view over the undecoded data,
+	 * which is only valid until the parser is advanced; comparing or inspecting it does not
+	 * construct a {@code String}. Otherwise, this method returns the same value as {@link
+	 * #getString}. This method should only be called when the parser state is {@link
+	 * Event#TAG_NAME} or {@link Event#VALUE_STRING}.
+	 *
+	 * @return a tag name or string value
+	 * @throws IllegalStateException when the parser state is not {@code TAG_NAME} or {@code
+	 *         VALUE_STRING}
+	 */
+	CharSequence getCharSequence();
+
+	/**
+	 * Returns the current number value as a {@code float}. This method should only be called when
+	 * the parser state is {@link Event#ARRAY_SIZE} or {@link Event#VALUE_NUMBER}.
+	 *
+	 * @return the current number value as a {@code float}
+	 * @throws IllegalStateException when the parser state is not {@code ARRAY_SIZE} or {@code
+	 *         VALUE_NUMBER}
+	 * @see #getByte
+	 */
+	float getFloat();
+
+	/**
+	 * Returns the current number value as an {@code int}. This is the natural accessor for array and
+	 * list sizes. This method should only be called when the parser state is {@link
+	 * Event#ARRAY_SIZE} or {@link Event#VALUE_NUMBER}.
+	 *
+	 * @return the current number value as an {@code int}
+	 * @throws IllegalStateException when the parser state is not {@code ARRAY_SIZE} or {@code
+	 *         VALUE_NUMBER}
+	 * @see #getByte
+	 */
+	int getInt();
+
 	NbtLocation getLocation();
 
+	/**
+	 * Returns the current number value as a {@code long}. This method should only be called when the
+	 * parser state is {@link Event#ARRAY_SIZE} or {@link Event#VALUE_NUMBER}.
+	 *
+	 * @return the current number value as a {@code long}
+	 * @throws IllegalStateException when the parser state is not {@code ARRAY_SIZE} or {@code
+	 *         VALUE_NUMBER}
+	 * @see #getByte
+	 */
+	long getLong();
+
 	/**
 	 * Returns a {@code Number} for an array size or numeric value. For number values, the related
 	 * tag type indicates which {@code value} method should be called to obtain the value as a
@@ -72,6 +216,17 @@ public interface NbtParser extends Closeable {
 	 */
 	Number getNumber();
 
+	/**
+	 * Returns the current number value as a {@code short}. This method should only be called when
+	 * the parser state is {@link Event#ARRAY_SIZE} or {@link Event#VALUE_NUMBER}.
+	 *
+	 * @return the current number value as a {@code short}
+	 * @throws IllegalStateException when the parser state is not {@code ARRAY_SIZE} or {@code
+	 *         VALUE_NUMBER}
+	 * @see #getByte
+	 */
+	short getShort();
+
 	/**
 	 * Returns a {@code String} for a tag name or string value. This method should only be called
 	 * when the parser state is {@link Event#TAG_NAME} or {@link Event#VALUE_STRING}.
@@ -93,4 +248,71 @@ public interface NbtParser extends Closeable {
 
 	boolean hasNext();
 	Event next();
+
+	/**
+	 * Reads the contents of the current byte array into the start of the given array with a single
+	 * bulk read. This method should only be called once, when the parser state is {@link
+	 * Event#VALUE_ARRAY} for a {@link NbtTagType#BYTE_ARRAY} tag.
+	 *
+	 * @param array the array to fill, which must be at least as long as the array size
+	 * @throws IllegalArgumentException when {@code array} is shorter than the array size
+	 * @throws IllegalStateException when the parser state is not {@code VALUE_ARRAY} for a byte
+	 *         array, or when the array contents have already been read
+	 */
+	void readByteArray(byte[] array);
+
+	/**
+	 * Reads the contents of the current integer array into the start of the given array with a
+	 * single bulk read and byte swap. This method should only be called once, when the parser state
+	 * is {@link Event#VALUE_ARRAY} for a {@link NbtTagType#INT_ARRAY} tag.
+	 *
+	 * @param array the array to fill, which must be at least as long as the array size
+	 * @throws IllegalArgumentException when {@code array} is shorter than the array size
+	 * @throws IllegalStateException when the parser state is not {@code VALUE_ARRAY} for an
+	 *         integer array, or when the array contents have already been read
+	 */
+	void readIntArray(int[] array);
+
+	/**
+	 * Discards the state of the parser and prepares it to parse a new document from the given
+	 * stream. Internal buffers, the container stack and the tag name table are kept, so that a single
+	 * parser can be reused for many small documents without repeating its setup. The previous input
+	 * is not closed.
+	 *
+	 * @param inputStream the stream to read the next document from
+	 * @throws UnsupportedOperationException when the parser does not read from streams
+	 */
+	void reset(InputStream inputStream);
+
+	/**
+	 * Discards the state of the parser and prepares it to parse a new document from the remaining
+	 * contents of the given buffer, in the same way as {@link #reset(InputStream)}. The position of
+	 * the given buffer is not modified.
+	 *
+	 * @param buffer the buffer to read the next document from
+	 * @throws UnsupportedOperationException when the parser does not read from buffers
+	 */
+	void reset(ByteBuffer buffer);
+
+	/**
+	 * Skips the remaining children of the innermost open compound, including its {@link
+	 * NbtTagType#END} tag, without producing events for them. The next event is the one following
+	 * the compound. This method should only be called between the children of a compound, i.e. when
+	 * the next event would be {@link Event#TAG_ID}.
+	 *
+	 * @throws IllegalStateException when the parser is not positioned between the children of a
+	 *         compound
+	 */
+	void skipChildren();
+
+	/**
+	 * Skips the value of the current tag without producing events for it. Strings and arrays are
+	 * skipped using their length prefixes, and compounds and lists are skipped by scanning their
+	 * contents without decoding them. The next event is the one following the value. This method
+	 * should only be called when the parser state is {@link Event#TAG_NAME}; after it returns, no
+	 * value accessor may be called until the parser is advanced.
+	 *
+	 * @throws IllegalStateException when the parser state is not {@code TAG_NAME}
+	 */
+	void skipValue();
 }
@@ -14,11 +14,30 @@
 package net.za.slyfox.minecraft.nbt.stream;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 public interface NbtParserFactory {
 
+	/**
+	 * Creates a non-blocking parser that is fed input in fragments, for use with NIO channels and
+	 * other push-based sources.
+	 *
+	 * @return a new parser with no input
+	 */
+	NbtAsyncParser createAsyncParser();
+
 	NbtParser createParser(InputStream inputStream);
 
+	/**
+	 * Creates a parser that reads NBT data from the remaining contents of a {@code ByteBuffer}. The
+	 * parser reads the buffer contents in place, without copying them, and does not modify the
+	 * position of the given buffer.
+	 *
+	 * @param buffer the buffer to read NBT data from
+	 * @return a parser over the buffer contents
+	 */
+	NbtParser createParser(ByteBuffer buffer);
+
 	Map<String, ?> getConfigInUse();
 }
@@ -28,6 +28,16 @@ public enum NbtTagType {
 	COMPOUND(10),
 	INT_ARRAY(11);
 
+	private static final NbtTagType[] VALUES_BY_ID;
+
+	static {
+		NbtTagType[] values = values();
+		VALUES_BY_ID = new NbtTagType[values.length];
+		for(NbtTagType value: values) {
+			VALUES_BY_ID[value.id] = value;
+		}
+	}
+
 	public final byte id;
 
 	private NbtTagType(int id) {
@@ -37,12 +47,10 @@ public enum NbtTagType {
 
 	public static NbtTagType valueOf(byte id) {
 
-		for(NbtTagType value: values()) {
-			if(value.id == id) {
-				return value;
-			}
+		if((id >= 0) && (id < VALUES_BY_ID.length)) {
+			return VALUES_BY_ID[id];
 		}
 		throw new IllegalArgumentException("No tag type corresponding to 0x"
-				+ Integer.toHexString(id));
+				+ Integer.toHexString(id & 0xFF));
 	}
 }
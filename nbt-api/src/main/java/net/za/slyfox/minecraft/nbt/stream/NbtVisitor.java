@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+/**
+ * Receiver of the values of an NBT document, as an alternative to pulling events from an {@link
+ * NbtParser}. The parser walks the document in a single loop and calls back with typed values, so
+ * the visitor neither switches on events nor fetches values through accessors. Values are reported in
+ * document order; each value of a compound is reported with its tag name, and each element of a list
+ * with a {@code null} name.
+ *
+ * <p>Compounds and lists are bracketed by {@code enter} and {@code exit} calls. Returning {@code
+ * false} from an {@code enter} method skips the contents of the container without decoding them, and
+ * the matching {@code exit} method is not called.</p>
+ *
+ * @see NbtParser#accept(NbtVisitor)
+ * @see NbtVisitorAdapter
+ */
+public interface NbtVisitor {
+
+	/**
+	 * Called at the start of a compound.
+	 *
+	 * @param name the tag name, or {@code null} for a list element
+	 * @return {@code true} to visit the children of the compound, or {@code false} to skip them
+	 */
+	boolean enterCompound(String name);
+
+	/**
+	 * Called at the start of a list.
+	 *
+	 * @param name the tag name, or {@code null} for a list element
+	 * @param elementType the tag type of the elements
+	 * @param size the number of elements
+	 * @return {@code true} to visit the elements of the list, or {@code false} to skip them
+	 */
+	boolean enterList(String name, NbtTagType elementType, int size);
+
+	/**
+	 * Called after the last child of a compound that was entered.
+	 */
+	void exitCompound();
+
+	/**
+	 * Called after the last element of a list that was entered.
+	 */
+	void exitList();
+
+	void visitByte(String name, byte value);
+
+	/**
+	 * Called for a byte array. The contents are only valid until this method returns, as the array
+	 * may be reused for later values.
+	 *
+	 * @param array the array holding the contents
+	 * @param offset the index of the first element in {@code array}
+	 * @param length the number of elements
+	 */
+	void visitByteArray(String name, byte[] array, int offset, int length);
+
+	void visitDouble(String name, double value);
+
+	void visitFloat(String name, float value);
+
+	void visitInt(String name, int value);
+
+	/**
+	 * Called for an integer array. The contents are only valid until this method returns, as the
+	 * array may be reused for later values.
+	 *
+	 * @param array the array holding the contents
+	 * @param offset the index of the first element in {@code array}
+	 * @param length the number of elements
+	 */
+	void visitIntArray(String name, int[] array, int offset, int length);
+
+	void visitLong(String name, long value);
+
+	void visitShort(String name, short value);
+
+	void visitString(String name, String value);
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+/**
+ * {@link NbtVisitor} whose methods do nothing, and which enters every compound and list. Subclasses
+ * override only the callbacks they need.
+ */
+public abstract class NbtVisitorAdapter implements NbtVisitor {
+
+	@Override
+	public boolean enterCompound(String name) {
+
+		return true;
+	}
+
+	@Override
+	public boolean enterList(String name, NbtTagType elementType, int size) {
+
+		return true;
+	}
+
+	@Override
+	public void exitCompound() {
+
+	}
+
+	@Override
+	public void exitList() {
+
+	}
+
+	@Override
+	public void visitByte(String name, byte value) {
+
+	}
+
+	@Override
+	public void visitByteArray(String name, byte[] array, int offset, int length) {
+
+	}
+
+	@Override
+	public void visitDouble(String name, double value) {
+
+	}
+
+	@Override
+	public void visitFloat(String name, float value) {
+
+	}
+
+	@Override
+	public void visitInt(String name, int value) {
+
+	}
+
+	@Override
+	public void visitIntArray(String name, int[] array, int offset, int length) {
+
+	}
+
+	@Override
+	public void visitLong(String name, long value) {
+
+	}
+
+	@Override
+	public void visitShort(String name, short value) {
+
+	}
+
+	@Override
+	public void visitString(String name, String value) {
+
+	}
+}
@@ -14,12 +14,20 @@
 package net.za.slyfox.minecraft.nbt;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.List;
 import java.util.zip.GZIPInputStream;
 
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -35,6 +43,52 @@ public abstract class BigTestNbtReaderTest extends AbstractNbtReaderTest {
 				.read();
 	}
 
+	@Test
+	public void projection() throws IOException {
+
+		NbtProjection projection = NbtProjection.compile("nested compound test.egg.name",
+				"listTest (compound)[].name", "intTest");
+		NbtCompound nbt = createReader(new GZIPInputStream(
+				BigTestNbtReaderTest.class.getResourceAsStream("bigtest.nbt")))
+				.read(projection);
+
+		assertThat(nbt.keySet(), containsInAnyOrder("nested compound test", "listTest (compound)",
+				"intTest"));
+		NbtCompound egg = nbt.getCompound("nested compound test").getCompound("egg");
+		assertThat(egg.keySet(), contains("name"));
+		assertThat(egg.getString("name"), is("Eggbert"));
+
+		List<?> list = (List<?>)nbt.get("listTest (compound)");
+		assertThat(list.size(), is(2));
+		assertThat(((NbtCompound)list.get(1)).keySet(), contains("name"));
+		assertThat(((NbtCompound)list.get(1)).getString("name"), is("Compound tag #1"));
+	}
+
+	@Test
+	public void projectionThroughNestedLists() throws IOException {
+
+		byte[] document = nestedListDocument();
+
+		NbtCompound nbt = createReader(new ByteArrayInputStream(document))
+				.read(NbtProjection.compile("A[][].x", "C[].x"));
+		assertThat(nbt.keySet(), containsInAnyOrder("A", "C"));
+		List<?> outer = (List<?>)nbt.get("A");
+		assertThat(outer.size(), is(1));
+		List<?> inner = (List<?>)outer.get(0);
+		assertThat(inner.size(), is(1));
+		assertThat(((NbtCompound)inner.get(0)).keySet(), contains("x"));
+		assertThat(((NbtCompound)inner.get(0)).getInt("x"), is(1));
+		assertThat(((List<?>)nbt.get("C")).isEmpty(), is(true));
+
+		nbt = createReader(new ByteArrayInputStream(document)).read(NbtProjection.compile("A[][]"));
+		assertThat(nbt.keySet(), contains("A"));
+		outer = (List<?>)nbt.get("A");
+		assertThat(outer.size(), is(2));
+		assertThat(((NbtCompound)((List<?>)outer.get(0)).get(0)).keySet(),
+				containsInAnyOrder("x", "y"));
+		assertThat(((List<?>)outer.get(1)).size(), is(1));
+	}
+
 	@Test
 	public void rootCompoundName() {
 
@@ -67,4 +121,74 @@ public abstract class BigTestNbtReaderTest extends AbstractNbtReaderTest {
 		assertThat(nbt.getCompound("nested compound test").getCompound("egg").getFloat("value"),
 				is(0.5f));
 	}
+
+	@Test
+	public void typedGetters() {
+
+		assertThat(nbt.getByte("byteTest"), is((byte)127));
+		assertThat(nbt.getShort("shortTest"), is((short)32767));
+		assertThat(nbt.getInt("intTest"), is(2147483647));
+		assertThat(nbt.getLong("longTest"), is(9223372036854775807L));
+		assertThat(nbt.getFloat("floatTest"), is(0.49823147058486938f));
+		assertThat(nbt.getDouble("doubleTest"), is(0.49312871321823148));
+		assertThat(nbt.getLong("intTest"), is(2147483647L));
+		assertThat(nbt.getList("listTest (long)").size(), is(5));
+		assertThat(nbt.getByteArray("byteArrayTest (the first 1000 values of (n*n*255+n*7)%100, "
+				+ "starting with n=0 (0, 62, 34, 16, 8, ...))").length, is(1000));
+	}
+
+	@Test
+	public void typedGettersWithDefaults() {
+
+		assertThat(nbt.getInt("missing", -1), is(-1));
+		assertThat(nbt.getInt("stringTest", -1), is(-1));
+		assertThat(nbt.getShort("shortTest", (short)0), is((short)32767));
+		assertThat(nbt.getString("missing", "none"), is("none"));
+		assertThat(nbt.getIntArray("missing") == null, is(true));
+	}
+
+	/**
+	 * Returns a document of the form {@code {A:[[{x:1,y:2}],[3]],B:5,C:[[[1b]]]}}.
+	 */
+	private static byte[] nestedListDocument() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeByte(NbtTagType.COMPOUND.id);
+		output.writeUTF("");
+
+		output.writeByte(NbtTagType.LIST.id);
+		output.writeUTF("A");
+		output.writeByte(NbtTagType.LIST.id);
+		output.writeInt(2);
+		output.writeByte(NbtTagType.COMPOUND.id);
+		output.writeInt(1);
+		output.writeByte(NbtTagType.INT.id);
+		output.writeUTF("x");
+		output.writeInt(1);
+		output.writeByte(NbtTagType.INT.id);
+		output.writeUTF("y");
+		output.writeInt(2);
+		output.writeByte(NbtTagType.END.id);
+		output.writeByte(NbtTagType.INT.id);
+		output.writeInt(1);
+		output.writeInt(3);
+
+		output.writeByte(NbtTagType.INT.id);
+		output.writeUTF("B");
+		output.writeInt(5);
+
+		output.writeByte(NbtTagType.LIST.id);
+		output.writeUTF("C");
+		output.writeByte(NbtTagType.LIST.id);
+		output.writeInt(1);
+		output.writeByte(NbtTagType.LIST.id);
+		output.writeInt(1);
+		output.writeByte(NbtTagType.BYTE.id);
+		output.writeInt(1);
+		output.writeByte(1);
+
+		output.writeByte(NbtTagType.END.id);
+		return bytes.toByteArray();
+	}
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class NbtProjectionTest {
+
+	@Test
+	public void nestedPath() {
+
+		NbtProjection.Node root = NbtProjection.compile("Level.Sections[].Y").getRoot();
+
+		NbtProjection.Node level = root.getChild("Level");
+		assertThat(level, is(notNullValue()));
+		assertThat(level.isIncluded(), is(false));
+		assertThat(level.getElements(), is(nullValue()));
+
+		NbtProjection.Node sections = level.getChild("Sections");
+		assertThat(sections.getChild("Y"), is(nullValue()));
+		assertThat(sections.getElements().getChild("Y").isIncluded(), is(true));
+		assertThat(root.getChild("Data"), is(nullValue()));
+	}
+
+	@Test
+	public void includedNodeSelectsSubtree() {
+
+		NbtProjection.Node inventory = NbtProjection.compile("Data.Player.Inventory[]").getRoot()
+				.getChild("Data").getChild("Player").getChild("Inventory");
+
+		NbtProjection.Node elements = inventory.getElements();
+		assertThat(elements.isIncluded(), is(true));
+		assertThat(elements.getChild("id"), is(sameInstance(elements)));
+	}
+
+	@Test
+	public void nestedListPath() {
+
+		NbtProjection.Node list = NbtProjection.compile("A[][].x").getRoot().getChild("A");
+
+		NbtProjection.Node elements = list.getElements();
+		assertThat(elements.isIncluded(), is(false));
+		assertThat(elements.getChild("x"), is(nullValue()));
+		assertThat(elements.getElements().getChild("x").isIncluded(), is(true));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void emptySegment() {
+
+		NbtProjection.compile("Level..xPos");
+	}
+}
@@ -14,8 +14,12 @@
 package net.za.slyfox.minecraft.nbt.stream;
 
 import java.io.InputStream;
+import java.util.Map;
 
 public abstract class AbstractNbtParserTest {
 
 	protected abstract NbtParser createParser(InputStream inputStream);
+
+	protected abstract NbtParser createParser(InputStream inputStream,
+			Map<String, ?> configuration);
 }
@@ -16,11 +16,21 @@ package net.za.slyfox.minecraft.nbt.stream;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.zip.GZIPInputStream;
 
 import org.junit.Test;
 
+import net.za.slyfox.minecraft.nbt.NbtException;
 import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
 
 public abstract class BigTestNbtParserTest extends AbstractNbtParserTest {
@@ -255,4 +265,458 @@ public abstract class BigTestNbtParserTest extends AbstractNbtParserTest {
 
 		assertThat(parser.hasNext(), is(false));
 	}
+
+	@Test
+	public void lazyStrings() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")),
+				Collections.singletonMap(NbtParser.LAZY_STRINGS, true));
+
+		while(parser.next() != Event.VALUE_STRING) {
+			// Skip events preceding the first string value
+		}
+		CharSequence value = parser.getCharSequence();
+		assertThat(value.toString(), is("HELLO WORLD THIS IS A TEST STRING \u00C5\u00C4\u00D6!"));
+		assertThat(parser.getString(), is("HELLO WORLD THIS IS A TEST STRING \u00C5\u00C4\u00D6!"));
+
+		while(parser.next() != Event.VALUE_STRING) {
+			// Skip events preceding the next string value
+		}
+		assertThat("Hampus".contentEquals(parser.getCharSequence()), is(true));
+		assertThat(parser.getString(), is("Hampus"));
+	}
+
+	@Test(expected = NbtException.class)
+	public void maxArrayLengthExceeded() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")),
+				Collections.singletonMap(NbtParser.MAX_ARRAY_LENGTH, 10));
+
+		while(parser.hasNext()) {
+			parser.next();
+		}
+	}
+
+	@Test(expected = NbtException.class)
+	public void maxDepthExceeded() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")),
+				Collections.singletonMap(NbtParser.MAX_DEPTH, "1"));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		while(parser.hasNext()) {
+			parser.next();
+		}
+	}
+
+	@Test
+	public void locationDepth() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getLocation().getDepth(), is(0));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getLocation().getDepth(), is(1));
+
+		while(parser.next() != Event.TAG_NAME || !parser.getString().equals("ham")) {
+			// Skip events preceding the "ham" compound
+		}
+		assertThat(parser.getLocation().getDepth(), is(3));
+
+		while(parser.next() != Event.TAG_ID || parser.getTagType() != NbtTagType.END) {
+			// Skip the contents of the "ham" compound
+		}
+		assertThat(parser.getLocation().getDepth(), is(2));
+
+		while(parser.next() != Event.TAG_NAME || !parser.getString().equals("listTest (compound)")) {
+			// Skip events preceding the compound list
+		}
+		assertThat(parser.getLocation().getDepth(), is(2));
+		assertThat(parser.next(), is(Event.LIST_TAG_ID));
+		assertThat(parser.next(), is(Event.ARRAY_SIZE));
+		assertThat(parser.getLocation().getDepth(), is(3));
+
+		while(parser.hasNext()) {
+			parser.next();
+		}
+		assertThat(parser.getLocation().getDepth(), is(0));
+	}
+
+	@Test
+	public void primitiveAccessors() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		for(int i = 0; i < 4; ++i) {
+			parser.next();
+		}
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getLong(), is(9223372036854775807L));
+
+		parser.next();
+		parser.next();
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getShort(), is((short)32767));
+		assertThat(parser.getInt(), is(32767));
+
+		for(int i = 0; i < 5; ++i) {
+			parser.next();
+		}
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getFloat(), is(0.49823147058486938f));
+		assertThat(parser.getDouble(), is((double)0.49823147058486938f));
+
+		parser.next();
+		parser.next();
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getInt(), is(2147483647));
+		assertThat(parser.getLong(), is(2147483647L));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void primitiveAccessorOutsideNumber() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		parser.next();
+		parser.getInt();
+	}
+
+	@Test
+	public void bulkByteArray() throws IOException {
+
+		NbtParser parser = createBulkArrayParser();
+		advanceToByteArray(parser);
+
+		assertThat(parser.next(), is(Event.ARRAY_SIZE));
+		assertThat(parser.getInt(), is(1000));
+
+		assertThat(parser.next(), is(Event.VALUE_ARRAY));
+		byte[] array = new byte[1000];
+		parser.readByteArray(array);
+		for(int i = 0; i < 1000; ++i) {
+			assertThat(array[i], is((byte)((i * i * 255 + i * 7) % 100)));
+		}
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.DOUBLE));
+	}
+
+	@Test
+	public void bulkByteArraySkippedWhenUnread() throws IOException {
+
+		NbtParser parser = createBulkArrayParser();
+		advanceToByteArray(parser);
+
+		assertThat(parser.next(), is(Event.ARRAY_SIZE));
+		assertThat(parser.next(), is(Event.VALUE_ARRAY));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.DOUBLE));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("doubleTest"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void bulkIntArrayOnByteArray() throws IOException {
+
+		NbtParser parser = createBulkArrayParser();
+		advanceToByteArray(parser);
+
+		parser.next();
+		parser.next();
+		parser.readIntArray(new int[1000]);
+	}
+
+	@Test
+	public void skipValue() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		parser.next();
+		parser.next();
+		for(int i = 0; i < 5; ++i) {
+			assertThat(parser.next(), is(Event.TAG_ID));
+			assertThat(parser.next(), is(Event.TAG_NAME));
+			parser.skipValue();
+		}
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.COMPOUND));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("nested compound test"));
+		parser.skipValue();
+		assertThat(parser.getLocation().getDepth(), is(1));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.LIST));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("listTest (long)"));
+		parser.skipValue();
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("listTest (compound)"));
+		parser.skipValue();
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("byteTest"));
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getByte(), is((byte)127));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.BYTE_ARRAY));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		parser.skipValue();
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("doubleTest"));
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getDouble(), is(0.49312871321823148));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.END));
+		assertThat(parser.hasNext(), is(false));
+	}
+
+	@Test
+	public void skipChildren() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		while(parser.next() != Event.TAG_NAME || !parser.getString().equals("nested compound test")) {
+			// Skip events preceding the nested compound
+		}
+		parser.skipChildren();
+		assertThat(parser.getLocation().getDepth(), is(1));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.LIST));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("listTest (long)"));
+
+		assertThat(parser.next(), is(Event.LIST_TAG_ID));
+		assertThat(parser.next(), is(Event.ARRAY_SIZE));
+		for(int i = 0; i < 5; ++i) {
+			parser.next();
+		}
+		parser.skipChildren();
+		assertThat(parser.hasNext(), is(false));
+	}
+
+	@Test
+	public void skipChildrenAfterUnreadBulkArray() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeByte(NbtTagType.COMPOUND.id);
+		output.writeUTF("");
+		output.writeByte(NbtTagType.COMPOUND.id);
+		output.writeUTF("inner");
+		output.writeByte(NbtTagType.BYTE_ARRAY.id);
+		output.writeUTF("array");
+		output.writeInt(3);
+		output.write(new byte[] { 5, 5, 5 });
+		output.writeByte(NbtTagType.BYTE.id);
+		output.writeUTF("byte");
+		output.writeByte(1);
+		output.writeByte(NbtTagType.END.id);
+		output.writeByte(NbtTagType.INT.id);
+		output.writeUTF("after");
+		output.writeInt(7);
+		output.writeByte(NbtTagType.END.id);
+
+		NbtParser parser = createParser(new ByteArrayInputStream(bytes.toByteArray()),
+				Collections.singletonMap(NbtParser.BULK_ARRAYS, true));
+		while(parser.next() != Event.TAG_NAME || !parser.getString().equals("array")) {
+			// Skip events preceding the byte array
+		}
+		assertThat(parser.next(), is(Event.ARRAY_SIZE));
+		assertThat(parser.next(), is(Event.VALUE_ARRAY));
+		parser.skipChildren();
+		assertThat(parser.getLocation().getDepth(), is(1));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.INT));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("after"));
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getInt(), is(7));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void skipValueOutsideTagName() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		parser.next();
+		parser.skipValue();
+	}
+
+	@Test
+	public void visitor() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		RecordingVisitor visitor = new RecordingVisitor(Collections.<String>emptySet());
+
+		parser.accept(visitor);
+
+		assertThat(parser.hasNext(), is(false));
+		assertThat(visitor.calls.get(0), is("enterCompound Level"));
+		assertThat(visitor.calls.get(visitor.calls.size() - 1), is("exitCompound"));
+		assertThat(visitor.calls.contains("visitLong longTest 9223372036854775807"), is(true));
+		assertThat(visitor.calls.contains("visitInt intTest 2147483647"), is(true));
+		assertThat(visitor.calls.contains("visitString name Eggbert"), is(true));
+		assertThat(visitor.calls.contains("enterList listTest (long) LONG 5"), is(true));
+		assertThat(visitor.calls.contains("visitLong null 15"), is(true));
+		assertThat(visitor.calls.contains("visitByteArray byteArrayTest (the first 1000 values of "
+				+ "(n*n*255+n*7)%100, starting with n=0 (0, 62, 34, 16, 8, ...)) 1000 0,62,34"), is(true));
+		assertThat(visitor.calls.contains("visitDouble doubleTest 0.4931287132182315"), is(true));
+		assertThat(visitor.depth, is(0));
+	}
+
+	@Test
+	public void visitorSkipsSubtrees() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		RecordingVisitor visitor = new RecordingVisitor(new HashSet<>(Arrays.asList(
+				"nested compound test", "listTest (long)", "listTest (compound)")));
+
+		parser.accept(visitor);
+
+		assertThat(visitor.calls.contains("visitString name Eggbert"), is(false));
+		assertThat(visitor.calls.contains("visitLong null 15"), is(false));
+		assertThat(visitor.calls.contains("visitString name Compound tag #0"), is(false));
+		assertThat(visitor.calls.contains("visitByte byteTest 127"), is(true));
+		assertThat(visitor.calls.contains("visitDouble doubleTest 0.4931287132182315"), is(true));
+		assertThat(visitor.depth, is(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void visitorAfterNext() throws IOException {
+
+		NbtParser parser = createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+
+		parser.next();
+		parser.accept(new RecordingVisitor(Collections.<String>emptySet()));
+	}
+
+	private NbtParser createBulkArrayParser() throws IOException {
+
+		return createParser(new GZIPInputStream(
+				BigTestNbtParserTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")),
+				Collections.singletonMap(NbtParser.BULK_ARRAYS, true));
+	}
+
+	private static void advanceToByteArray(NbtParser parser) {
+
+		while(parser.next() != Event.TAG_NAME || !parser.getString().startsWith("byteArrayTest")) {
+			// Skip events preceding the byte array
+		}
+	}
+
+	/**
+	 * Visitor that records a description of each call, and declines to enter the named containers.
+	 */
+	private static final class RecordingVisitor extends NbtVisitorAdapter {
+
+		final List<String> calls = new ArrayList<>();
+		int depth;
+		private final Set<String> skipped;
+
+		RecordingVisitor(Set<String> skipped) {
+
+			this.skipped = skipped;
+		}
+
+		@Override
+		public boolean enterCompound(String name) {
+
+			calls.add("enterCompound " + name);
+			return enter(name);
+		}
+
+		@Override
+		public boolean enterList(String name, NbtTagType elementType, int size) {
+
+			calls.add("enterList " + name + ' ' + elementType + ' ' + size);
+			return enter(name);
+		}
+
+		@Override
+		public void exitCompound() {
+
+			calls.add("exitCompound");
+			--depth;
+		}
+
+		@Override
+		public void exitList() {
+
+			calls.add("exitList");
+			--depth;
+		}
+
+		@Override
+		public void visitByte(String name, byte value) {
+
+			calls.add("visitByte " + name + ' ' + value);
+		}
+
+		@Override
+		public void visitByteArray(String name, byte[] array, int offset, int length) {
+
+			calls.add("visitByteArray " + name + ' ' + length + ' ' + array[offset] + ','
+					+ array[offset + 1] + ',' + array[offset + 2]);
+		}
+
+		@Override
+		public void visitDouble(String name, double value) {
+
+			calls.add("visitDouble " + name + ' ' + value);
+		}
+
+		@Override
+		public void visitInt(String name, int value) {
+
+			calls.add("visitInt " + name + ' ' + value);
+		}
+
+		@Override
+		public void visitLong(String name, long value) {
+
+			calls.add("visitLong " + name + ' ' + value);
+		}
+
+		@Override
+		public void visitString(String name, String value) {
+
+			calls.add("visitString " + name + ' ' + value);
+		}
+
+		private boolean enter(String name) {
+
+			if(skipped.contains(name)) {
+				return false;
+			}
+			++depth;
+			return true;
+		}
+	}
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtGenerator;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * The uncompressed NBT documents measured by the benchmarks. The synthetic documents are generated
+ * from a fixed seed, so that every run measures exactly the same bytes.
+ */
+public enum Document {
+
+	/**
+	 * The {@code bigtest.nbt} test document, which mixes every tag type.
+	 */
+	BIGTEST {
+		@Override
+		byte[] create() throws IOException {
+
+			return readFully(new GZIPInputStream(resource("bigtest.nbt")));
+		}
+	},
+
+	/**
+	 * The {@code hello_world.nbt} test document, holding a single string.
+	 */
+	HELLO_WORLD {
+		@Override
+		byte[] create() throws IOException {
+
+			return readFully(resource("hello_world.nbt"));
+		}
+	},
+
+	/**
+	 * A document shaped like an Anvil chunk: block sections, height map and biomes, entities with
+	 * position lists, and tile entities with inventories.
+	 */
+	CHUNK {
+		@Override
+		void generate(NbtGenerator generator, Random random) {
+
+			generator.writeStartCompound("").writeStartCompound("Level")
+					.writeInt("xPos", random.nextInt(64)).writeInt("zPos", random.nextInt(64))
+					.writeLong("LastUpdate", random.nextInt(1000000))
+					.writeLong("InhabitedTime", random.nextInt(100000))
+					.writeByte("TerrainPopulated", (byte)1)
+					.writeByteArray("Biomes", bytes(random, 256, 8))
+					.writeIntArray("HeightMap", ints(random, 256, 128));
+			generator.writeStartList("Sections", NbtTagType.COMPOUND, 16);
+			for(int y = 0; y < 16; ++y) {
+				generator.writeStartCompound().writeByte("Y", (byte)y)
+						.writeByteArray("Blocks", bytes(random, 4096, 16))
+						.writeByteArray("Data", bytes(random, 2048, 4))
+						.writeByteArray("BlockLight", bytes(random, 2048, 2))
+						.writeByteArray("SkyLight", new byte[2048]).writeEnd();
+			}
+			generator.writeEnd().writeStartList("Entities", NbtTagType.COMPOUND, 24);
+			for(int i = 0; i < 24; ++i) {
+				generator.writeStartCompound()
+						.writeString("id", ENTITY_IDS[random.nextInt(ENTITY_IDS.length)])
+						.writeStartList("Pos", NbtTagType.DOUBLE, 3)
+								.writeDouble(random.nextDouble() * 16).writeDouble(random.nextDouble() * 256)
+								.writeDouble(random.nextDouble() * 16).writeEnd()
+						.writeStartList("Motion", NbtTagType.DOUBLE, 3)
+								.writeDouble(0.0).writeDouble(-0.0784).writeDouble(0.0).writeEnd()
+						.writeStartList("Rotation", NbtTagType.FLOAT, 2)
+								.writeFloat(random.nextFloat() * 360).writeFloat(0.0f).writeEnd()
+						.writeShort("Air", (short)300).writeShort("Fire", (short)-1)
+						.writeFloat("FallDistance", 0.0f).writeByte("OnGround", (byte)1)
+						.writeLong("UUIDMost", random.nextLong()).writeLong("UUIDLeast", random.nextLong())
+						.writeEnd();
+			}
+			generator.writeEnd().writeStartList("TileEntities", NbtTagType.COMPOUND, 8);
+			for(int i = 0; i < 8; ++i) {
+				generator.writeStartCompound().writeString("id", "Chest")
+						.writeInt("x", random.nextInt(16)).writeInt("y", random.nextInt(256))
+						.writeInt("z", random.nextInt(16))
+						.writeStartList("Items", NbtTagType.COMPOUND, 27);
+				for(int slot = 0; slot < 27; ++slot) {
+					generator.writeStartCompound().writeByte("Slot", (byte)slot)
+							.writeShort("id", (short)random.nextInt(400))
+							.writeByte("Count", (byte)(1 + random.nextInt(64)))
+							.writeShort("Damage", (short)0).writeEnd();
+				}
+				generator.writeEnd().writeEnd();
+			}
+			generator.writeEnd().writeEnd().writeEnd();
+		}
+	},
+
+	/**
+	 * A document made up mostly of short strings, some of them containing non-ASCII characters,
+	 * both as named tags and as list elements.
+	 */
+	STRINGS {
+		@Override
+		void generate(NbtGenerator generator, Random random) {
+
+			generator.writeStartCompound("");
+			for(int i = 0; i < 512; ++i) {
+				generator.writeString("name" + i, word(random));
+			}
+			generator.writeStartList("pages", NbtTagType.STRING, 4096);
+			for(int i = 0; i < 4096; ++i) {
+				generator.writeString(word(random));
+			}
+			generator.writeEnd().writeEnd();
+		}
+	},
+
+	/**
+	 * A document made up mostly of large byte and integer arrays.
+	 */
+	ARRAYS {
+		@Override
+		void generate(NbtGenerator generator, Random random) {
+
+			generator.writeStartCompound("");
+			for(int i = 0; i < 64; ++i) {
+				generator.writeByteArray("bytes" + i, bytes(random, 16384, 256))
+						.writeIntArray("ints" + i, ints(random, 4096, Integer.MAX_VALUE));
+			}
+			generator.writeEnd();
+		}
+	};
+
+	private static final String[] ENTITY_IDS = { "Chicken", "Cow", "Creeper", "Item", "Pig",
+			"Sheep", "Skeleton", "Zombie" };
+	private static final long SEED = 0x4E4254L;
+
+	/**
+	 * Creates the serialised document.
+	 */
+	byte[] create() throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGeneratorImpl generator = new NbtGeneratorImpl(outputStream);
+		generate(generator, new Random(SEED));
+		generator.close();
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * Writes a synthetic document, drawing its contents from the given source of randomness.
+	 */
+	void generate(NbtGenerator generator, Random random) {
+
+		throw new UnsupportedOperationException(name() + " is not generated");
+	}
+
+	private static byte[] bytes(Random random, int length, int bound) {
+
+		byte[] array = new byte[length];
+		for(int i = 0; i < length; ++i) {
+			array[i] = (byte)random.nextInt(bound);
+		}
+		return array;
+	}
+
+	private static int[] ints(Random random, int length, int bound) {
+
+		int[] array = new int[length];
+		for(int i = 0; i < length; ++i) {
+			array[i] = random.nextInt(bound);
+		}
+		return array;
+	}
+
+	private static byte[] readFully(InputStream inputStream) throws IOException {
+
+		try {
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			byte[] chunk = new byte[4096];
+			int count;
+			while((count = inputStream.read(chunk)) != -1) {
+				outputStream.write(chunk, 0, count);
+			}
+			return outputStream.toByteArray();
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private static InputStream resource(String name) throws IOException {
+
+		InputStream inputStream = Document.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/" + name);
+		if(inputStream == null) {
+			throw new IOException("Missing test resource " + name);
+		}
+		return inputStream;
+	}
+
+	private static String word(Random random) {
+
+		int length = 4 + random.nextInt(29);
+		StringBuilder builder = new StringBuilder(length);
+		for(int i = 0; i < length; ++i) {
+			builder.append((random.nextInt(10) == 0) ? (char)(0xC0 + random.nextInt(64))
+					: (char)('a' + random.nextInt(26)));
+		}
+		return builder.toString();
+	}
+}
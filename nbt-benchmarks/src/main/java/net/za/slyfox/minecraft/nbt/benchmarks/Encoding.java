@@ -0,0 +1,102 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The encodings in which the benchmarks receive their documents. Decoding is part of every measured
+ * operation, as it is when reading player and level files.
+ */
+public enum Encoding {
+
+	/**
+	 * Uncompressed data.
+	 */
+	RAW {
+		@Override
+		byte[] encode(byte[] document) {
+
+			return document;
+		}
+
+		@Override
+		InputStream open(byte[] data) {
+
+			return new ByteArrayInputStream(data);
+		}
+
+		@Override
+		ByteBuffer toBuffer(byte[] data) {
+
+			return ByteBuffer.wrap(data);
+		}
+	},
+
+	/**
+	 * GZIP compressed data, as used for player and level files.
+	 */
+	GZIP {
+		@Override
+		byte[] encode(byte[] document) throws IOException {
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			try(GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream)) {
+				gzipStream.write(document);
+			}
+			return outputStream.toByteArray();
+		}
+
+		@Override
+		InputStream open(byte[] data) throws IOException {
+
+			return new GZIPInputStream(new ByteArrayInputStream(data));
+		}
+
+		@Override
+		ByteBuffer toBuffer(byte[] data) throws IOException {
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length * 4);
+			try(InputStream inputStream = open(data)) {
+				byte[] chunk = new byte[8192];
+				int count;
+				while((count = inputStream.read(chunk)) != -1) {
+					outputStream.write(chunk, 0, count);
+				}
+			}
+			return ByteBuffer.wrap(outputStream.toByteArray());
+		}
+	};
+
+	/**
+	 * Encodes an uncompressed document.
+	 */
+	abstract byte[] encode(byte[] document) throws IOException;
+
+	/**
+	 * Opens a stream over the decoded contents of encoded data.
+	 */
+	abstract InputStream open(byte[] data) throws IOException;
+
+	/**
+	 * Decodes encoded data into a buffer.
+	 */
+	abstract ByteBuffer toBuffer(byte[] data) throws IOException;
+}
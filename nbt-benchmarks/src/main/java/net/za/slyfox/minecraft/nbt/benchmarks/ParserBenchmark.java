@@ -0,0 +1,227 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.za.slyfox.minecraft.nbt.stream.ByteBufferNbtParserImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+import net.za.slyfox.minecraft.nbt.stream.NbtVisitor;
+
+/**
+ * Measures the throughput of the parsers, both pulling events and consuming the value of every event
+ * as a typical consumer would, and pushing the same values to a {@link NbtVisitor}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ParserBenchmark {
+
+	@Param({ "BIGTEST", "CHUNK", "STRINGS", "ARRAYS" })
+	public Document document;
+
+	@Param({ "RAW", "GZIP" })
+	public Encoding encoding;
+
+	private byte[] data;
+
+	@Setup
+	public void setUp() throws IOException {
+
+		data = encoding.encode(document.create());
+	}
+
+	@Benchmark
+	public int bufferEvents(Blackhole blackhole) throws IOException {
+
+		return consume(new ByteBufferNbtParserImpl(encoding.toBuffer(data)), blackhole);
+	}
+
+	@Benchmark
+	public void bufferVisitor(Blackhole blackhole) throws IOException {
+
+		new ByteBufferNbtParserImpl(encoding.toBuffer(data)).accept(new ConsumingVisitor(blackhole));
+	}
+
+	@Benchmark
+	public int streamEvents(Blackhole blackhole) throws IOException {
+
+		return consume(new NbtParserImpl(encoding.open(data)), blackhole);
+	}
+
+	@Benchmark
+	public void streamVisitor(Blackhole blackhole) throws IOException {
+
+		new NbtParserImpl(encoding.open(data)).accept(new ConsumingVisitor(blackhole));
+	}
+
+	/**
+	 * Advances the parser to the end of the document, passing each value to the black hole.
+	 *
+	 * @return the number of events produced
+	 */
+	static int consume(NbtParser parser, Blackhole blackhole) {
+
+		int events = 0;
+		while(parser.hasNext()) {
+			Event event = parser.next();
+			switch(event) {
+				case TAG_ID:
+				case LIST_TAG_ID:
+					blackhole.consume(parser.getTagType());
+					break;
+
+				case TAG_NAME:
+				case VALUE_STRING:
+					blackhole.consume(parser.getString());
+					break;
+
+				case ARRAY_SIZE:
+					blackhole.consume(parser.getInt());
+					break;
+
+				case VALUE_NUMBER:
+					blackhole.consume(parser.getDouble());
+					break;
+
+				default:
+					break;
+			}
+			++events;
+		}
+		return events;
+	}
+
+	/**
+	 * Visitor that passes every value to a black hole, matching the work done by {@link #consume}.
+	 */
+	private static final class ConsumingVisitor implements NbtVisitor {
+
+		private final Blackhole blackhole;
+
+		ConsumingVisitor(Blackhole blackhole) {
+
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public boolean enterCompound(String name) {
+
+			blackhole.consume(name);
+			return true;
+		}
+
+		@Override
+		public boolean enterList(String name, NbtTagType elementType, int size) {
+
+			blackhole.consume(name);
+			blackhole.consume(elementType);
+			blackhole.consume(size);
+			return true;
+		}
+
+		@Override
+		public void exitCompound() {
+
+		}
+
+		@Override
+		public void exitList() {
+
+		}
+
+		@Override
+		public void visitByte(String name, byte value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void visitByteArray(String name, byte[] array, int offset, int length) {
+
+			blackhole.consume(name);
+			blackhole.consume(array);
+		}
+
+		@Override
+		public void visitDouble(String name, double value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void visitFloat(String name, float value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void visitInt(String name, int value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void visitIntArray(String name, int[] array, int offset, int length) {
+
+			blackhole.consume(name);
+			blackhole.consume(array);
+		}
+
+		@Override
+		public void visitLong(String name, long value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void visitShort(String name, short value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+
+		@Override
+		public void visitString(String name, String value) {
+
+			blackhole.consume(name);
+			blackhole.consume(value);
+		}
+	}
+}
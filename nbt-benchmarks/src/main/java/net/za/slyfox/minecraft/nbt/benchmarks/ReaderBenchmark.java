@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.za.slyfox.minecraft.nbt.NbtCompound;
+import net.za.slyfox.minecraft.nbt.NbtReader;
+import net.za.slyfox.minecraft.nbt.NbtReaderFactory;
+import net.za.slyfox.minecraft.nbt.NbtReaderFactoryImpl;
+import net.za.slyfox.minecraft.nbt.NbtReaderImpl;
+
+/**
+ * Measures building the full tree of a document with {@link NbtReader#read()}, both through a new
+ * reader for every document and through a single reader that is reset between documents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+public class ReaderBenchmark {
+
+	@Param({ "BIGTEST", "HELLO_WORLD", "CHUNK", "STRINGS", "ARRAYS" })
+	public Document document;
+
+	@Param({ "RAW", "GZIP" })
+	public Encoding encoding;
+
+	private byte[] data;
+	private NbtReaderFactory factory;
+	private NbtReader reusedReader;
+
+	@Setup
+	public void setUp() throws IOException {
+
+		data = encoding.encode(document.create());
+		factory = new NbtReaderFactoryImpl(null);
+		reusedReader = factory.createReader(encoding.open(data));
+	}
+
+	@Benchmark
+	public NbtCompound factoryReader() throws IOException {
+
+		return factory.createReader(encoding.open(data)).read();
+	}
+
+	@Benchmark
+	public NbtCompound newReader() throws IOException {
+
+		return new NbtReaderImpl(encoding.open(data)).read();
+	}
+
+	@Benchmark
+	public NbtCompound reusedReader() throws IOException {
+
+		reusedReader.reset(encoding.open(data));
+		return reusedReader.read();
+	}
+}
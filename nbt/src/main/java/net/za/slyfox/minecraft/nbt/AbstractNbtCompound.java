@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.AbstractMap;
+
+/**
+ * Base class for {@link NbtCompound} implementations, providing the typed getters on top of {@link
+ * #get}. Numbers are read through the primitive accessors of {@link NbtNumber}, so that values
+ * stored in primitive form are never boxed.
+ */
+abstract class AbstractNbtCompound extends AbstractMap<String, NbtValue> implements NbtCompound {
+
+	@Override
+	public byte getByte(String name) {
+
+		return ((NbtNumber)get(name)).byteValue();
+	}
+
+	@Override
+	public byte getByte(String name, byte defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtNumber) ? ((NbtNumber)value).byteValue() : defaultValue;
+	}
+
+	@Override
+	public byte[] getByteArray(String name) {
+
+		NbtByteArray value = (NbtByteArray)get(name);
+		return (value != null) ? value.getArray() : null;
+	}
+
+	@Override
+	public NbtCompound getCompound(String name) {
+
+		return (NbtCompound)get(name);
+	}
+
+	@Override
+	public double getDouble(String name) {
+
+		return ((NbtNumber)get(name)).doubleValue();
+	}
+
+	@Override
+	public double getDouble(String name, double defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtNumber) ? ((NbtNumber)value).doubleValue() : defaultValue;
+	}
+
+	@Override
+	public float getFloat(String name) {
+
+		return ((NbtNumber)get(name)).floatValue();
+	}
+
+	@Override
+	public float getFloat(String name, float defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtNumber) ? ((NbtNumber)value).floatValue() : defaultValue;
+	}
+
+	@Override
+	public int getInt(String name) {
+
+		return ((NbtNumber)get(name)).intValue();
+	}
+
+	@Override
+	public int getInt(String name, int defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtNumber) ? ((NbtNumber)value).intValue() : defaultValue;
+	}
+
+	@Override
+	public int[] getIntArray(String name) {
+
+		NbtIntArray value = (NbtIntArray)get(name);
+		return (value != null) ? value.getArray() : null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends NbtValue> NbtList<T> getList(String name) {
+
+		return (NbtList<T>)get(name);
+	}
+
+	@Override
+	public long getLong(String name) {
+
+		return ((NbtNumber)get(name)).longValue();
+	}
+
+	@Override
+	public long getLong(String name, long defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtNumber) ? ((NbtNumber)value).longValue() : defaultValue;
+	}
+
+	@Override
+	public short getShort(String name) {
+
+		return ((NbtNumber)get(name)).shortValue();
+	}
+
+	@Override
+	public short getShort(String name, short defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtNumber) ? ((NbtNumber)value).shortValue() : defaultValue;
+	}
+
+	@Override
+	public String getString(String name) {
+
+		return ((NbtString)get(name)).getString();
+	}
+
+	@Override
+	public String getString(String name, String defaultValue) {
+
+		NbtValue value = get(name);
+		return (value instanceof NbtString) ? ((NbtString)value).getString() : defaultValue;
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.AbstractList;
+
+/**
+ * Base class for lists of numbers that are stored in a primitive array. The list is fully modifiable
+ * until it is {@link #freeze() frozen}; elements passed to it are unwrapped into the array, and {@link
+ * #get} wraps an element in a new value object, so subclasses provide typed accessors that avoid this.
+ */
+abstract class AbstractPrimitiveNbtList<T extends NbtValue> extends AbstractList<T>
+		implements NbtList<T> {
+
+	private boolean frozen;
+	private final String name;
+	private int size;
+
+	AbstractPrimitiveNbtList(String name, int size) {
+
+		this.name = name;
+		this.size = size;
+	}
+
+	@Override
+	public void add(int index, T element) {
+
+		if((index < 0) || (index > size)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		checkModifiable();
+		if(size == capacity()) {
+			grow(Math.max(4, size * 2));
+		}
+		Object array = array();
+		System.arraycopy(array, index, array, index + 1, size - index);
+		store(index, element);
+		++size;
+		++modCount;
+	}
+
+	@Override
+	public String getName() {
+
+		return name;
+	}
+
+	@Override
+	public T remove(int index) {
+
+		T previous = get(index);
+		checkModifiable();
+		Object array = array();
+		System.arraycopy(array, index + 1, array, index, size - index - 1);
+		--size;
+		++modCount;
+		return previous;
+	}
+
+	@Override
+	public T set(int index, T element) {
+
+		T previous = get(index);
+		checkModifiable();
+		store(index, element);
+		return previous;
+	}
+
+	@Override
+	public int size() {
+
+		return size;
+	}
+
+	/**
+	 * Returns the primitive array holding the elements.
+	 */
+	abstract Object array();
+
+	abstract int capacity();
+
+	final void checkIndex(int index) {
+
+		if((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	final void checkModifiable() {
+
+		if(frozen) {
+			throw new UnsupportedOperationException("List <" + name + "> is shared and cannot be "
+					+ "modified");
+		}
+	}
+
+	/**
+	 * Makes the list unmodifiable. Every later attempt to modify it throws {@code
+	 * UnsupportedOperationException}.
+	 */
+	final void freeze() {
+
+		frozen = true;
+	}
+
+	/**
+	 * Replaces the primitive array with a copy of the given capacity.
+	 */
+	abstract void grow(int capacity);
+
+	/**
+	 * Stores the value of the given element in the primitive array.
+	 */
+	abstract void store(int index, T element);
+}
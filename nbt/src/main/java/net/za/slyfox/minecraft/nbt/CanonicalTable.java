@@ -0,0 +1,235 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+/**
+ * Bounded table of canonical values, used by readers to share identical subtrees between and within
+ * the documents they read. Values are looked up by a content hash computed by the reader as each
+ * value is completed, bottom-up. Each hash selects a group of {@value #WAYS} adjacent slots; a value
+ * that is not found takes a free slot in its group, or replaces one of the occupants, so the table
+ * never holds more than its capacity and favours recently read values.
+ *
+ * <p>Leaf values are compared by content. Compounds and lists are compared shallowly, requiring
+ * their children to be the same instances; this holds for identical children that were themselves
+ * found in the table, and otherwise only means that a duplicate is kept. Values must not be modified
+ * once they have been added to the table; byte and integer arrays are added as read-only views,
+ * which copy their contents out of the source buffer of an {@link NbtReader#ARRAY_VIEWS array view}
+ * reader.</p>
+ */
+final class CanonicalTable {
+
+	private static final int WAYS = 4;
+
+	private final int[] hashes;
+	private final int mask;
+	private final NbtValue[] values;
+
+	CanonicalTable(int capacity) {
+
+		int size = Integer.highestOneBit(Math.max(capacity, WAYS));
+		if(size < capacity) {
+			size <<= 1;
+		}
+		hashes = new int[size];
+		mask = size - 1;
+		values = new NbtValue[size];
+	}
+
+	/**
+	 * Returns the canonical instance of the given value, adding the value to the table if no value
+	 * with the same content is present.
+	 *
+	 * @param hash the content hash of the value, as computed by {@link #hashOf} or {@link
+	 *        #containerHash}
+	 */
+	NbtValue canonicalize(NbtValue value, int hash) {
+
+		int h = hash * 0x9E3779B9;
+		h ^= h >>> 16;
+		int group = h & mask & -WAYS;
+		int free = -1;
+		for(int slot = group; slot < group + WAYS; ++slot) {
+			NbtValue candidate = values[slot];
+			if(candidate == null) {
+				if(free < 0) {
+					free = slot;
+				}
+			} else if((hashes[slot] == hash) && sameContent(candidate, value)) {
+				return candidate;
+			}
+		}
+		if(free < 0) {
+			free = group + ((h >>> 28) & (WAYS - 1));
+		}
+		value = detach(value);
+		hashes[free] = hash;
+		values[free] = value;
+		return value;
+	}
+
+	/**
+	 * Computes the content hash of a compound or list from the name of the container and the
+	 * combined hashes of its children, which the reader accumulates as {@code 31 * h + childHash}.
+	 */
+	static int containerHash(NbtValue container, int childrenHash) {
+
+		int h = nameHash(container) * 31 + ((container instanceof NbtCompound) ? 1 : 2);
+		return h * 31 + childrenHash;
+	}
+
+	/**
+	 * Returns the value to add to the table in place of the given one. Arrays that are views over
+	 * part of a reader's source buffer are copied, so that the table does not keep old buffers
+	 * reachable.
+	 */
+	private static NbtValue detach(NbtValue value) {
+
+		if(value instanceof NbtByteArrayViewImpl) {
+			return ((NbtByteArrayViewImpl)value).detach();
+		} else if(value instanceof NbtIntArrayViewImpl) {
+			return ((NbtIntArrayViewImpl)value).detach();
+		}
+		return value;
+	}
+
+	/**
+	 * Computes the content hash of a value that is not a compound or a list of variable-size
+	 * elements.
+	 */
+	static int hashOf(NbtValue value) {
+
+		int h;
+		if(value instanceof NbtByteArray) {
+			h = ((NbtByteArray)value).asByteBuffer().hashCode();
+		} else if(value instanceof NbtIntArray) {
+			h = ((NbtIntArray)value).asIntBuffer().hashCode();
+		} else if(value instanceof NbtList) {
+			h = listHash((NbtList<?>)value);
+		} else {
+			h = value.hashCode();
+		}
+		return nameHash(value) * 31 + h;
+	}
+
+	private static int listHash(NbtList<?> list) {
+
+		int h = list.getElementType().ordinal();
+		if(list instanceof NbtDoubleList) {
+			NbtDoubleList doubles = (NbtDoubleList)list;
+			for(int i = 0; i < doubles.size(); ++i) {
+				long bits = Double.doubleToLongBits(doubles.getDouble(i));
+				h = 31 * h + (int)(bits ^ (bits >>> 32));
+			}
+		} else if(list instanceof NbtFloatList) {
+			NbtFloatList floats = (NbtFloatList)list;
+			for(int i = 0; i < floats.size(); ++i) {
+				h = 31 * h + Float.floatToIntBits(floats.getFloat(i));
+			}
+		} else if(list instanceof NbtIntList) {
+			NbtIntList ints = (NbtIntList)list;
+			for(int i = 0; i < ints.size(); ++i) {
+				h = 31 * h + ints.getInt(i);
+			}
+		} else if(list instanceof NbtLongList) {
+			NbtLongList longs = (NbtLongList)list;
+			for(int i = 0; i < longs.size(); ++i) {
+				long value = longs.getLong(i);
+				h = 31 * h + (int)(value ^ (value >>> 32));
+			}
+		}
+		return h;
+	}
+
+	private static int nameHash(NbtValue value) {
+
+		String name = value.getName();
+		return (name != null) ? name.hashCode() : 0;
+	}
+
+	private static boolean sameContent(NbtValue a, NbtValue b) {
+
+		if(a.getClass() != b.getClass()) {
+			return false;
+		}
+		String name = a.getName();
+		if((name != null) ? !name.equals(b.getName()) : (b.getName() != null)) {
+			return false;
+		}
+		if(a instanceof NbtCompoundImpl) {
+			NbtCompoundImpl compoundA = (NbtCompoundImpl)a;
+			NbtCompoundImpl compoundB = (NbtCompoundImpl)b;
+			if(compoundA.size() != compoundB.size()) {
+				return false;
+			}
+			for(int i = 0; i < compoundA.size(); ++i) {
+				if((compoundA.valueAt(i) != compoundB.valueAt(i))
+						|| !compoundA.keyAt(i).equals(compoundB.keyAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		} else if(a instanceof ImmutableNbtListImpl) {
+			NbtList<?> listA = (NbtList<?>)a;
+			NbtList<?> listB = (NbtList<?>)b;
+			if((listA.getElementType() != listB.getElementType()) || (listA.size() != listB.size())) {
+				return false;
+			}
+			for(int i = 0; i < listA.size(); ++i) {
+				if(listA.get(i) != listB.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		} else if(a instanceof NbtByteArray) {
+			return ((NbtByteArray)a).asByteBuffer().equals(((NbtByteArray)b).asByteBuffer());
+		} else if(a instanceof NbtIntArray) {
+			return ((NbtIntArray)a).asIntBuffer().equals(((NbtIntArray)b).asIntBuffer());
+		} else if(a instanceof NbtString) {
+			return ((NbtString)a).getString().equals(((NbtString)b).getString());
+		} else if(a instanceof NbtList) {
+			return sameElements((NbtList<?>)a, (NbtList<?>)b);
+		}
+		return a.equals(b);
+	}
+
+	/**
+	 * Compares two primitive-backed lists of the same class by their elements.
+	 */
+	private static boolean sameElements(NbtList<?> a, NbtList<?> b) {
+
+		if(a.size() != b.size()) {
+			return false;
+		}
+		for(int i = 0; i < a.size(); ++i) {
+			if(a instanceof NbtDoubleList) {
+				if(Double.doubleToLongBits(((NbtDoubleList)a).getDouble(i))
+						!= Double.doubleToLongBits(((NbtDoubleList)b).getDouble(i))) {
+					return false;
+				}
+			} else if(a instanceof NbtFloatList) {
+				if(Float.floatToIntBits(((NbtFloatList)a).getFloat(i))
+						!= Float.floatToIntBits(((NbtFloatList)b).getFloat(i))) {
+					return false;
+				}
+			} else if(a instanceof NbtIntList) {
+				if(((NbtIntList)a).getInt(i) != ((NbtIntList)b).getInt(i)) {
+					return false;
+				}
+			} else if(((NbtLongList)a).getLong(i) != ((NbtLongList)b).getLong(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * Unmodifiable {@link NbtList} over a fixed array of elements, used for lists that may be shared
+ * between documents. The {@link NbtStructure structural hash} of the list is cached.
+ */
+final class ImmutableNbtListImpl<T extends NbtValue> extends AbstractList<T> implements NbtList<T>,
+		NbtStructure.Hashed, RandomAccess {
+
+	private final NbtTagType elementType;
+	private final NbtValue[] elements;
+	private final String name;
+	/** Structural hash of the list, valid once {@link #structuralHashed} is set. */
+	private long structuralHash;
+	private volatile boolean structuralHashed;
+
+	/**
+	 * Creates a list holding a copy of the elements of the given list.
+	 */
+	ImmutableNbtListImpl(String name, NbtTagType elementType, List<? extends T> elements) {
+
+		this.elementType = elementType;
+		this.elements = elements.toArray(new NbtValue[elements.size()]);
+		this.name = name;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+
+		return (T)elements[index];
+	}
+
+	@Override
+	public NbtTagType getElementType() {
+
+		return elementType;
+	}
+
+	@Override
+	public String getName() {
+
+		return name;
+	}
+
+	@Override
+	public boolean isStructuralHashCached() {
+
+		return structuralHashed;
+	}
+
+	@Override
+	public int size() {
+
+		return elements.length;
+	}
+
+	@Override
+	public long structuralHash() {
+
+		if(!structuralHashed) {
+			structuralHash = NbtStructure.compute(this);
+			structuralHashed = true;
+		}
+		return structuralHash;
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import net.za.slyfox.minecraft.nbt.stream.ByteBufferNbtParserImpl;
+import net.za.slyfox.minecraft.nbt.stream.Configuration;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * {@link NbtCompound} implementation that decodes its children from the serialised data on demand.
+ * On first access, the direct children of the compound are scanned once to index the offset of each
+ * child by name, skipping over their payloads. A child is only decoded when it is looked up, and a
+ * child compound is itself a lazy compound, so subtrees that are never accessed are never decoded.
+ * Lists are decoded completely when they are looked up.
+ *
+ * <p>The compound keeps a reference to the source buffer, whose contents must not be modified while
+ * the compound is in use. Operations that need every value, such as iterating over the entries,
+ * decode all remaining children of the compound. When {@link NbtReader#ARRAY_VIEWS array views}
+ * are configured, byte and integer arrays are decoded as views over the source buffer. All lazy
+ * compounds of a document decode their children through a single parser, which is reset to the
+ * payload of each child; like other compounds, they must therefore not be used concurrently.</p>
+ */
+final class LazyNbtCompoundImpl extends AbstractNbtCompound {
+
+	private final ByteBuffer buffer;
+	private final String name;
+	private final int offset;
+	/** Children that have not been decoded yet, or {@code null} until the children are indexed. */
+	private Map<String, Slot> pending;
+	private final Root root;
+	private final Map<String, NbtValue> values = new HashMap<>();
+
+	/**
+	 * Creates the root compound of a document.
+	 *
+	 * @param buffer the source buffer, in big-endian byte order
+	 * @param offset the absolute offset in the buffer of the payload of the compound
+	 * @param name the name of the compound
+	 * @param parser the parser that read the header of the compound, which is reused to decode the
+	 *        children of the compounds of the document
+	 * @param configuration the configuration of the parser, which must enable {@link
+	 *        NbtParser#BULK_ARRAYS bulk arrays}, and may enable {@link NbtReader#ARRAY_VIEWS array
+	 *        views} and set the {@link NbtParser#MAX_DEPTH maximum depth} of decoded lists
+	 */
+	LazyNbtCompoundImpl(ByteBuffer buffer, int offset, String name, ByteBufferNbtParserImpl parser,
+			Map<String, ?> configuration) {
+
+		this(new Root(buffer, parser, configuration), offset, name);
+	}
+
+	private LazyNbtCompoundImpl(Root root, int offset, String name) {
+
+		this.buffer = root.buffer;
+		this.name = name;
+		this.offset = offset;
+		this.root = root;
+	}
+
+	@Override
+	public void clear() {
+
+		index();
+		pending.clear();
+		values.clear();
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+
+		index();
+		return values.containsKey(key) || pending.containsKey(key);
+	}
+
+	@Override
+	public Set<Entry<String, NbtValue>> entrySet() {
+
+		index();
+		if(!pending.isEmpty()) {
+			Iterator<Entry<String, Slot>> iterator = pending.entrySet().iterator();
+			while(iterator.hasNext()) {
+				Entry<String, Slot> entry = iterator.next();
+				values.put(entry.getKey(), decode(entry.getKey(), entry.getValue()));
+				iterator.remove();
+			}
+		}
+		return values.entrySet();
+	}
+
+	@Override
+	public NbtValue get(Object key) {
+
+		index();
+		NbtValue value = values.get(key);
+		if(value == null) {
+			Slot slot = pending.remove(key);
+			if(slot != null) {
+				value = decode((String)key, slot);
+				values.put((String)key, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public String getName() {
+
+		return name;
+	}
+
+	@Override
+	public boolean isEmpty() {
+
+		return size() == 0;
+	}
+
+	@Override
+	public NbtValue put(String key, NbtValue value) {
+
+		index();
+		Slot slot = pending.remove(key);
+		NbtValue previous = values.put(key, value);
+		return (slot != null) ? decode(key, slot) : previous;
+	}
+
+	@Override
+	public NbtValue remove(Object key) {
+
+		NbtValue value = get(key);
+		values.remove(key);
+		return value;
+	}
+
+	@Override
+	public int size() {
+
+		index();
+		return values.size() + pending.size();
+	}
+
+	/**
+	 * Decodes the child in the given slot.
+	 */
+	private NbtValue decode(String childName, Slot slot) {
+
+		int position = slot.offset;
+		switch(slot.type) {
+			case BYTE: return new NbtByteImpl(childName, buffer.get(position));
+			case SHORT: return new NbtShortImpl(childName, buffer.getShort(position));
+			case INT: return new NbtIntImpl(childName, buffer.getInt(position));
+			case LONG: return new NbtLongImpl(childName, buffer.getLong(position));
+			case FLOAT: return new NbtFloatImpl(childName, buffer.getFloat(position));
+			case DOUBLE: return new NbtDoubleImpl(childName, buffer.getDouble(position));
+
+			case BYTE_ARRAY:
+				if(root.arrayViews) {
+					return NbtByteArrayViewImpl.slice(childName, buffer, position + 4,
+							buffer.getInt(position));
+				}
+				byte[] bytes = new byte[buffer.getInt(position)];
+				ByteBuffer source = buffer.duplicate();
+				source.position(position + 4);
+				source.get(bytes);
+				return new NbtByteArrayImpl(childName, bytes);
+
+			case INT_ARRAY:
+				if(root.arrayViews) {
+					return NbtIntArrayViewImpl.slice(childName, buffer, position + 4,
+							buffer.getInt(position));
+				}
+				int[] ints = new int[buffer.getInt(position)];
+				source = buffer.duplicate();
+				source.position(position + 4);
+				source.asIntBuffer().get(ints);
+				return new NbtIntArrayImpl(childName, ints);
+
+			case STRING:
+				NbtParser parser = root.parser(position, NbtTagType.STRING);
+				parser.next();
+				return new NbtStringImpl(childName, parser.getString());
+
+			case LIST:
+				return root.readList(position, childName);
+
+			case COMPOUND:
+				return new LazyNbtCompoundImpl(root, position, childName);
+
+			default:
+				throw new NbtException("Unsupported tag type " + slot.type);
+		}
+	}
+
+	/**
+	 * Scans the direct children of the compound to record their types and payload offsets, if this
+	 * has not been done yet.
+	 */
+	private void index() {
+
+		if(pending != null) {
+			return;
+		}
+		Map<String, Slot> slots = new HashMap<>();
+		NbtParser parser = root.parser(offset, NbtTagType.COMPOUND);
+		while(true) {
+			parser.next();
+			NbtTagType type = parser.getTagType();
+			if(type == NbtTagType.END) {
+				break;
+			}
+			parser.next();
+			slots.put(parser.getString(), new Slot(type,
+					offset + (int)parser.getLocation().getStreamOffset()));
+			parser.skipValue();
+		}
+		pending = slots;
+	}
+
+	/**
+	 * State shared by the lazy compounds of one document: the source buffer, and the parser and
+	 * reader that are reset to the payload of each child that is decoded.
+	 */
+	private static final class Root {
+
+		final boolean arrayViews;
+		final ByteBuffer buffer;
+		private final int maxDepth;
+		private final ByteBufferNbtParserImpl parser;
+		/** Reader over the parser for decoding lists, or {@code null} until a list is decoded. */
+		private NbtReaderImpl reader;
+
+		Root(ByteBuffer buffer, ByteBufferNbtParserImpl parser, Map<String, ?> configuration) {
+
+			this.arrayViews = Configuration.getBoolean(configuration, NbtReader.ARRAY_VIEWS, false);
+			this.buffer = buffer;
+			this.maxDepth = Configuration.getInt(configuration, NbtParser.MAX_DEPTH,
+					NbtReaderImpl.DEFAULT_MAX_DEPTH);
+			this.parser = parser;
+		}
+
+		/**
+		 * Resets the parser to the payload of a value of the given type at the given absolute
+		 * offset.
+		 */
+		NbtParser parser(int position, NbtTagType payloadType) {
+
+			parser.reset(payload(position), payloadType);
+			return parser;
+		}
+
+		/**
+		 * Decodes the list whose payload is at the given absolute offset.
+		 */
+		NbtList<? extends NbtValue> readList(int position, String name) {
+
+			if(reader == null) {
+				reader = new NbtReaderImpl(parser, maxDepth, 0, arrayViews ? buffer : null);
+			}
+			return reader.readList(payload(position), name, null);
+		}
+
+		private ByteBuffer payload(int position) {
+
+			ByteBuffer payload = buffer.duplicate();
+			payload.position(position);
+			return payload;
+		}
+	}
+
+	private static final class Slot {
+
+		final int offset;
+		final NbtTagType type;
+
+		Slot(NbtTagType type, int offset) {
+
+			this.offset = offset;
+			this.type = type;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.stream.ByteBufferNbtParserImpl;
+import net.za.slyfox.minecraft.nbt.stream.Configuration;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * {@link NbtReader} implementation that returns a {@link LazyNbtCompoundImpl lazy compound} backed
+ * by a buffer, instead of decoding the whole tree. Projected reads are decoded eagerly, as the
+ * projection already limits what is decoded. The configuration may enable {@link
+ * NbtReader#ARRAY_VIEWS array views}, which then apply to both kinds of read.
+ */
+class LazyNbtReaderImpl implements NbtReader {
+
+	private ByteBuffer buffer;
+	private final Map<String, ?> configuration;
+	private final int maxDepth;
+
+	/**
+	 * @param buffer the buffer holding the serialised data from its position
+	 * @param configuration the parser and reader configuration, which must enable {@link
+	 *        NbtParser#BULK_ARRAYS bulk arrays}
+	 */
+	LazyNbtReaderImpl(ByteBuffer buffer, Map<String, ?> configuration) {
+
+		this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.configuration = configuration;
+		this.maxDepth = Configuration.getInt(configuration, NbtParser.MAX_DEPTH,
+				NbtReaderImpl.DEFAULT_MAX_DEPTH);
+	}
+
+	@Override
+	public void close() {
+
+	}
+
+	@Override
+	public NbtCompound read() {
+
+		ByteBufferNbtParserImpl parser = new ByteBufferNbtParserImpl(buffer, configuration);
+		if((parser.next() != Event.TAG_ID) || (parser.getTagType() != NbtTagType.COMPOUND)) {
+			throw new NbtException("Expected COMPOUND");
+		}
+		if(parser.next() != Event.TAG_NAME) {
+			throw new NbtException("Expected TAG_NAME");
+		}
+		int offset = buffer.position() + (int)parser.getLocation().getStreamOffset();
+		return new LazyNbtCompoundImpl(buffer, offset, parser.getString(), parser, configuration);
+	}
+
+	@Override
+	public NbtCompound read(NbtProjection projection) {
+
+		boolean arrayViews = Configuration.getBoolean(configuration, NbtReader.ARRAY_VIEWS, false);
+		NbtReaderImpl reader = new NbtReaderImpl(new ByteBufferNbtParserImpl(buffer, configuration),
+				maxDepth, 0, arrayViews ? buffer : null);
+		return reader.read(projection);
+	}
+
+	/**
+	 * Reads the stream completely into a new buffer, as lazy compounds must be backed by a buffer.
+	 */
+	@Override
+	public void reset(InputStream inputStream) {
+
+		reset(ByteBuffer.wrap(NbtReaderFactoryImpl.readFully(inputStream)));
+	}
+
+	@Override
+	public void reset(ByteBuffer buffer) {
+
+		this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+	}
+}
@@ -13,6 +13,8 @@
  */
 package net.za.slyfox.minecraft.nbt;
 
+import java.nio.ByteBuffer;
+
 class NbtByteArrayImpl extends NbtValueImpl implements NbtByteArray {
 
 	private final byte[] array;
@@ -23,6 +25,12 @@ class NbtByteArrayImpl extends NbtValueImpl implements NbtByteArray {
 		this.array = array;
 	}
 
+	@Override
+	public ByteBuffer asByteBuffer() {
+
+		return ByteBuffer.wrap(array).asReadOnlyBuffer();
+	}
+
 	@Override
 	public byte[] getArray() {
 
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link NbtByteArray} implementation that is a read-only view over the part of a buffer holding the
+ * contents of the array, as read by a reader configured for {@link NbtReader#ARRAY_VIEWS array
+ * views}, or over an array of its own, for arrays that are shared through a {@link CanonicalTable}.
+ * The contents are only copied when {@link #getArray()} is called.
+ */
+final class NbtByteArrayViewImpl extends NbtValueImpl implements NbtByteArray {
+
+	/** Whether the view is over an array of its own, rather than part of a source buffer. */
+	private final boolean owned;
+	private final ByteBuffer view;
+
+	private NbtByteArrayViewImpl(String name, ByteBuffer view, boolean owned) {
+
+		super(name);
+		this.owned = owned;
+		this.view = view;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+
+		return view.duplicate();
+	}
+
+	@Override
+	public byte[] getArray() {
+
+		byte[] array = new byte[view.remaining()];
+		view.duplicate().get(array);
+		return array;
+	}
+
+	/**
+	 * Returns a view with the same contents that does not keep a source buffer reachable: this view
+	 * if it is over an array of its own, and otherwise a view over a copy of its contents.
+	 */
+	NbtByteArrayViewImpl detach() {
+
+		return owned ? this : wrap(getName(), getArray());
+	}
+
+	/**
+	 * Creates a view over {@code length} bytes of the source buffer, starting at the absolute offset
+	 * {@code offset}.
+	 *
+	 * @throws NbtException if the array extends past the limit of the buffer
+	 */
+	static NbtByteArrayViewImpl slice(String name, ByteBuffer source, int offset, int length) {
+
+		if((long)offset + length > source.limit()) {
+			throw new NbtException("Unexpected end of input");
+		}
+		ByteBuffer view = source.duplicate();
+		view.limit(offset + length).position(offset);
+		return new NbtByteArrayViewImpl(name, view.slice().asReadOnlyBuffer(), false);
+	}
+
+	/**
+	 * Creates a view over the given array, which must not be modified afterwards.
+	 */
+	static NbtByteArrayViewImpl wrap(String name, byte[] array) {
+
+		return new NbtByteArrayViewImpl(name, ByteBuffer.wrap(array).asReadOnlyBuffer(), true);
+	}
+}
@@ -13,14 +13,39 @@
  */
 package net.za.slyfox.minecraft.nbt;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
-class NbtCompoundImpl extends NbtValueImpl implements NbtCompound {
-
-	private Map<String, NbtValue> values = new HashMap<>();
+/**
+ * {@link NbtCompound} implementation that stores its entries in a pair of dense key and value arrays,
+ * in insertion order. Small compounds, which make up most of the compounds in typical NBT data, are
+ * searched linearly, comparing keys by identity before equality, so that names canonicalised by the
+ * parser are usually matched without calling {@code equals}. Once a compound holds more than {@value
+ * #INDEX_THRESHOLD} entries, an open-addressing table of positions in the dense arrays is maintained
+ * alongside them. Removing an entry shifts the entries after it, and rebuilds the table if there is
+ * one. A compound that may be shared between documents is {@link #freeze() frozen}, after which it
+ * cannot be modified and caches its {@link NbtStructure structural hash}.
+ */
+class NbtCompoundImpl extends AbstractNbtCompound implements NbtStructure.Hashed {
+
+	private static final String[] EMPTY_KEYS = {};
+	private static final NbtValue[] EMPTY_VALUES = {};
+	private static final int INDEX_THRESHOLD = 8;
+
+	private boolean frozen;
+	/** Open-addressing table of entry positions plus one, or {@code null} while the map is small. */
+	private int[] index;
+	private String[] keys = EMPTY_KEYS;
+	private String name;
+	private int size;
+	/** Structural hash of a frozen compound, valid once {@link #structuralHashed} is set. */
+	private long structuralHash;
+	private volatile boolean structuralHashed;
+	private NbtValue[] values = EMPTY_VALUES;
 
 	NbtCompoundImpl() {
 
@@ -29,112 +54,329 @@ class NbtCompoundImpl extends NbtValueImpl implements NbtCompound {
 
 	NbtCompoundImpl(String name) {
 
-		super(name);
+		this.name = name;
 	}
 
 	@Override
 	public void clear() {
 
-		values.clear();
+		checkModifiable();
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		index = null;
+		size = 0;
 	}
 
 	@Override
 	public boolean containsKey(Object key) {
 
-		return values.containsKey(key);
+		return indexOf(key) >= 0;
 	}
 
 	@Override
 	public boolean containsValue(Object value) {
 
-		return values.containsValue(value);
+		for(int i = 0; i < size; ++i) {
+			if((value == null) ? (values[i] == null) : value.equals(values[i])) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
 	public Set<Entry<String, NbtValue>> entrySet() {
 
-		return values.entrySet();
+		return new EntrySet();
+	}
+
+	@Override
+	public NbtValue get(Object key) {
+
+		int position = indexOf(key);
+		return (position >= 0) ? values[position] : null;
 	}
 
 	@Override
-	public Set<String> keySet() {
+	public String getName() {
 
-		return values.keySet();
+		return name;
 	}
 
 	@Override
 	public boolean isEmpty() {
 
-		return values.isEmpty();
+		return size == 0;
 	}
 
 	@Override
-	public NbtValue put(String key, NbtValue value) {
+	public boolean isStructuralHashCached() {
 
-		set(key, value);
-		return value;
+		return structuralHashed;
 	}
 
 	@Override
-	public void putAll(Map<? extends String, ? extends NbtValue> m) {
+	public NbtValue put(String key, NbtValue value) {
 
-		values.putAll(m);
+		if(key == null) {
+			throw new NullPointerException("Tag names must not be null");
+		}
+		checkModifiable();
+		int position = indexOf(key);
+		if(position >= 0) {
+			NbtValue previous = values[position];
+			values[position] = value;
+			return previous;
+		}
+		if(size == keys.length) {
+			int capacity = Math.max(4, size * 2);
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		keys[size] = key;
+		values[size] = value;
+		++size;
+		if(index != null) {
+			if(size * 2 > index.length) {
+				buildIndex();
+			} else {
+				insertIndex(size - 1);
+			}
+		} else if(size > INDEX_THRESHOLD) {
+			buildIndex();
+		}
+		return null;
 	}
 
 	@Override
 	public NbtValue remove(Object key) {
 
-		return values.remove(key);
+		int position = indexOf(key);
+		if(position < 0) {
+			return null;
+		}
+		NbtValue value = values[position];
+		removeAt(position);
+		return value;
+	}
+
+	public void set(String name, NbtValue value) {
+
+		put(name, value);
+	}
+
+	public void setCompound(String name, NbtCompound compound) {
+
+		put(name, compound);
+	}
+
+	public void setName(String name) {
+
+		checkModifiable();
+		this.name = name;
+	}
+
+	public void setString(String name, String value) {
+
+		put(name, new NbtStringImpl(name, value));
 	}
 
 	@Override
 	public int size() {
 
-		return values.size();
+		return size;
 	}
 
 	@Override
-	public Collection<NbtValue> values() {
+	public long structuralHash() {
+
+		if(!frozen) {
+			return NbtStructure.compute(this);
+		}
+		if(!structuralHashed) {
+			structuralHash = NbtStructure.compute(this);
+			structuralHashed = true;
+		}
+		return structuralHash;
+	}
+
+	/**
+	 * Makes the compound unmodifiable. Every later attempt to modify it throws {@code
+	 * UnsupportedOperationException}.
+	 */
+	void freeze() {
 
-		return values.values();
+		frozen = true;
 	}
 
-	@Override
-	public NbtValue get(Object key) {
+	String keyAt(int position) {
 
-		return values.get(key);
+		return keys[position];
 	}
 
-	public void set(String name, NbtValue value) {
+	NbtValue valueAt(int position) {
 
-		values.put(name, value);
+		return values[position];
 	}
 
-	@Override
-	public NbtCompound getCompound(String name) {
+	private static int hash(Object key) {
 
-		return (NbtCompound)values.get(name);
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
 	}
 
-	public void setCompound(String name, NbtCompound compound) {
+	/**
+	 * Rebuilds the open-addressing table for the current entries, sized to keep it at most half full.
+	 */
+	private void buildIndex() {
 
-		values.put(name, compound);
+		index = new int[Integer.highestOneBit(Math.max(size, 1) * 2) * 2];
+		for(int i = 0; i < size; ++i) {
+			insertIndex(i);
+		}
 	}
 
-	@Override
-	public float getFloat(String name) {
+	private void checkModifiable() {
 
-		return ((NbtNumber)values.get(name)).floatValue();
+		if(frozen) {
+			throw new UnsupportedOperationException("Compound <" + name + "> is shared and cannot be "
+					+ "modified");
+		}
 	}
 
-	@Override
-	public String getString(String name) {
+	private int indexOf(Object key) {
+
+		if(key == null) {
+			return -1;
+		}
+		if(index == null) {
+			for(int i = 0; i < size; ++i) {
+				if(keys[i] == key) {
+					return i;
+				}
+			}
+			for(int i = 0; i < size; ++i) {
+				if(key.equals(keys[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+		int mask = index.length - 1;
+		int slot = hash(key) & mask;
+		int entry;
+		while((entry = index[slot]) != 0) {
+			String candidate = keys[entry - 1];
+			if((candidate == key) || key.equals(candidate)) {
+				return entry - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	private void insertIndex(int position) {
 
-		return ((NbtString)values.get(name)).getString();
+		int mask = index.length - 1;
+		int slot = hash(keys[position]) & mask;
+		while(index[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		index[slot] = position + 1;
 	}
 
-	public void setString(String name, String value) {
+	private void removeAt(int position) {
+
+		checkModifiable();
+		int moved = size - position - 1;
+		System.arraycopy(keys, position + 1, keys, position, moved);
+		System.arraycopy(values, position + 1, values, position, moved);
+		--size;
+		keys[size] = null;
+		values[size] = null;
+		if(size <= INDEX_THRESHOLD) {
+			index = null;
+		} else if(index != null) {
+			buildIndex();
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Entry<String, NbtValue>> {
+
+		private int last = -1;
+		private int next;
+
+		@Override
+		public boolean hasNext() {
+
+			return next < size;
+		}
+
+		@Override
+		public Entry<String, NbtValue> next() {
+
+			if(next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return new EntryImpl(last);
+		}
+
+		@Override
+		public void remove() {
+
+			if(last < 0) {
+				throw new IllegalStateException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+		}
+	}
+
+	/**
+	 * Entry that writes values set on it through to the compound, while the entry remains at the same
+	 * position.
+	 */
+	private final class EntryImpl extends AbstractMap.SimpleEntry<String, NbtValue> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int position;
+
+		EntryImpl(int position) {
+
+			super(keys[position], values[position]);
+			this.position = position;
+		}
+
+		@Override
+		public NbtValue setValue(NbtValue value) {
+
+			checkModifiable();
+			values[position] = value;
+			return super.setValue(value);
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, NbtValue>> {
+
+		@Override
+		public void clear() {
+
+			NbtCompoundImpl.this.clear();
+		}
+
+		@Override
+		public Iterator<Entry<String, NbtValue>> iterator() {
+
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
 
-		values.put(name, new NbtStringImpl(name, value));
+			return size;
+		}
 	}
 }
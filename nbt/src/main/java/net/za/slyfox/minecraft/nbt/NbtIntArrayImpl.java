@@ -13,6 +13,8 @@
  */
 package net.za.slyfox.minecraft.nbt;
 
+import java.nio.IntBuffer;
+
 class NbtIntArrayImpl extends NbtValueImpl implements NbtIntArray {
 
 	private final int[] array;
@@ -23,6 +25,12 @@ class NbtIntArrayImpl extends NbtValueImpl implements NbtIntArray {
 		this.array = array;
 	}
 
+	@Override
+	public IntBuffer asIntBuffer() {
+
+		return IntBuffer.wrap(array).asReadOnlyBuffer();
+	}
+
 	@Override
 	public int[] getArray() {
 
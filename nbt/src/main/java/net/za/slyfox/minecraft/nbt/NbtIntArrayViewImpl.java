@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * {@link NbtIntArray} implementation that is a read-only view over the part of a buffer holding the
+ * big-endian contents of the array, as read by a reader configured for {@link NbtReader#ARRAY_VIEWS
+ * array views}, or over an array of its own, for arrays that are shared through a {@link
+ * CanonicalTable}. The contents are only copied when {@link #getArray()} is called.
+ */
+final class NbtIntArrayViewImpl extends NbtValueImpl implements NbtIntArray {
+
+	/** Whether the view is over an array of its own, rather than part of a source buffer. */
+	private final boolean owned;
+	private final IntBuffer view;
+
+	private NbtIntArrayViewImpl(String name, IntBuffer view, boolean owned) {
+
+		super(name);
+		this.owned = owned;
+		this.view = view;
+	}
+
+	@Override
+	public IntBuffer asIntBuffer() {
+
+		return view.duplicate();
+	}
+
+	@Override
+	public int[] getArray() {
+
+		int[] array = new int[view.remaining()];
+		view.duplicate().get(array);
+		return array;
+	}
+
+	/**
+	 * Returns a view with the same contents that does not keep a source buffer reachable: this view
+	 * if it is over an array of its own, and otherwise a view over a copy of its contents.
+	 */
+	NbtIntArrayViewImpl detach() {
+
+		return owned ? this : wrap(getName(), getArray());
+	}
+
+	/**
+	 * Creates a view over {@code length} integers of the source buffer, starting at the absolute
+	 * offset {@code offset}.
+	 *
+	 * @throws NbtException if the array extends past the limit of the buffer
+	 */
+	static NbtIntArrayViewImpl slice(String name, ByteBuffer source, int offset, int length) {
+
+		if((long)offset + 4L * length > source.limit()) {
+			throw new NbtException("Unexpected end of input");
+		}
+		ByteBuffer view = source.duplicate();
+		view.limit(offset + 4 * length).position(offset);
+		return new NbtIntArrayViewImpl(name, view.slice().asIntBuffer().asReadOnlyBuffer(), false);
+	}
+
+	/**
+	 * Creates a view over the given array, which must not be modified afterwards.
+	 */
+	static NbtIntArrayViewImpl wrap(String name, int[] array) {
+
+		return new NbtIntArrayViewImpl(name, IntBuffer.wrap(array).asReadOnlyBuffer(), true);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+final class NbtIntImpl extends NbtValueImpl implements NbtInt {
+
+	private final int value;
+
+	NbtIntImpl(int value) {
+
+		this(null, value);
+	}
+
+	NbtIntImpl(String name, int value) {
+
+		super(name);
+		this.value = value;
+	}
+
+	@Override
+	public byte byteValue() {
+
+		return (byte)value;
+	}
+
+	@Override
+	public double doubleValue() {
+
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+		return (obj instanceof NbtInt) && (value == ((NbtInt)obj).getInt());
+	}
+
+	@Override
+	public float floatValue() {
+
+		return value;
+	}
+
+	@Override
+	public int getInt() {
+
+		return value;
+	}
+
+	@Override
+	public Number getNumber() {
+
+		return Integer.valueOf(value);
+	}
+
+	@Override
+	public int hashCode() {
+
+		return value;
+	}
+
+	@Override
+	public int intValue() {
+
+		return value;
+	}
+
+	@Override
+	public long longValue() {
+
+		return value;
+	}
+
+	@Override
+	public short shortValue() {
+
+		return (short)value;
+	}
+
+	@Override
+	public String toString() {
+
+		return "TAG_Int(\'" + getName() + "\'): " + value;
+	}
+}
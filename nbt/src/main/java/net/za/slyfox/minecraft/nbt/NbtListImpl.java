@@ -15,15 +15,37 @@ package net.za.slyfox.minecraft.nbt;
 
 import java.util.ArrayList;
 
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
 class NbtListImpl<T extends NbtValue> extends ArrayList<T> implements NbtList<T> {
 
+	private final NbtTagType elementType;
 	private final String name;
 
 	NbtListImpl(String name) {
 
+		this(name, null);
+	}
+
+	/**
+	 * @param elementType the declared element type, or {@code null} to derive it from the first
+	 *        element
+	 */
+	NbtListImpl(String name, NbtTagType elementType) {
+
+		this.elementType = elementType;
 		this.name = name;
 	}
 
+	@Override
+	public NbtTagType getElementType() {
+
+		if(elementType != null) {
+			return elementType;
+		}
+		return isEmpty() ? NbtTagType.END : NbtValues.tagTypeOf(get(0));
+	}
+
 	@Override
 	public String getName() {
 
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+final class NbtLongImpl extends NbtValueImpl implements NbtLong {
+
+	private final long value;
+
+	NbtLongImpl(long value) {
+
+		this(null, value);
+	}
+
+	NbtLongImpl(String name, long value) {
+
+		super(name);
+		this.value = value;
+	}
+
+	@Override
+	public byte byteValue() {
+
+		return (byte)value;
+	}
+
+	@Override
+	public double doubleValue() {
+
+		return value;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+		return (obj instanceof NbtLong) && (value == ((NbtLong)obj).getLong());
+	}
+
+	@Override
+	public float floatValue() {
+
+		return value;
+	}
+
+	@Override
+	public long getLong() {
+
+		return value;
+	}
+
+	@Override
+	public Number getNumber() {
+
+		return Long.valueOf(value);
+	}
+
+	@Override
+	public int hashCode() {
+
+		return (int)(value ^ (value >>> 32));
+	}
+
+	@Override
+	public int intValue() {
+
+		return (int)value;
+	}
+
+	@Override
+	public long longValue() {
+
+		return value;
+	}
+
+	@Override
+	public short shortValue() {
+
+		return (short)value;
+	}
+
+	@Override
+	public String toString() {
+
+		return "TAG_Long(\'" + getName() + "\'): " + value;
+	}
+}
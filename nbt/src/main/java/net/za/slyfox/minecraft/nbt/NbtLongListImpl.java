@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.Arrays;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+final class NbtLongListImpl extends AbstractPrimitiveNbtList<NbtLong> implements NbtLongList {
+
+	private long[] values;
+
+	NbtLongListImpl(String name) {
+
+		this(name, new long[0]);
+	}
+
+	/**
+	 * Creates a list whose elements are the given array, which is not copied.
+	 */
+	NbtLongListImpl(String name, long[] values) {
+
+		super(name, values.length);
+		this.values = values;
+	}
+
+	@Override
+	public NbtLong get(int index) {
+
+		checkIndex(index);
+		return new NbtLongImpl(values[index]);
+	}
+
+	@Override
+	public NbtTagType getElementType() {
+
+		return NbtTagType.LONG;
+	}
+
+	@Override
+	public long getLong(int index) {
+
+		checkIndex(index);
+		return values[index];
+	}
+
+	@Override
+	public long setLong(int index, long value) {
+
+		checkIndex(index);
+		checkModifiable();
+		long previous = values[index];
+		values[index] = value;
+		return previous;
+	}
+
+	@Override
+	Object array() {
+
+		return values;
+	}
+
+	@Override
+	int capacity() {
+
+		return values.length;
+	}
+
+	@Override
+	void grow(int capacity) {
+
+		values = Arrays.copyOf(values, capacity);
+	}
+
+	@Override
+	void store(int index, NbtLong element) {
+
+		values[index] = element.getLong();
+	}
+}
@@ -28,6 +28,18 @@ public class NbtNumberImpl extends NbtValueImpl implements NbtNumber {
 		this.value = value;
 	}
 
+	@Override
+	public byte byteValue() {
+
+		return value.byteValue();
+	}
+
+	@Override
+	public double doubleValue() {
+
+		return value.doubleValue();
+	}
+
 	@Override
 	public float floatValue() {
 
@@ -39,4 +51,22 @@ public class NbtNumberImpl extends NbtValueImpl implements NbtNumber {
 
 		return value;
 	}
+
+	@Override
+	public int intValue() {
+
+		return value.intValue();
+	}
+
+	@Override
+	public long longValue() {
+
+		return value.longValue();
+	}
+
+	@Override
+	public short shortValue() {
+
+		return value.shortValue();
+	}
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.stream.Configuration;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserFactory;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserFactoryImpl;
+
+/**
+ * {@link NbtReaderFactory} implementation that creates readers over parsers from a shared, tuned
+ * {@link NbtParserFactory}. All parser configuration keys are honoured, except that bulk array mode
+ * is always enabled, as the reader requires it. Unless configured otherwise, input streams are
+ * buffered with a buffer of {@value #DEFAULT_BUFFER_SIZE} bytes. The {@link NbtParser#MAX_DEPTH
+ * maximum depth} also bounds the frame stack of the readers. When {@link
+ * NbtReader#LAZY_COMPOUNDS lazy compounds} are enabled, the readers return lazy compounds. When
+ * {@link NbtReader#ARRAY_VIEWS array views} are enabled, readers over buffers return arrays as views
+ * over the buffer.
+ */
+public class NbtReaderFactoryImpl implements NbtReaderFactory {
+
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final boolean arrayViews;
+	private final int canonicalCacheSize;
+	private final Map<String, ?> configInUse;
+	private final boolean lazyCompounds;
+	private final int maxDepth;
+	private final NbtParserFactory parserFactory;
+
+	public NbtReaderFactoryImpl(Map<String, ?> configuration) {
+
+		Map<String, Object> parserConfiguration = new HashMap<>();
+		parserConfiguration.put(NbtParser.BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+		if(configuration != null) {
+			parserConfiguration.putAll(configuration);
+		}
+		parserConfiguration.put(NbtParser.BULK_ARRAYS, true);
+		parserFactory = new NbtParserFactoryImpl(parserConfiguration);
+
+		arrayViews = Configuration.getBoolean(configuration, NbtReader.ARRAY_VIEWS, false);
+		lazyCompounds = Configuration.getBoolean(configuration, NbtReader.LAZY_COMPOUNDS, false);
+		canonicalCacheSize = Configuration.getInt(configuration, NbtReader.CANONICAL_CACHE_SIZE, 0);
+		maxDepth = (Integer)parserFactory.getConfigInUse().get(NbtParser.MAX_DEPTH);
+		Map<String, Object> config = new HashMap<>(parserFactory.getConfigInUse());
+		config.put(NbtReader.ARRAY_VIEWS, arrayViews);
+		config.put(NbtReader.CANONICAL_CACHE_SIZE, canonicalCacheSize);
+		config.put(NbtReader.LAZY_COMPOUNDS, lazyCompounds);
+		configInUse = Collections.unmodifiableMap(config);
+	}
+
+	@Override
+	public NbtReader createReader(InputStream in) {
+
+		if(lazyCompounds) {
+			return createReader(ByteBuffer.wrap(readFully(in)));
+		}
+		return new NbtReaderImpl(parserFactory.createParser(in), maxDepth,
+				canonicalCacheSize);
+	}
+
+	@Override
+	public NbtReader createReader(ByteBuffer buffer) {
+
+		if(lazyCompounds) {
+			return new LazyNbtReaderImpl(buffer, configInUse);
+		}
+		return new NbtReaderImpl(parserFactory.createParser(buffer), maxDepth,
+				canonicalCacheSize, arrayViews ? buffer : null);
+	}
+
+	@Override
+	public Map<String, ?> getConfigInUse() {
+
+		return configInUse;
+	}
+
+	static byte[] readFully(InputStream in) {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] chunk = new byte[DEFAULT_BUFFER_SIZE];
+		try {
+			int count;
+			while((count = in.read(chunk)) != -1) {
+				outputStream.write(chunk, 0, count);
+			}
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		}
+		return outputStream.toByteArray();
+	}
+}
@@ -15,23 +15,88 @@ package net.za.slyfox.minecraft.nbt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.za.slyfox.minecraft.nbt.stream.ByteBufferNbtParserImpl;
 import net.za.slyfox.minecraft.nbt.stream.NbtParser;
 import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
 import net.za.slyfox.minecraft.nbt.stream.NbtParserImpl;
 import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
 
+/**
+ * {@link NbtReader} implementation that builds a tree of values from the events of an {@link
+ * NbtParser}. Open compounds and lists are kept on an explicit frame stack instead of the call
+ * stack, so the depth of the input is bounded only by the configured maximum, and deeply nested
+ * input fails fast with an {@link NbtException} rather than a {@code StackOverflowError}.
+ *
+ * <p>When a {@link NbtReader#CANONICAL_CACHE_SIZE canonical value table} is configured, the content
+ * hash of each value is computed bottom-up as the value is completed, and the value is replaced by
+ * an identical one from the table where possible. Compounds, lists and arrays other than the root
+ * are then frozen, as they may be shared.</p>
+ *
+ * <p>When the reader is given the buffer that its parser reads from, byte and integer arrays are
+ * returned as {@link NbtReader#ARRAY_VIEWS views} over that buffer, and their contents are skipped by
+ * the parser rather than read.</p>
+ */
 public class NbtReaderImpl implements NbtReader {
 
+	/**
+	 * Default maximum nesting depth, matching the default of the parser.
+	 */
+	static final int DEFAULT_MAX_DEPTH = 512;
+
+	private final boolean arrayViews;
+	/** Table of canonical values shared by the documents read, or {@code null} when disabled. */
+	private final CanonicalTable canonicalValues;
+	private final Frames frames;
 	private final Logger log = LoggerFactory.getLogger(NbtReaderImpl.class);
-	private NbtParser parser;
+	private final NbtParser parser;
+	/** Buffer that arrays are viewed over, or {@code null} when their contents are copied. */
+	private ByteBuffer source;
 
 	public NbtReaderImpl(InputStream inputStream) {
 
-		parser = new NbtParserImpl(inputStream);
+		this(new NbtParserImpl(inputStream, Collections.singletonMap(NbtParser.BULK_ARRAYS, true)));
+	}
+
+	/**
+	 * Creates a reader over the given parser, which must be configured for {@link
+	 * NbtParser#BULK_ARRAYS bulk arrays}.
+	 */
+	NbtReaderImpl(NbtParser parser) {
+
+		this(parser, DEFAULT_MAX_DEPTH, 0);
+	}
+
+	/**
+	 * Creates a reader over the given parser, which must be configured for {@link
+	 * NbtParser#BULK_ARRAYS bulk arrays}, failing when compounds and lists are nested deeper than
+	 * {@code maxDepth}. When {@code canonicalCacheSize} is greater than zero, identical values are
+	 * shared through a table of that many entries.
+	 */
+	NbtReaderImpl(NbtParser parser, int maxDepth, int canonicalCacheSize) {
+
+		this(parser, maxDepth, canonicalCacheSize, null);
+	}
+
+	/**
+	 * Creates a reader in the same way as {@link #NbtReaderImpl(NbtParser, int, int)}. When {@code
+	 * source} is not {@code null}, it must be the buffer that the parser reads from, and arrays are
+	 * returned as views over it; this also applies to buffers that the reader is reset to.
+	 */
+	NbtReaderImpl(NbtParser parser, int maxDepth, int canonicalCacheSize, ByteBuffer source) {
+
+		this.arrayViews = (source != null);
+		this.canonicalValues = (canonicalCacheSize > 0) ? new CanonicalTable(canonicalCacheSize)
+				: null;
+		this.frames = new Frames(maxDepth);
+		this.parser = parser;
+		this.source = (source != null) ? source.duplicate() : null;
 	}
 
 	@Override
@@ -43,6 +108,12 @@ public class NbtReaderImpl implements NbtReader {
 	@Override
 	public NbtCompound read() {
 
+		return read(null);
+	}
+
+	@Override
+	public NbtCompound read(NbtProjection projection) {
+
 		Event event = parser.next();
 		if(event != Event.TAG_ID) {
 			throw new NbtException("Expected TAG_ID");
@@ -55,106 +126,475 @@ public class NbtReaderImpl implements NbtReader {
 			throw new NbtException("Expected TAG_NAME");
 		}
 		NbtCompoundImpl compound = new NbtCompoundImpl(parser.getString());
-		readCompound(compound);
+		frames.size = 0;
+		if(projection != null) {
+			frames.push(compound, null, projection.getRoot(), 0);
+			build(null);
+		} else {
+			frames.push(compound, null, null, 0);
+			build(canonicalValues);
+		}
 		return compound;
 	}
 
-	private void readCompound(NbtCompoundImpl compound) {
+	@Override
+	public void reset(InputStream inputStream) {
 
-		log.debug("Reading compound <{}> children", compound.getName());
-		final int depth = parser.getLocation().getDepth();
-		while(parser.getLocation().getDepth() >= depth) {
-			parser.next();
-			NbtTagType tagType = parser.getTagType();
-			if(tagType == NbtTagType.END) {
-				break;
-			}
-			parser.next();
-			String name = parser.getString();
-			if(tagType == NbtTagType.COMPOUND) {
-				NbtCompoundImpl childCompound = new NbtCompoundImpl(name);
-				compound.setCompound(name, childCompound);
-				readCompound(childCompound);
-			} else if(tagType == NbtTagType.LIST) {
-				if(parser.next() != Event.LIST_TAG_ID) {
-					throw new NbtException("Expected LIST_TAG_ID");
-				}
-				NbtTagType elementTagType = parser.getTagType();
-				if(parser.next() != Event.ARRAY_SIZE) {
-					throw new NbtException("Expected ARRAY_SIZE");
+		parser.reset(inputStream);
+		source = null;
+	}
+
+	@Override
+	public void reset(ByteBuffer buffer) {
+
+		parser.reset(buffer);
+		source = arrayViews ? buffer.duplicate() : null;
+	}
+
+	/**
+	 * Reads the values of the open containers on the frame stack until it is empty. Each iteration
+	 * reads one child of the innermost container; children that are themselves containers are
+	 * attached to their parent and pushed, so that their own children are read next.
+	 *
+	 * @param table the table to canonicalise values through, or {@code null}
+	 */
+	private void build(CanonicalTable table) {
+
+		final Frames frames = this.frames;
+		while(frames.size > 0) {
+			final int top = frames.size - 1;
+			final NbtProjection.Node node = frames.node[top];
+			final NbtTagType elementType = frames.elementType[top];
+			if(elementType == null) {
+				NbtCompoundImpl compound = (NbtCompoundImpl)frames.container[top];
+				parser.next();
+				NbtTagType tagType = parser.getTagType();
+				if(tagType == NbtTagType.END) {
+					endContainer(table);
+					continue;
 				}
-				int size = parser.getNumber().intValue();
-				NbtListImpl<NbtValue> list = new NbtListImpl<>(name);
-				log.debug("Reading {} {} elements for list <{}>", size, elementTagType, list.getName());
-				for(int i = 0; i < size; ++i) {
-					switch(elementTagType) {
-						case BYTE:
-						case DOUBLE:
-						case FLOAT:
-						case INT:
-						case LONG:
-						case SHORT:
-							parser.next();
-							list.add(new NbtNumberImpl(parser.getNumber()));
-							break;
-
-						case INT_ARRAY:
-							NbtIntArrayImpl array = readIntArray(null);
-							list.add(array);
-							break;
-
-						case COMPOUND:
-							NbtCompoundImpl childCompound = new NbtCompoundImpl();
-							readCompound(childCompound);
-							list.add(childCompound);
-							break;
-
-						default:
-							throw new IllegalStateException("Fucked: " + elementTagType);
+				parser.next();
+				String name = parser.getString();
+				NbtProjection.Node child = null;
+				if(node != null) {
+					child = node.getChild(name);
+					if(child == null) {
+						parser.skipValue();
+						continue;
+					} else if(child.isIncluded()) {
+						child = null;
+					} else if((tagType != NbtTagType.COMPOUND) && ((tagType != NbtTagType.LIST)
+							|| (child.getElements() == null))) {
+						parser.skipValue();
+						continue;
 					}
 				}
-				compound.set(name, list);
-			} else if(tagType == NbtTagType.BYTE_ARRAY) {
-				if(parser.next() != Event.ARRAY_SIZE) {
-					throw new NbtException("Expected ARRAY_SIZE");
-				}
-				int size = parser.getNumber().intValue();
-				byte[] array = new byte[size];
-				log.debug("Reading {} elements for byte array <{}>", size, name);
-				for(int i = 0; i < size; ++i) {
-					parser.next();
-					array[i] = parser.getNumber().byteValue();
+				if(tagType == NbtTagType.LIST) {
+					NbtProjection.Node elements = (child != null) ? child.getElements() : null;
+					if((elements != null) && elements.isIncluded()) {
+						elements = null;
+					}
+					NbtValue list = startList(name, elements);
+					if(list != null) {
+						compound.set(name, (table != null) ? canonicalize(table, list, top) : list);
+					}
+				} else {
+					NbtValue value = readValue(name, tagType, child);
+					compound.set(name, (table != null) ? canonicalize(table, value, top) : value);
 				}
-				compound.set(name, new NbtByteArrayImpl(name, array));
-			} else if(tagType == NbtTagType.INT_ARRAY) {
-				NbtIntArrayImpl array = readIntArray(name);
-				compound.set(name, array);
+			} else if(frames.remaining[top] == 0) {
+				endContainer(table);
 			} else {
-				Event event = parser.next();
-				if(event == Event.VALUE_STRING) {
-					log.trace("Reading string value for <{}>", name);
-					compound.setString(name, parser.getString());
-				} else if(event == Event.VALUE_NUMBER) {
-					log.debug("Reading numeric value for <{}>", name);
-					compound.set(name, new NbtNumberImpl(name, parser.getNumber()));
+				--frames.remaining[top];
+				if(frames.container[top] == null) {
+					discardList();
+					continue;
+				}
+				NbtValue value;
+				if(elementType != NbtTagType.LIST) {
+					value = readValue(null, elementType, node);
+				} else if(node == null) {
+					value = startList(null, null);
+				} else if(node.getElements() == null) {
+					discardList();
+					continue;
+				} else {
+					NbtProjection.Node elements = node.getElements();
+					value = startList(null, elements.isIncluded() ? null : elements);
+					if(value == null) {
+						continue;
+					}
 				}
+				@SuppressWarnings("unchecked")
+				NbtListImpl<NbtValue> list = (NbtListImpl<NbtValue>)frames.container[top];
+				list.add((table != null) ? canonicalize(table, value, top) : value);
 			}
 		}
 	}
 
-	private NbtIntArrayImpl readIntArray(String name) {
+	/**
+	 * Canonicalises a value that has just been read as a child of the container at {@code parent},
+	 * adding its hash to that of the container. A compound or list whose frame was pushed is
+	 * returned as is, as it is only canonicalised once its children have been read.
+	 */
+	private NbtValue canonicalize(CanonicalTable table, NbtValue value, int parent) {
+
+		if(frames.size > parent + 1) {
+			return value;
+		}
+		value = freeze(value);
+		int hash = CanonicalTable.hashOf(value);
+		frames.hash[parent] = 31 * frames.hash[parent] + hash;
+		return table.canonicalize(value, hash);
+	}
+
+	/**
+	 * Creates a value for the number that the parser is positioned at, holding it in primitive form.
+	 */
+	private NbtValue createNumber(String name, NbtTagType type) {
+
+		switch(type) {
+			case BYTE: return new NbtByteImpl(name, parser.getByte());
+			case DOUBLE: return new NbtDoubleImpl(name, parser.getDouble());
+			case FLOAT: return new NbtFloatImpl(name, parser.getFloat());
+			case INT: return new NbtIntImpl(name, parser.getInt());
+			case LONG: return new NbtLongImpl(name, parser.getLong());
+			case SHORT: return new NbtShortImpl(name, parser.getShort());
+
+			default:
+				throw new NbtException("Unsupported number type " + type);
+		}
+	}
+
+	/**
+	 * Consumes the events for the elements of a list whose elements cannot contain any tag selected
+	 * by a projection. Compound elements are skipped by the parser without producing events, and
+	 * nested lists are discarded through a frame without a container that is pushed for them.
+	 */
+	private void discardElements(NbtTagType elementTagType, int size) {
+
+		if(elementTagType == NbtTagType.LIST) {
+			frames.push(null, elementTagType, null, size);
+			return;
+		}
+		for(int i = 0; i < size; ++i) {
+			switch(elementTagType) {
+				case BYTE_ARRAY:
+				case INT_ARRAY:
+					parser.next();
+					parser.next();
+					break;
+
+				case COMPOUND:
+					parser.skipChildren();
+					break;
+
+				case BYTE:
+				case DOUBLE:
+				case FLOAT:
+				case INT:
+				case LONG:
+				case SHORT:
+				case STRING:
+					parser.next();
+					break;
+
+				default:
+					throw new NbtException("Unsupported list element type " + elementTagType);
+			}
+		}
+	}
+
+	/**
+	 * Consumes the events for a list element of a list, none of whose contents are selected by a
+	 * projection.
+	 */
+	private void discardList() {
+
+		if(parser.next() != Event.LIST_TAG_ID) {
+			throw new NbtException("Expected LIST_TAG_ID");
+		}
+		NbtTagType elementTagType = parser.getTagType();
+		if(parser.next() != Event.ARRAY_SIZE) {
+			throw new NbtException("Expected ARRAY_SIZE");
+		}
+		discardElements(elementTagType, parser.getInt());
+	}
+
+	/**
+	 * Pops the frame of a container whose children have all been read. When canonicalising, the
+	 * container is frozen and replaced in its parent by its canonical instance.
+	 */
+	private void endContainer(CanonicalTable table) {
+
+		final Frames frames = this.frames;
+		final int top = frames.size - 1;
+		NbtValue container = frames.container[top];
+		int childrenHash = frames.hash[top];
+		frames.pop();
+		if((table == null) || (top == 0) || (container == null)) {
+			return;
+		}
+		NbtValue value = freeze(container);
+		int hash = CanonicalTable.containerHash(value, childrenHash);
+		value = table.canonicalize(value, hash);
+		final int parent = top - 1;
+		frames.hash[parent] = 31 * frames.hash[parent] + hash;
+		if(value == container) {
+			return;
+		}
+		if(frames.elementType[parent] == null) {
+			((NbtCompoundImpl)frames.container[parent]).set(value.getName(), value);
+		} else {
+			@SuppressWarnings("unchecked")
+			NbtListImpl<NbtValue> list = (NbtListImpl<NbtValue>)frames.container[parent];
+			list.set(list.size() - 1, value);
+		}
+	}
+
+	/**
+	 * Makes a value that may be shared unmodifiable, returning a frozen copy of lists that cannot be
+	 * frozen in place, and a read-only view of arrays.
+	 */
+	private static NbtValue freeze(NbtValue value) {
+
+		if(value instanceof NbtByteArrayImpl) {
+			return NbtByteArrayViewImpl.wrap(value.getName(), ((NbtByteArrayImpl)value).getArray());
+		} else if(value instanceof NbtIntArrayImpl) {
+			return NbtIntArrayViewImpl.wrap(value.getName(), ((NbtIntArrayImpl)value).getArray());
+		} else if(value instanceof NbtCompoundImpl) {
+			((NbtCompoundImpl)value).freeze();
+		} else if(value instanceof NbtListImpl) {
+			NbtListImpl<?> list = (NbtListImpl<?>)value;
+			return new ImmutableNbtListImpl<>(list.getName(), list.getElementType(), list);
+		} else if(value instanceof AbstractPrimitiveNbtList) {
+			((AbstractPrimitiveNbtList<?>)value).freeze();
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a list from its payload, which starts at the position of the given buffer. The parser
+	 * of the reader must be a {@link ByteBufferNbtParserImpl}, and is reset to the payload; when
+	 * the reader returns array views, they are views over the given buffer. When {@code elements}
+	 * is not {@code null}, only the parts of compound and list elements selected by that
+	 * projection node are read, and lists of any other element type are discarded.
+	 *
+	 * @return the list, or {@code null} if it was discarded
+	 */
+	NbtList<? extends NbtValue> readList(ByteBuffer payload, String name,
+			NbtProjection.Node elements) {
+
+		((ByteBufferNbtParserImpl)parser).reset(payload, NbtTagType.LIST);
+		source = arrayViews ? payload.duplicate() : null;
+		frames.size = 0;
+		NbtList<? extends NbtValue> list = startList(name, elements);
+		build(null);
+		return list;
+	}
+
+	private NbtByteArray readByteArray(String name) {
 
 		Event event = parser.next();
 		if(event != Event.ARRAY_SIZE) {
 			throw new NbtException("Expected ARRAY_SIZE, was " + event);
 		}
-		int size = parser.getNumber().intValue();
-		int[] array = new int[size];
+		int size = parser.getInt();
+		log.debug("Reading {} elements for byte array <{}>", size, name);
+		event = parser.next();
+		if(event != Event.VALUE_ARRAY) {
+			throw new NbtException("Expected VALUE_ARRAY, was " + event);
+		}
+		if(source != null) {
+			return NbtByteArrayViewImpl.slice(name, source, sourceOffset(), size);
+		}
+		byte[] array = new byte[size];
+		parser.readByteArray(array);
+		return new NbtByteArrayImpl(name, array);
+	}
+
+	private NbtIntArray readIntArray(String name) {
+
+		Event event = parser.next();
+		if(event != Event.ARRAY_SIZE) {
+			throw new NbtException("Expected ARRAY_SIZE, was " + event);
+		}
+		int size = parser.getInt();
 		log.debug("Reading {} elements for integer array <{}>", size, name);
-		for(int i = 0; i < size; ++i) {
-			parser.next();
-			array[i] = parser.getNumber().intValue();
+		event = parser.next();
+		if(event != Event.VALUE_ARRAY) {
+			throw new NbtException("Expected VALUE_ARRAY, was " + event);
+		}
+		if(source != null) {
+			return NbtIntArrayViewImpl.slice(name, source, sourceOffset(), size);
 		}
+		int[] array = new int[size];
+		parser.readIntArray(array);
 		return new NbtIntArrayImpl(name, array);
 	}
+
+	/**
+	 * Reads a value other than a list. A compound is returned empty, with a frame pushed for its
+	 * children.
+	 */
+	private NbtValue readValue(String name, NbtTagType tagType, NbtProjection.Node node) {
+
+		switch(tagType) {
+			case BYTE_ARRAY:
+				return readByteArray(name);
+
+			case COMPOUND:
+				NbtCompoundImpl compound = new NbtCompoundImpl(name);
+				frames.push(compound, null, node, 0);
+				return compound;
+
+			case INT_ARRAY:
+				return readIntArray(name);
+
+			case STRING:
+				if(parser.next() != Event.VALUE_STRING) {
+					throw new NbtException("Expected VALUE_STRING");
+				}
+				return new NbtStringImpl(name, parser.getString());
+
+			default:
+				if(parser.next() != Event.VALUE_NUMBER) {
+					throw new NbtException("Expected VALUE_NUMBER");
+				}
+				return createNumber(name, tagType);
+		}
+	}
+
+	/**
+	 * Returns the absolute offset in the source buffer of the contents of the array that the parser
+	 * is positioned at. The contents are left for the parser to skip.
+	 */
+	private int sourceOffset() {
+
+		return source.position() + (int)parser.getLocation().getStreamOffset();
+	}
+
+	/**
+	 * Reads the header of a list. Lists of fixed-width numbers are read completely into their
+	 * primitive-backed implementations; for other element types, an empty list is returned and a
+	 * frame is pushed for its elements. When {@code elements} is not {@code null}, only the parts of
+	 * compound and list elements selected by that projection node are read, and lists of any other
+	 * element type are discarded.
+	 *
+	 * @return the list, or {@code null} if it was discarded
+	 */
+	private NbtList<? extends NbtValue> startList(String name, NbtProjection.Node elements) {
+
+		if(parser.next() != Event.LIST_TAG_ID) {
+			throw new NbtException("Expected LIST_TAG_ID");
+		}
+		NbtTagType elementTagType = parser.getTagType();
+		if(parser.next() != Event.ARRAY_SIZE) {
+			throw new NbtException("Expected ARRAY_SIZE");
+		}
+		int size = parser.getInt();
+		if((elements != null) && (elementTagType != NbtTagType.COMPOUND)
+				&& (elementTagType != NbtTagType.LIST)) {
+			log.debug("Discarding {} {} elements of list <{}>", size, elementTagType, name);
+			discardElements(elementTagType, size);
+			return null;
+		}
+		log.debug("Reading {} {} elements for list <{}>", size, elementTagType, name);
+		switch(elementTagType) {
+			case DOUBLE:
+				double[] doubles = new double[size];
+				for(int i = 0; i < size; ++i) {
+					parser.next();
+					doubles[i] = parser.getDouble();
+				}
+				return new NbtDoubleListImpl(name, doubles);
+
+			case FLOAT:
+				float[] floats = new float[size];
+				for(int i = 0; i < size; ++i) {
+					parser.next();
+					floats[i] = parser.getFloat();
+				}
+				return new NbtFloatListImpl(name, floats);
+
+			case INT:
+				int[] ints = new int[size];
+				for(int i = 0; i < size; ++i) {
+					parser.next();
+					ints[i] = parser.getInt();
+				}
+				return new NbtIntListImpl(name, ints);
+
+			case LONG:
+				long[] longs = new long[size];
+				for(int i = 0; i < size; ++i) {
+					parser.next();
+					longs[i] = parser.getLong();
+				}
+				return new NbtLongListImpl(name, longs);
+
+			case END:
+				if(size > 0) {
+					throw new NbtException("List of " + size + " END elements");
+				}
+				return new NbtListImpl<>(name, elementTagType);
+
+			default:
+				NbtListImpl<NbtValue> list = new NbtListImpl<>(name, elementTagType);
+				list.ensureCapacity(size);
+				frames.push(list, elementTagType, elements, size);
+				return list;
+		}
+	}
+
+	/**
+	 * Array-backed stack of the compounds and lists whose children are being read. The element type
+	 * is {@code null} for compounds, and the remaining element count is only meaningful for lists. The
+	 * container is {@code null} for a list of lists that is being discarded. The hash accumulates
+	 * the content hashes of the children read so far, when canonicalising.
+	 */
+	private static final class Frames {
+
+		NbtValue[] container = new NbtValue[16];
+		NbtTagType[] elementType = new NbtTagType[16];
+		private final int maxDepth;
+		int[] hash = new int[16];
+		NbtProjection.Node[] node = new NbtProjection.Node[16];
+		int[] remaining = new int[16];
+		int size;
+
+		Frames(int maxDepth) {
+
+			this.maxDepth = maxDepth;
+		}
+
+		void pop() {
+
+			--size;
+			container[size] = null;
+			node[size] = null;
+		}
+
+		void push(NbtValue frameContainer, NbtTagType frameElementType,
+				NbtProjection.Node frameNode, int frameRemaining) {
+
+			if(size == maxDepth) {
+				throw new NbtException("Nesting depth exceeds the maximum of " + maxDepth);
+			}
+			if(size == container.length) {
+				int capacity = size * 2;
+				container = Arrays.copyOf(container, capacity);
+				elementType = Arrays.copyOf(elementType, capacity);
+				hash = Arrays.copyOf(hash, capacity);
+				node = Arrays.copyOf(node, capacity);
+				remaining = Arrays.copyOf(remaining, capacity);
+			}
+			container[size] = frameContainer;
+			elementType[size] = frameElementType;
+			hash[size] = 0;
+			node[size] = frameNode;
+			remaining[size] = frameRemaining;
+			++size;
+		}
+	}
 }
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * {@link NbtWriter} implementation that serialises a tree in two passes: the first computes the
+ * exact size of the serialised data, and the second encodes the tree into a single buffer of that
+ * size, using bulk puts for array payloads. The buffer used by {@link #write} is reused across calls
+ * and only replaced when a larger tree is written.
+ *
+ * <p>The tag type of a value is derived from the interface it implements; for other {@link
+ * NbtNumber} values, from the boxed type of its number. Lists are written with their {@link
+ * NbtList#getElementType() element type}, and a list holding an element of any other type is
+ * rejected with an {@link NbtException}.</p>
+ */
+public class NbtWriterImpl implements NbtWriter {
+
+	private ByteBuffer buffer;
+	private final OutputStream outputStream;
+
+	public NbtWriterImpl(OutputStream outputStream) {
+
+		this.outputStream = outputStream;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		outputStream.close();
+	}
+
+	@Override
+	public int getSerializedSize(NbtCompound compound) {
+
+		long size = 1 + sizeOf(compound.getName()) + payloadSize(NbtTagType.COMPOUND, compound);
+		if(size > Integer.MAX_VALUE) {
+			throw new NbtException("Serialised size " + size + " exceeds the maximum buffer size");
+		}
+		return (int)size;
+	}
+
+	@Override
+	public void write(NbtCompound compound) {
+
+		int size = getSerializedSize(compound);
+		if((buffer == null) || (buffer.capacity() < size)) {
+			buffer = ByteBuffer.allocate(size);
+		}
+		buffer.clear();
+		encode(compound, buffer);
+		try {
+			outputStream.write(buffer.array(), 0, size);
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		}
+	}
+
+	@Override
+	public void writeTo(NbtCompound compound, ByteBuffer buffer) {
+
+		if(buffer.remaining() < getSerializedSize(compound)) {
+			throw new BufferOverflowException();
+		}
+		ByteOrder order = buffer.order();
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		try {
+			encode(compound, buffer);
+		} finally {
+			buffer.order(order);
+		}
+	}
+
+	private static void encode(NbtCompound compound, ByteBuffer buffer) {
+
+		buffer.put(NbtTagType.COMPOUND.id);
+		putString(compound.getName(), buffer);
+		putPayload(NbtTagType.COMPOUND, compound, buffer);
+	}
+
+	/**
+	 * Returns the tag type of the elements of a list, verifying that all elements have that type.
+	 * Lists stored in primitive form cannot hold other types, so their elements are not checked.
+	 */
+	private static NbtTagType elementTypeOf(NbtList<?> list) {
+
+		NbtTagType elementType = list.getElementType();
+		if(list instanceof AbstractPrimitiveNbtList) {
+			return elementType;
+		}
+		for(Object element : list) {
+			if(NbtValues.tagTypeOf((NbtValue)element) != elementType) {
+				throw new NbtException("List contains both " + elementType + " and "
+						+ NbtValues.tagTypeOf((NbtValue)element) + " elements");
+			}
+		}
+		return elementType;
+	}
+
+	/**
+	 * Returns the size of the payload of a number type, or {@code -1} for other types.
+	 */
+	private static int fixedWidth(NbtTagType type) {
+
+		switch(type) {
+			case BYTE: return 1;
+			case SHORT: return 2;
+			case INT: return 4;
+			case LONG: return 8;
+			case FLOAT: return 4;
+			case DOUBLE: return 8;
+
+			default:
+				return -1;
+		}
+	}
+
+	private static long payloadSize(NbtTagType type, NbtValue value) {
+
+		switch(type) {
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+			case FLOAT:
+			case DOUBLE:
+				return fixedWidth(type);
+
+			case STRING: return sizeOf(((NbtString)value).getString());
+			case BYTE_ARRAY: return 4 + ((NbtByteArray)value).asByteBuffer().remaining();
+			case INT_ARRAY: return 4 + 4L * ((NbtIntArray)value).asIntBuffer().remaining();
+
+			case LIST:
+				NbtList<?> list = (NbtList<?>)value;
+				NbtTagType elementType = elementTypeOf(list);
+				int elementWidth = fixedWidth(elementType);
+				if(elementWidth > 0) {
+					return 5 + (long)elementWidth * list.size();
+				}
+				long size = 5;
+				for(Object element : list) {
+					size += payloadSize(elementType, (NbtValue)element);
+				}
+				return size;
+
+			case COMPOUND:
+				size = 1;
+				for(Map.Entry<String, NbtValue> entry : ((NbtCompound)value).entrySet()) {
+					NbtValue child = entry.getValue();
+					size += 1 + sizeOf(entry.getKey()) + payloadSize(NbtValues.tagTypeOf(child), child);
+				}
+				return size;
+
+			default:
+				throw new NbtException("Unsupported tag type " + type);
+		}
+	}
+
+	private static void putPayload(NbtTagType type, NbtValue value, ByteBuffer buffer) {
+
+		switch(type) {
+			case BYTE: buffer.put(((NbtNumber)value).byteValue()); break;
+			case SHORT: buffer.putShort(((NbtNumber)value).shortValue()); break;
+			case INT: buffer.putInt(((NbtNumber)value).intValue()); break;
+			case LONG: buffer.putLong(((NbtNumber)value).longValue()); break;
+			case FLOAT: buffer.putFloat(((NbtNumber)value).floatValue()); break;
+			case DOUBLE: buffer.putDouble(((NbtNumber)value).doubleValue()); break;
+			case STRING: putString(((NbtString)value).getString(), buffer); break;
+
+			case BYTE_ARRAY:
+				ByteBuffer bytes = ((NbtByteArray)value).asByteBuffer();
+				buffer.putInt(bytes.remaining());
+				buffer.put(bytes);
+				break;
+
+			case INT_ARRAY:
+				IntBuffer ints = ((NbtIntArray)value).asIntBuffer();
+				int count = ints.remaining();
+				buffer.putInt(count);
+				buffer.asIntBuffer().put(ints);
+				buffer.position(buffer.position() + count * 4);
+				break;
+
+			case LIST:
+				NbtList<?> list = (NbtList<?>)value;
+				NbtTagType elementType = elementTypeOf(list);
+				buffer.put(elementType.id);
+				buffer.putInt(list.size());
+				putElements(elementType, list, buffer);
+				break;
+
+			case COMPOUND:
+				for(Map.Entry<String, NbtValue> entry : ((NbtCompound)value).entrySet()) {
+					NbtValue child = entry.getValue();
+					NbtTagType childType = NbtValues.tagTypeOf(child);
+					buffer.put(childType.id);
+					putString(entry.getKey(), buffer);
+					putPayload(childType, child, buffer);
+				}
+				buffer.put(NbtTagType.END.id);
+				break;
+
+			default:
+				throw new NbtException("Unsupported tag type " + type);
+		}
+	}
+
+	/**
+	 * Writes the elements of a list. Lists stored in primitive form are written through their typed
+	 * accessors, without creating value objects for their elements.
+	 */
+	private static void putElements(NbtTagType elementType, NbtList<?> list, ByteBuffer buffer) {
+
+		int size = list.size();
+		if(list instanceof NbtDoubleList) {
+			for(int i = 0; i < size; ++i) {
+				buffer.putDouble(((NbtDoubleList)list).getDouble(i));
+			}
+		} else if(list instanceof NbtFloatList) {
+			for(int i = 0; i < size; ++i) {
+				buffer.putFloat(((NbtFloatList)list).getFloat(i));
+			}
+		} else if(list instanceof NbtIntList) {
+			for(int i = 0; i < size; ++i) {
+				buffer.putInt(((NbtIntList)list).getInt(i));
+			}
+		} else if(list instanceof NbtLongList) {
+			for(int i = 0; i < size; ++i) {
+				buffer.putLong(((NbtLongList)list).getLong(i));
+			}
+		} else {
+			for(Object element : list) {
+				putPayload(elementType, (NbtValue)element, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Writes a string in the modified UTF-8 encoding used by NBT, preceded by its encoded length. A
+	 * {@code null} string is written as an empty string.
+	 */
+	private static void putString(String value, ByteBuffer buffer) {
+
+		if(value == null) {
+			buffer.putShort((short)0);
+			return;
+		}
+		int length = value.length();
+		buffer.putShort((short)(sizeOf(value) - 2));
+		for(int i = 0; i < length; ++i) {
+			char c = value.charAt(i);
+			if((c != 0) && (c < 0x80)) {
+				buffer.put((byte)c);
+			} else if(c < 0x800) {
+				buffer.put((byte)(0xC0 | (c >> 6)));
+				buffer.put((byte)(0x80 | (c & 0x3F)));
+			} else {
+				buffer.put((byte)(0xE0 | (c >> 12)));
+				buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+				buffer.put((byte)(0x80 | (c & 0x3F)));
+			}
+		}
+	}
+
+	/**
+	 * Returns the serialised size of a string, including its length prefix.
+	 */
+	private static int sizeOf(String value) {
+
+		if(value == null) {
+			return 2;
+		}
+		int length = value.length();
+		int encodedLength = length;
+		for(int i = 0; i < length; ++i) {
+			char c = value.charAt(i);
+			if((c == 0) || (c >= 0x80)) {
+				encodedLength += (c >= 0x800) ? 2 : 1;
+			}
+		}
+		if(encodedLength > 0xFFFF) {
+			throw new NbtException("Encoded string length " + encodedLength + " exceeds 65535 bytes");
+		}
+		return 2 + encodedLength;
+	}
+}
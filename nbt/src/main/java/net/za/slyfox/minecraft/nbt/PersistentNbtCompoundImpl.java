@@ -0,0 +1,487 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@link PersistentNbtCompound} implementation backed by a hash array mapped trie. Each node of the
+ * trie holds up to 32 slots, selected by five bits of the hash of a key and packed by a bitmap of
+ * the slots in use; a slot holds either an entry or a child node for the next five bits. Deriving a
+ * compound copies only the nodes on the path to the changed slot, and shares all others with the
+ * compound it was derived from. Keys whose hashes are equal share a collision node. Entries are
+ * iterated in the order of the trie rather than in insertion order.
+ *
+ * <p>As the compound is immutable, its {@link NbtStructure structural hash} is cached.</p>
+ */
+final class PersistentNbtCompoundImpl extends AbstractNbtCompound
+		implements NbtStructure.Hashed, PersistentNbtCompound {
+
+	private final String name;
+	/** Root node of the trie, or {@code null} when the compound is empty. */
+	private final Node root;
+	private final int size;
+	/** Structural hash of the compound, valid once {@link #structuralHashed} is set. */
+	private long structuralHash;
+	private volatile boolean structuralHashed;
+
+	private PersistentNbtCompoundImpl(String name, Node root, int size) {
+
+		this.name = name;
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a persistent copy of a compound, as described by {@link
+	 * PersistentNbtFactory#copyOf(NbtCompound)}.
+	 */
+	static PersistentNbtCompound copyOf(NbtCompound compound) {
+
+		if(compound instanceof PersistentNbtCompound) {
+			return (PersistentNbtCompound)compound;
+		}
+		Node root = null;
+		int size = 0;
+		boolean[] added = new boolean[1];
+		for(Map.Entry<String, NbtValue> entry : compound.entrySet()) {
+			String key = entry.getKey();
+			NbtValue value = persist(entry.getValue());
+			if(root == null) {
+				root = Node.create(0, hash(key), key, value);
+				size = 1;
+			} else {
+				added[0] = false;
+				root = root.with(0, hash(key), key, value, added);
+				size += added[0] ? 1 : 0;
+			}
+		}
+		return new PersistentNbtCompoundImpl(compound.getName(), root, size);
+	}
+
+	/**
+	 * Returns an empty persistent compound with the given name.
+	 */
+	static PersistentNbtCompound empty(String name) {
+
+		return new PersistentNbtCompoundImpl(name, null, 0);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+
+		return get(key) != null;
+	}
+
+	@Override
+	public Set<Entry<String, NbtValue>> entrySet() {
+
+		return new EntrySet();
+	}
+
+	@Override
+	public NbtValue get(Object key) {
+
+		if((root == null) || !(key instanceof String)) {
+			return null;
+		}
+		return root.find(0, hash(key), key);
+	}
+
+	@Override
+	public String getName() {
+
+		return name;
+	}
+
+	@Override
+	public boolean isEmpty() {
+
+		return size == 0;
+	}
+
+	@Override
+	public boolean isStructuralHashCached() {
+
+		return structuralHashed;
+	}
+
+	@Override
+	public int size() {
+
+		return size;
+	}
+
+	@Override
+	public long structuralHash() {
+
+		if(!structuralHashed) {
+			structuralHash = NbtStructure.compute(this);
+			structuralHashed = true;
+		}
+		return structuralHash;
+	}
+
+	@Override
+	public PersistentNbtCompound with(String key, NbtValue value) {
+
+		if(key == null) {
+			throw new NullPointerException("Tag names must not be null");
+		}
+		value = persist(value);
+		int h = hash(key);
+		if(root == null) {
+			return new PersistentNbtCompoundImpl(name, Node.create(0, h, key, value), 1);
+		}
+		boolean[] added = new boolean[1];
+		Node newRoot = root.with(0, h, key, value, added);
+		if(newRoot == root) {
+			return this;
+		}
+		return new PersistentNbtCompoundImpl(name, newRoot, added[0] ? size + 1 : size);
+	}
+
+	@Override
+	public PersistentNbtCompound without(String key) {
+
+		if(root == null) {
+			return this;
+		}
+		Node newRoot = root.without(0, hash(key), key);
+		if(newRoot == root) {
+			return this;
+		}
+		return new PersistentNbtCompoundImpl(name, newRoot, size - 1);
+	}
+
+	private static int hash(Object key) {
+
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns a persistent form of a value that is stored in a persistent compound or list.
+	 */
+	@SuppressWarnings("unchecked")
+	static NbtValue persist(NbtValue value) {
+
+		if(value instanceof NbtCompound) {
+			return copyOf((NbtCompound)value);
+		} else if(value instanceof NbtList) {
+			return PersistentNbtListImpl.copyOf((NbtList<NbtValue>)value);
+		} else if(value == null) {
+			throw new NullPointerException("Values must not be null");
+		}
+		return value;
+	}
+
+	/**
+	 * Node of the trie. The slots are stored as pairs in a single array; the first element of a pair
+	 * is the key of an entry, or {@code null} if the second element is a child node.
+	 */
+	private abstract static class Node {
+
+		final Object[] slots;
+
+		Node(Object[] slots) {
+
+			this.slots = slots;
+		}
+
+		/**
+		 * Creates a node holding a single entry.
+		 */
+		static Node create(int shift, int hash, String key, NbtValue value) {
+
+			return new BitmapNode(1 << ((hash >>> shift) & 31), new Object[] { key, value });
+		}
+
+		/**
+		 * Creates a node holding two entries whose keys differ.
+		 */
+		static Node create(int shift, String key1, NbtValue value1, int hash2, String key2,
+				NbtValue value2) {
+
+			int hash1 = hash(key1);
+			if(hash1 == hash2) {
+				return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+			}
+			boolean[] added = new boolean[1];
+			return create(shift, hash1, key1, value1).with(shift, hash2, key2, value2, added);
+		}
+
+		abstract NbtValue find(int shift, int hash, Object key);
+
+		/**
+		 * Returns a node in which {@code key} maps to {@code value}, or this node if it already does,
+		 * setting {@code added[0]} if the key was not present.
+		 */
+		abstract Node with(int shift, int hash, String key, NbtValue value, boolean[] added);
+
+		/**
+		 * Returns a node without the given key, this node if the key is not present, or {@code null}
+		 * if the node would be empty.
+		 */
+		abstract Node without(int shift, int hash, Object key);
+
+		/**
+		 * Returns a copy of the slots with the pair at {@code position} replaced.
+		 */
+		final Object[] replace(int position, Object key, Object value) {
+
+			Object[] copy = slots.clone();
+			copy[position] = key;
+			copy[position + 1] = value;
+			return copy;
+		}
+
+		/**
+		 * Returns a copy of the slots without the pair at {@code position}.
+		 */
+		final Object[] remove(int position) {
+
+			Object[] copy = new Object[slots.length - 2];
+			System.arraycopy(slots, 0, copy, 0, position);
+			System.arraycopy(slots, position + 2, copy, position, copy.length - position);
+			return copy;
+		}
+	}
+
+	private static final class BitmapNode extends Node {
+
+		private final int bitmap;
+
+		BitmapNode(int bitmap, Object[] slots) {
+
+			super(slots);
+			this.bitmap = bitmap;
+		}
+
+		@Override
+		NbtValue find(int shift, int hash, Object key) {
+
+			int bit = 1 << ((hash >>> shift) & 31);
+			if((bitmap & bit) == 0) {
+				return null;
+			}
+			int position = 2 * Integer.bitCount(bitmap & (bit - 1));
+			Object slotKey = slots[position];
+			if(slotKey == null) {
+				return ((Node)slots[position + 1]).find(shift + 5, hash, key);
+			}
+			return key.equals(slotKey) ? (NbtValue)slots[position + 1] : null;
+		}
+
+		@Override
+		Node with(int shift, int hash, String key, NbtValue value, boolean[] added) {
+
+			int bit = 1 << ((hash >>> shift) & 31);
+			int position = 2 * Integer.bitCount(bitmap & (bit - 1));
+			if((bitmap & bit) == 0) {
+				Object[] copy = new Object[slots.length + 2];
+				System.arraycopy(slots, 0, copy, 0, position);
+				copy[position] = key;
+				copy[position + 1] = value;
+				System.arraycopy(slots, position, copy, position + 2, slots.length - position);
+				added[0] = true;
+				return new BitmapNode(bitmap | bit, copy);
+			}
+			Object slotKey = slots[position];
+			Object slotValue = slots[position + 1];
+			if(slotKey == null) {
+				Node child = ((Node)slotValue).with(shift + 5, hash, key, value, added);
+				return (child == slotValue) ? this
+						: new BitmapNode(bitmap, replace(position, null, child));
+			} else if(key.equals(slotKey)) {
+				return (value == slotValue) ? this
+						: new BitmapNode(bitmap, replace(position, slotKey, value));
+			}
+			added[0] = true;
+			Node child = create(shift + 5, (String)slotKey, (NbtValue)slotValue, hash, key, value);
+			return new BitmapNode(bitmap, replace(position, null, child));
+		}
+
+		@Override
+		Node without(int shift, int hash, Object key) {
+
+			int bit = 1 << ((hash >>> shift) & 31);
+			if((bitmap & bit) == 0) {
+				return this;
+			}
+			int position = 2 * Integer.bitCount(bitmap & (bit - 1));
+			Object slotKey = slots[position];
+			if(slotKey == null) {
+				Node child = (Node)slots[position + 1];
+				Node newChild = child.without(shift + 5, hash, key);
+				if(newChild == child) {
+					return this;
+				} else if(newChild != null) {
+					return new BitmapNode(bitmap, replace(position, null, newChild));
+				}
+			} else if(!key.equals(slotKey)) {
+				return this;
+			}
+			return (bitmap == bit) ? null : new BitmapNode(bitmap ^ bit, remove(position));
+		}
+	}
+
+	/**
+	 * Node holding the entries of keys whose hashes are all equal.
+	 */
+	private static final class CollisionNode extends Node {
+
+		private final int hash;
+
+		CollisionNode(int hash, Object[] slots) {
+
+			super(slots);
+			this.hash = hash;
+		}
+
+		@Override
+		NbtValue find(int shift, int hash, Object key) {
+
+			int position = indexOf(key);
+			return (position >= 0) ? (NbtValue)slots[position + 1] : null;
+		}
+
+		@Override
+		Node with(int shift, int hash, String key, NbtValue value, boolean[] added) {
+
+			if(hash != this.hash) {
+				Node node = new BitmapNode(1 << ((this.hash >>> shift) & 31),
+						new Object[] { null, this });
+				return node.with(shift, hash, key, value, added);
+			}
+			int position = indexOf(key);
+			if(position >= 0) {
+				return (slots[position + 1] == value) ? this
+						: new CollisionNode(hash, replace(position, key, value));
+			}
+			Object[] copy = Arrays.copyOf(slots, slots.length + 2);
+			copy[slots.length] = key;
+			copy[slots.length + 1] = value;
+			added[0] = true;
+			return new CollisionNode(hash, copy);
+		}
+
+		@Override
+		Node without(int shift, int hash, Object key) {
+
+			int position = indexOf(key);
+			if(position < 0) {
+				return this;
+			}
+			return (slots.length == 2) ? null : new CollisionNode(this.hash, remove(position));
+		}
+
+		private int indexOf(Object key) {
+
+			for(int i = 0; i < slots.length; i += 2) {
+				if(key.equals(slots[i])) {
+					return i;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, NbtValue>> {
+
+		@Override
+		public Iterator<Entry<String, NbtValue>> iterator() {
+
+			return new EntryIterator(root);
+		}
+
+		@Override
+		public int size() {
+
+			return size;
+		}
+	}
+
+	/**
+	 * Depth-first iterator over the entries of a trie, keeping the path to the current slot on a stack
+	 * that is bounded by the depth of the trie.
+	 */
+	private static final class EntryIterator implements Iterator<Entry<String, NbtValue>> {
+
+		private Entry<String, NbtValue> next;
+		private final Node[] nodes = new Node[8];
+		private final int[] positions = new int[8];
+		private int top = -1;
+
+		EntryIterator(Node root) {
+
+			if(root != null) {
+				nodes[++top] = root;
+			}
+			advance();
+		}
+
+		@Override
+		public boolean hasNext() {
+
+			return next != null;
+		}
+
+		@Override
+		public Entry<String, NbtValue> next() {
+
+			if(next == null) {
+				throw new NoSuchElementException();
+			}
+			Entry<String, NbtValue> entry = next;
+			advance();
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+
+			throw new UnsupportedOperationException("Persistent compounds cannot be modified");
+		}
+
+		private void advance() {
+
+			while(top >= 0) {
+				Node node = nodes[top];
+				int position = positions[top];
+				if(position == node.slots.length) {
+					positions[top--] = 0;
+					continue;
+				}
+				positions[top] = position + 2;
+				Object key = node.slots[position];
+				Object value = node.slots[position + 1];
+				if(key == null) {
+					nodes[++top] = (Node)value;
+					positions[top] = 0;
+				} else {
+					next = new AbstractMap.SimpleImmutableEntry<>((String)key, (NbtValue)value);
+					return;
+				}
+			}
+			next = null;
+		}
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+public class PersistentNbtFactoryImpl implements PersistentNbtFactory {
+
+	@Override
+	public PersistentNbtCompound copyOf(NbtCompound compound) {
+
+		return PersistentNbtCompoundImpl.copyOf(compound);
+	}
+
+	@Override
+	public <T extends NbtValue> PersistentNbtList<T> copyOf(NbtList<T> list) {
+
+		return PersistentNbtListImpl.copyOf(list);
+	}
+
+	@Override
+	public PersistentNbtCompound createCompound(String name) {
+
+		return PersistentNbtCompoundImpl.empty(name);
+	}
+
+	@Override
+	public <T extends NbtValue> PersistentNbtList<T> createList(String name,
+			NbtTagType elementType) {
+
+		return PersistentNbtListImpl.empty(name, elementType);
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+/**
+ * {@link PersistentNbtList} implementation backed by a bit-partitioned vector trie. Elements are
+ * stored in leaves of up to 32 elements, under interior nodes of up to 32 children, and each level
+ * of the trie is selected by five bits of the index. Nodes only hold as many slots as are in use, so
+ * short lists are a single small leaf. Deriving a list copies only the nodes on the path to the
+ * changed index, and shares all others with the list it was derived from.
+ *
+ * <p>As the list is immutable, its {@link NbtStructure structural hash} is cached.</p>
+ */
+final class PersistentNbtListImpl<T extends NbtValue> extends AbstractList<T>
+		implements NbtStructure.Hashed, PersistentNbtList<T>, RandomAccess {
+
+	private static final Object[] EMPTY_NODE = {};
+
+	private final NbtTagType elementType;
+	private final String name;
+	private final Object[] root;
+	/** Bit shift of the index for the root level, which is {@code 0} when the root is a leaf. */
+	private final int shift;
+	private final int size;
+	/** Structural hash of the list, valid once {@link #structuralHashed} is set. */
+	private long structuralHash;
+	private volatile boolean structuralHashed;
+
+	private PersistentNbtListImpl(String name, NbtTagType elementType, Object[] root, int shift,
+			int size) {
+
+		this.elementType = elementType;
+		this.name = name;
+		this.root = root;
+		this.shift = shift;
+		this.size = size;
+	}
+
+	/**
+	 * Returns a persistent copy of a list, copying compounds and lists among its elements into
+	 * persistent ones in the same way as {@link PersistentNbtCompoundImpl#copyOf}.
+	 *
+	 * @return the copy, or the list itself if it is already a persistent list
+	 */
+	static <T extends NbtValue> PersistentNbtList<T> copyOf(NbtList<T> list) {
+
+		if(list instanceof PersistentNbtList) {
+			return (PersistentNbtList<T>)list;
+		}
+		Object[] nodes = new Object[list.size()];
+		int count = 0;
+		for(T element : list) {
+			nodes[count++] = PersistentNbtCompoundImpl.persist(element);
+		}
+		int shift = 0;
+		do {
+			Object[] parents = new Object[(count + 31) >>> 5];
+			for(int i = 0; i < parents.length; ++i) {
+				parents[i] = Arrays.copyOfRange(nodes, i << 5, Math.min((i + 1) << 5, count));
+			}
+			nodes = parents;
+			count = parents.length;
+			shift += 5;
+		} while(count > 1);
+		Object[] root = (count == 1) ? (Object[])nodes[0] : EMPTY_NODE;
+		return new PersistentNbtListImpl<>(list.getName(), list.getElementType(), root, shift - 5,
+				list.size());
+	}
+
+	/**
+	 * Returns an empty persistent list with the given name and element type.
+	 */
+	static <T extends NbtValue> PersistentNbtList<T> empty(String name,
+			NbtTagType elementType) {
+
+		return new PersistentNbtListImpl<>(name, elementType, EMPTY_NODE, 0, 0);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+
+		if((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Index " + index + " of list of size " + size);
+		}
+		Object[] node = root;
+		for(int level = shift; level > 0; level -= 5) {
+			node = (Object[])node[(index >>> level) & 31];
+		}
+		return (T)node[index & 31];
+	}
+
+	@Override
+	public NbtTagType getElementType() {
+
+		return elementType;
+	}
+
+	@Override
+	public String getName() {
+
+		return name;
+	}
+
+	@Override
+	public boolean isStructuralHashCached() {
+
+		return structuralHashed;
+	}
+
+	@Override
+	public PersistentNbtList<T> plus(T element) {
+
+		NbtValue value = checkElement(element);
+		if(size == 0) {
+			return new PersistentNbtListImpl<>(name, NbtValues.tagTypeOf(value),
+					new Object[] { value }, 0, 1);
+		}
+		if(size == 1 << (shift + 5)) {
+			return new PersistentNbtListImpl<>(name, elementType,
+					new Object[] { root, path(shift, value) }, shift + 5, size + 1);
+		}
+		return new PersistentNbtListImpl<>(name, elementType, append(root, shift, value), shift,
+				size + 1);
+	}
+
+	@Override
+	public int size() {
+
+		return size;
+	}
+
+	@Override
+	public long structuralHash() {
+
+		if(!structuralHashed) {
+			structuralHash = NbtStructure.compute(this);
+			structuralHashed = true;
+		}
+		return structuralHash;
+	}
+
+	@Override
+	public PersistentNbtList<T> with(int index, T element) {
+
+		if((index < 0) || (index >= size)) {
+			throw new IndexOutOfBoundsException("Index " + index + " of list of size " + size);
+		}
+		NbtValue value = checkElement(element);
+		if(get(index) == value) {
+			return this;
+		}
+		return new PersistentNbtListImpl<>(name, elementType, replace(root, shift, index, value),
+				shift, size);
+	}
+
+	/**
+	 * Returns a copy of a node with the element at index {@link #size} appended below it.
+	 */
+	private Object[] append(Object[] node, int level, NbtValue value) {
+
+		int slot = (size >>> level) & 31;
+		Object[] copy = Arrays.copyOf(node, Math.max(node.length, slot + 1));
+		if(level == 0) {
+			copy[slot] = value;
+		} else if(slot < node.length) {
+			copy[slot] = append((Object[])node[slot], level - 5, value);
+		} else {
+			copy[slot] = path(level - 5, value);
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the persistent form of an element that is to be stored in the list, checking its type.
+	 */
+	private NbtValue checkElement(T element) {
+
+		NbtValue value = PersistentNbtCompoundImpl.persist(element);
+		NbtTagType type = NbtValues.tagTypeOf(value);
+		if(((size > 0) || (elementType != NbtTagType.END)) && (type != elementType)) {
+			throw new IllegalArgumentException("List <" + name + "> of " + elementType
+					+ " elements cannot hold a " + type + " element");
+		}
+		return value;
+	}
+
+	/**
+	 * Returns a new branch of single-slot nodes, {@code level} bits deep, leading to a leaf that holds
+	 * only the given value.
+	 */
+	private static Object[] path(int level, NbtValue value) {
+
+		Object[] node = { value };
+		for(int i = 0; i < level; i += 5) {
+			node = new Object[] { node };
+		}
+		return node;
+	}
+
+	/**
+	 * Returns a copy of a node with the element at {@code index} below it replaced.
+	 */
+	private static Object[] replace(Object[] node, int level, int index, NbtValue value) {
+
+		Object[] copy = node.clone();
+		int slot = (index >>> level) & 31;
+		copy[slot] = (level == 0) ? value : replace((Object[])node[slot], level - 5, index, value);
+		return copy;
+	}
+}
@@ -14,6 +14,14 @@
 package net.za.slyfox.minecraft.nbt.spi;
 
 import net.za.slyfox.minecraft.nbt.*;
+import net.za.slyfox.minecraft.nbt.stream.NbtGenerator;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorFactory;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorFactoryImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserFactory;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserFactoryImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserImpl;
 
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -21,6 +29,36 @@ import java.util.Map;
 
 public class DefaultNbtProvider extends NbtProvider {
 
+	@Override
+	public NbtGenerator createGenerator(OutputStream outputStream) {
+
+		return new NbtGeneratorImpl(outputStream);
+	}
+
+	@Override
+	public NbtGeneratorFactory createGeneratorFactory(Map<String, ?> configuration) {
+
+		return new NbtGeneratorFactoryImpl(configuration);
+	}
+
+	@Override
+	public NbtParser createParser(InputStream inputStream) {
+
+		return new NbtParserImpl(inputStream);
+	}
+
+	@Override
+	public NbtParserFactory createParserFactory(Map<String, ?> configuration) {
+
+		return new NbtParserFactoryImpl(configuration);
+	}
+
+	@Override
+	public PersistentNbtFactory createPersistentFactory() {
+
+		return new PersistentNbtFactoryImpl();
+	}
+
 	@Override
 	public NbtReader createReader(InputStream inputStream) {
 
@@ -30,18 +68,18 @@ public class DefaultNbtProvider extends NbtProvider {
 	@Override
 	public NbtReaderFactory createReaderFactory(Map<String, ?> configuration) {
 
-		return null;
+		return new NbtReaderFactoryImpl(configuration);
 	}
 
 	@Override
 	public NbtWriter createWriter(OutputStream outputStream) {
 
-		return null;
+		return new NbtWriterImpl(outputStream);
 	}
 
 	@Override
 	public NbtWriterFactory createWriterFactory(Map<String, ?> configuration) {
 
-		return null;
+		return new NbtWriterFactoryImpl(configuration);
 	}
 }
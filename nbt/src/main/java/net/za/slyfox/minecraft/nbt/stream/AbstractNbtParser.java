@@ -0,0 +1,876 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+
+/**
+ * Base class for {@link NbtParser} implementations, implementing the event state machine on top of
+ * a set of primitive read operations supplied by subclasses.
+ *
+ * <p>The state of the parser is held in a preallocated, array-backed stack of the containers
+ * (compounds and lists) that are currently open, plus a single "next expected token" value. Advancing
+ * the parser, tracking depth and looking up tag types are all constant-time and do not allocate.</p>
+ *
+ * <p>{@link #accept(NbtVisitor) Visiting} a document bypasses the event state machine: a single loop
+ * over the same container stack reads each tag and passes its value straight to the visitor.</p>
+ */
+abstract class AbstractNbtParser implements NbtParser {
+
+	private static final int EXPECT_TAG_ID = 0;
+	private static final int EXPECT_TAG_NAME = 1;
+	private static final int EXPECT_NUMBER = 2;
+	private static final int EXPECT_STRING = 3;
+	private static final int EXPECT_ARRAY_SIZE = 4;
+	private static final int EXPECT_ARRAY_CONTENTS = 5;
+	private static final int EXPECT_LIST_TAG_ID = 6;
+	private static final int EXPECT_LIST_SIZE = 7;
+	private static final int EXPECT_NOTHING = 8;
+
+	static final int DEFAULT_MAX_ARRAY_LENGTH = Integer.MAX_VALUE;
+	static final int DEFAULT_MAX_DEPTH = 512;
+	static final int DEFAULT_NAME_CACHE_SIZE = 1024;
+
+	private boolean arrayPending;
+	private int arrayRemaining;
+	private final boolean bulkArrays;
+	/** Arrays reused for the contents of arrays reported to visitors. */
+	private byte[] byteScratch = new byte[0];
+	private final boolean lazyStrings;
+	protected final ModifiedUtf8Decoder decoder = new ModifiedUtf8Decoder();
+	private final ParserEvent event = new ParserEvent();
+	private int expect = EXPECT_TAG_ID;
+	private int[] intScratch = new int[0];
+	private final NbtLocationImpl location = new NbtLocationImpl();
+	private final int maxArrayLength;
+	/** Tag name symbol table, or {@code null} when name caching is disabled. */
+	protected final NameTable names;
+	private NbtTagType numberType;
+	private NbtTagType pendingType;
+	/**
+	 * State of a skip in progress: the stack size to skip down to, or {@code -1} when no skip is in
+	 * progress; the type of a value whose payload has not been skipped yet; and the number of bytes
+	 * left to skip before the next token.
+	 */
+	private int skipFloor = -1;
+	private int skipRemaining;
+	private NbtTagType skipType;
+	private final Stack stack;
+	private final StringView stringView = new StringView(decoder);
+
+	protected AbstractNbtParser(Map<String, ?> configuration) {
+
+		bulkArrays = Configuration.getBoolean(configuration, BULK_ARRAYS, false);
+		lazyStrings = Configuration.getBoolean(configuration, LAZY_STRINGS, false);
+		maxArrayLength = Configuration.getInt(configuration, MAX_ARRAY_LENGTH,
+				DEFAULT_MAX_ARRAY_LENGTH);
+		stack = new Stack(Configuration.getInt(configuration, MAX_DEPTH, DEFAULT_MAX_DEPTH));
+		int nameCacheSize = Configuration.getInt(configuration, NAME_CACHE_SIZE,
+				DEFAULT_NAME_CACHE_SIZE);
+		names = (nameCacheSize > 0) ? new NameTable(nameCacheSize, decoder) : null;
+	}
+
+	@Override
+	public void accept(NbtVisitor visitor) {
+
+		if((expect != EXPECT_TAG_ID) || (stack.size != 0)) {
+			throw new IllegalStateException("Parser has already been advanced");
+		}
+		try {
+			skipPendingArray();
+			NbtTagType rootType = NbtTagType.valueOf(readByte());
+			if(rootType == NbtTagType.END) {
+				throw new NbtException("Unexpected END tag outside of a compound");
+			}
+			visitValue(visitor, rootType, readName());
+			walk(visitor);
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new NbtException("Unexpected end of input", e);
+		}
+		event.clear();
+		expect = EXPECT_NOTHING;
+	}
+
+	@Override
+	public void close() throws IOException {
+
+	}
+
+	@Override
+	public byte getByte() {
+
+		return event.getByte();
+	}
+
+	@Override
+	public CharSequence getCharSequence() {
+
+		return event.getCharSequence();
+	}
+
+	@Override
+	public double getDouble() {
+
+		return event.getDouble();
+	}
+
+	@Override
+	public float getFloat() {
+
+		return event.getFloat();
+	}
+
+	@Override
+	public int getInt() {
+
+		return event.getInt();
+	}
+
+	@Override
+	public NbtLocation getLocation() {
+
+		location.setDepth(stack.size);
+		location.setStreamOffset(getStreamOffset());
+		return location;
+	}
+
+	@Override
+	public long getLong() {
+
+		return event.getLong();
+	}
+
+	@Override
+	public Number getNumber() {
+
+		return event.getNumber();
+	}
+
+	@Override
+	public short getShort() {
+
+		return event.getShort();
+	}
+
+	@Override
+	public String getString() {
+
+		return event.getString();
+	}
+
+	@Override
+	public NbtTagType getTagType() {
+
+		return event.getTagType();
+	}
+
+	@Override
+	public boolean hasNext() {
+
+		return expect != EXPECT_NOTHING;
+	}
+
+	@Override
+	public Event next() {
+
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			skipPendingArray();
+			markToken();
+			advance();
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new NbtException("Unexpected end of input", e);
+		}
+		return event.getEvent();
+	}
+
+	@Override
+	public void readByteArray(byte[] array) {
+
+		int count = event.checkArray(NbtTagType.BYTE, array.length);
+		claimArray();
+		try {
+			readBytes(array, count);
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new NbtException("Unexpected end of input", e);
+		}
+	}
+
+	@Override
+	public void readIntArray(int[] array) {
+
+		int count = event.checkArray(NbtTagType.INT, array.length);
+		claimArray();
+		try {
+			readInts(array, count);
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new NbtException("Unexpected end of input", e);
+		}
+	}
+
+	@Override
+	public void reset(InputStream inputStream) {
+
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " does not read from streams");
+	}
+
+	@Override
+	public void reset(ByteBuffer buffer) {
+
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " does not read from buffers");
+	}
+
+	@Override
+	public void skipChildren() {
+
+		if((expect != EXPECT_TAG_ID) || (stack.size == 0)) {
+			throw new IllegalStateException("Parser is not positioned between compound children");
+		}
+		skipFloor = stack.size - 1;
+		resumeSkip();
+	}
+
+	@Override
+	public void skipValue() {
+
+		if(event.getEvent() != Event.TAG_NAME) {
+			throw new IllegalStateException("Invalid parser state for skipValue: "
+					+ event.getEvent());
+		}
+		if((pendingType == NbtTagType.COMPOUND) || (pendingType == NbtTagType.LIST)) {
+			stack.pop();
+		}
+		skipFloor = stack.size;
+		skipType = pendingType;
+		resumeSkip();
+	}
+
+	/**
+	 * Returns the number of bytes consumed from the input, or {@code -1} if it is not tracked.
+	 */
+	protected long getStreamOffset() {
+
+		return -1;
+	}
+
+	/**
+	 * Marks the start of the next token. Every read that can run out of input is preceded by a
+	 * mark, and the state of the parser is only updated once the whole token has been read, so a
+	 * non-blocking parser can rewind its input to the last mark and retry the token once more input
+	 * arrives. The default implementation does nothing.
+	 */
+	protected void markToken() {
+
+	}
+
+	/**
+	 * Returns the state machine to its initial state, ready to parse a new document. Subclasses call
+	 * this when they are reset to a new input.
+	 */
+	protected void resetState() {
+
+		arrayPending = false;
+		arrayRemaining = 0;
+		event.clear();
+		expect = EXPECT_TAG_ID;
+		numberType = null;
+		pendingType = null;
+		skipFloor = -1;
+		skipRemaining = 0;
+		skipType = null;
+		stack.size = 0;
+	}
+
+	/**
+	 * Prepares the parser to read only the payload of a single value of the given type, without the
+	 * preceding tag ID and name. This must be called before the parser is first advanced. The events
+	 * produced are those that would follow the {@link Event#TAG_NAME} event of the value, and the
+	 * parser has no more events once the payload has been read.
+	 */
+	protected void startPayload(NbtTagType type) {
+
+		if(type == NbtTagType.END) {
+			throw new IllegalArgumentException("END tags have no payload");
+		}
+		pendingType = type;
+		beginValue(type);
+	}
+
+	/**
+	 * Verifies that the given number of bytes can be read without blocking. This is called before
+	 * {@link Event#VALUE_ARRAY} is reported, so that the array contents can be read or skipped
+	 * later. The default implementation does nothing.
+	 */
+	protected void requireBytes(int count) throws IOException {
+
+	}
+
+	protected abstract byte readByte() throws IOException;
+
+	/**
+	 * Reads {@code count} bytes into the start of {@code array}.
+	 */
+	protected abstract void readBytes(byte[] array, int count) throws IOException;
+
+	protected abstract double readDouble() throws IOException;
+
+	protected abstract float readFloat() throws IOException;
+
+	protected abstract int readInt() throws IOException;
+
+	/**
+	 * Reads {@code count} big-endian integers into the start of {@code array}.
+	 */
+	protected abstract void readInts(int[] array, int count) throws IOException;
+
+	/**
+	 * Reads a string encoded in the same way as {@link #readString}, positioning {@code view} over
+	 * its undecoded data instead of decoding it. The data must remain in place until the next read.
+	 */
+	protected abstract void readLazyString(StringView view) throws IOException;
+
+	protected abstract long readLong() throws IOException;
+
+	/**
+	 * Reads a tag name, encoded in the same way as {@link #readString}, returning the canonical
+	 * instance from the {@link #names name table} when it is enabled.
+	 */
+	protected abstract String readName() throws IOException;
+
+	protected abstract short readShort() throws IOException;
+
+	/**
+	 * Reads a length-prefixed modified UTF-8 string, as written by {@link
+	 * java.io.DataOutput#writeUTF}.
+	 */
+	protected abstract String readString() throws IOException;
+
+	protected abstract void skipBytes(int count) throws IOException;
+
+	/**
+	 * Skips at least one and at most {@code count} bytes, returning the number skipped. A
+	 * non-blocking parser skips only the input that has been fed so far, so that long skips do not
+	 * need to hold their data. The default implementation skips all {@code count} bytes.
+	 */
+	protected int skipAvailable(int count) throws IOException {
+
+		skipBytes(count);
+		return count;
+	}
+
+	private void advance() throws IOException {
+
+		switch(expect) {
+			case EXPECT_TAG_ID:
+				NbtTagType tagType = NbtTagType.valueOf(readByte());
+				event.setTagType(Event.TAG_ID, tagType);
+				if(tagType == NbtTagType.END) {
+					stack.pop();
+					completeValue();
+				} else {
+					pendingType = tagType;
+					expect = EXPECT_TAG_NAME;
+				}
+				break;
+
+			case EXPECT_TAG_NAME:
+				event.setString(Event.TAG_NAME, readName());
+				beginValue(pendingType);
+				break;
+
+			case EXPECT_NUMBER:
+				readNumber(numberType);
+				if(arrayRemaining == 0 || --arrayRemaining == 0) {
+					completeValue();
+				}
+				break;
+
+			case EXPECT_STRING:
+				if(lazyStrings) {
+					readLazyString(stringView);
+					event.setString(Event.VALUE_STRING, stringView);
+				} else {
+					event.setString(Event.VALUE_STRING, readString());
+				}
+				completeValue();
+				break;
+
+			case EXPECT_ARRAY_SIZE:
+				arrayRemaining = checkLength(readInt());
+				event.setIntegral(Event.ARRAY_SIZE, NbtTagType.INT, arrayRemaining);
+				if(bulkArrays) {
+					expect = EXPECT_ARRAY_CONTENTS;
+				} else if(arrayRemaining > 0) {
+					expect = EXPECT_NUMBER;
+				} else {
+					arrayRemaining = 0;
+					completeValue();
+				}
+				break;
+
+			case EXPECT_ARRAY_CONTENTS:
+				requireBytes(arrayLength(Math.max(arrayRemaining, 0), fixedWidth(numberType)));
+				event.setArray(numberType, Math.max(arrayRemaining, 0));
+				arrayPending = true;
+				arrayRemaining = 0;
+				completeValue();
+				break;
+
+			case EXPECT_LIST_TAG_ID:
+				NbtTagType elementType = NbtTagType.valueOf(readByte());
+				event.setTagType(Event.LIST_TAG_ID, elementType);
+				stack.elementType[stack.size - 1] = elementType;
+				expect = EXPECT_LIST_SIZE;
+				break;
+
+			case EXPECT_LIST_SIZE:
+				int size = checkLength(readInt());
+				event.setIntegral(Event.ARRAY_SIZE, NbtTagType.INT, size);
+				stack.remaining[stack.size - 1] = size;
+				completeValue();
+				break;
+
+			default:
+				throw new IllegalStateException("Unexpected parser state " + expect);
+		}
+	}
+
+	/**
+	 * Prepares the parser state to read the payload of a value with the given tag type.
+	 */
+	private void beginValue(NbtTagType type) {
+
+		switch(type) {
+			case BYTE:
+			case DOUBLE:
+			case FLOAT:
+			case INT:
+			case LONG:
+			case SHORT:
+				numberType = type;
+				expect = EXPECT_NUMBER;
+				break;
+
+			case STRING:
+				expect = EXPECT_STRING;
+				break;
+
+			case BYTE_ARRAY:
+				numberType = NbtTagType.BYTE;
+				expect = EXPECT_ARRAY_SIZE;
+				break;
+
+			case INT_ARRAY:
+				numberType = NbtTagType.INT;
+				expect = EXPECT_ARRAY_SIZE;
+				break;
+
+			case LIST:
+				stack.push(NbtTagType.LIST);
+				expect = EXPECT_LIST_TAG_ID;
+				break;
+
+			case COMPOUND:
+				stack.push(NbtTagType.COMPOUND);
+				expect = EXPECT_TAG_ID;
+				break;
+
+			default:
+				throw new NbtException("Unsupported tag type in container: " + type);
+		}
+	}
+
+	/**
+	 * Verifies that an array or list length read from the input does not exceed the configured
+	 * maximum.
+	 */
+	private int checkLength(int length) {
+
+		if(length > maxArrayLength) {
+			throw new NbtException("Array length " + length + " exceeds the maximum of "
+					+ maxArrayLength);
+		}
+		return length;
+	}
+
+	private void claimArray() {
+
+		if(!arrayPending) {
+			throw new IllegalStateException("Array contents have already been read");
+		}
+		arrayPending = false;
+	}
+
+	/**
+	 * Updates the parser state after the payload of a value has been read completely, moving on to the
+	 * next sibling in the enclosing container, or closing containers that have been exhausted.
+	 */
+	private void completeValue() {
+
+		while(stack.size > 0) {
+			int top = stack.size - 1;
+			if(stack.type[top] == NbtTagType.COMPOUND) {
+				expect = EXPECT_TAG_ID;
+				return;
+			}
+			if(stack.remaining[top] > 0) {
+				--stack.remaining[top];
+				beginValue(stack.elementType[top]);
+				return;
+			}
+			stack.pop();
+		}
+		expect = EXPECT_NOTHING;
+	}
+
+	/**
+	 * Skips the bytes left over from the last skipped token.
+	 */
+	private void drainSkip() throws IOException {
+
+		while(skipRemaining > 0) {
+			markToken();
+			skipRemaining -= skipAvailable(skipRemaining);
+		}
+	}
+
+	private void readNumber(NbtTagType type) throws IOException {
+
+		final Event valueEvent = Event.VALUE_NUMBER;
+		switch(type) {
+			case BYTE: event.setIntegral(valueEvent, type, readByte()); break;
+			case DOUBLE: event.setFloatingPoint(valueEvent, type, readDouble()); break;
+			case FLOAT: event.setFloatingPoint(valueEvent, type, readFloat()); break;
+			case INT: event.setIntegral(valueEvent, type, readInt()); break;
+			case LONG: event.setIntegral(valueEvent, type, readLong()); break;
+			case SHORT: event.setIntegral(valueEvent, type, readShort()); break;
+
+			default:
+				throw new UnsupportedOperationException("Unknown tag type " + type);
+		}
+	}
+
+	/**
+	 * Continues a {@link #skipValue} or {@link #skipChildren} call that ran out of input, if there
+	 * is one, and then completes the skipped value.
+	 */
+	void resumeSkip() {
+
+		if(skipFloor < 0) {
+			return;
+		}
+		try {
+			skipPendingArray();
+			if(skipType != null) {
+				markToken();
+				skipPayload(skipType);
+				skipType = null;
+			}
+			skipContainers(skipFloor);
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new NbtException("Unexpected end of input", e);
+		}
+		skipFloor = -1;
+		event.clear();
+		completeValue();
+	}
+
+	/**
+	 * Skips the payload of a single value of the given type. Compounds and lists with variable-size
+	 * elements are not scanned here; instead, a frame is pushed onto the stack for {@link
+	 * #skipContainers} to work through. The contents of strings, arrays and lists of fixed-size
+	 * elements are left in {@link #skipRemaining} for {@link #drainSkip} to skip.
+	 */
+	private void skipPayload(NbtTagType type) throws IOException {
+
+		switch(type) {
+			case STRING:
+				skipRemaining = readShort() & 0xFFFF;
+				break;
+
+			case BYTE_ARRAY:
+				skipRemaining = arrayLength(checkLength(readInt()), 1);
+				break;
+
+			case INT_ARRAY:
+				skipRemaining = arrayLength(checkLength(readInt()), 4);
+				break;
+
+			case LIST:
+				NbtTagType elementType = NbtTagType.valueOf(readByte());
+				int size = checkLength(readInt());
+				int elementWidth = fixedWidth(elementType);
+				if(elementWidth >= 0) {
+					skipRemaining = arrayLength(size, elementWidth);
+				} else if(size > 0) {
+					stack.push(NbtTagType.LIST);
+					stack.elementType[stack.size - 1] = elementType;
+					stack.remaining[stack.size - 1] = size;
+				}
+				break;
+
+			case COMPOUND:
+				stack.push(NbtTagType.COMPOUND);
+				break;
+
+			default:
+				skipBytes(fixedWidth(type));
+				break;
+		}
+	}
+
+	/**
+	 * Skips the remaining contents of every container on the stack above {@code floor}, leaving the
+	 * stack at that size. This is a flat loop over the stack, so skipping deeply nested data neither
+	 * recurses nor allocates. Each iteration reads a single token before it updates the stack, so
+	 * the loop can be resumed after running out of input.
+	 */
+	private void skipContainers(int floor) throws IOException {
+
+		drainSkip();
+		while(stack.size > floor) {
+			markToken();
+			int top = stack.size - 1;
+			if(stack.type[top] == NbtTagType.COMPOUND) {
+				NbtTagType type = NbtTagType.valueOf(readByte());
+				if(type == NbtTagType.END) {
+					stack.pop();
+				} else {
+					skipBytes(readShort() & 0xFFFF);
+					skipPayload(type);
+				}
+			} else if(stack.remaining[top] > 0) {
+				skipPayload(stack.elementType[top]);
+				--stack.remaining[top];
+			} else {
+				stack.pop();
+			}
+			drainSkip();
+		}
+	}
+
+	/**
+	 * Skips the contents of a bulk array that were reported but not read by the caller.
+	 */
+	void skipPendingArray() throws IOException {
+
+		if(arrayPending) {
+			arrayPending = false;
+			skipRemaining = event.getArraySize() * fixedWidth(event.getArrayType());
+		}
+		drainSkip();
+	}
+
+	/**
+	 * Reports a single value to a visitor. Compounds and lists that the visitor enters are pushed onto
+	 * the stack for {@link #walk} to work through; those that it declines are skipped.
+	 */
+	private void visitValue(NbtVisitor visitor, NbtTagType type, String name) throws IOException {
+
+		switch(type) {
+			case BYTE: visitor.visitByte(name, readByte()); break;
+			case DOUBLE: visitor.visitDouble(name, readDouble()); break;
+			case FLOAT: visitor.visitFloat(name, readFloat()); break;
+			case INT: visitor.visitInt(name, readInt()); break;
+			case LONG: visitor.visitLong(name, readLong()); break;
+			case SHORT: visitor.visitShort(name, readShort()); break;
+			case STRING: visitor.visitString(name, readString()); break;
+
+			case BYTE_ARRAY:
+				int byteCount = arrayLength(checkLength(readInt()), 1);
+				if(byteScratch.length < byteCount) {
+					byteScratch = new byte[Math.max(byteCount, byteScratch.length * 2)];
+				}
+				readBytes(byteScratch, byteCount);
+				visitor.visitByteArray(name, byteScratch, 0, byteCount);
+				break;
+
+			case INT_ARRAY:
+				int intCount = checkLength(readInt());
+				arrayLength(intCount, 4);
+				if(intScratch.length < intCount) {
+					intScratch = new int[Math.max(intCount, intScratch.length * 2)];
+				}
+				readInts(intScratch, intCount);
+				visitor.visitIntArray(name, intScratch, 0, intCount);
+				break;
+
+			case LIST:
+				NbtTagType elementType = NbtTagType.valueOf(readByte());
+				int size = Math.max(checkLength(readInt()), 0);
+				stack.push(NbtTagType.LIST);
+				stack.elementType[stack.size - 1] = elementType;
+				stack.remaining[stack.size - 1] = size;
+				if(!visitor.enterList(name, elementType, size)) {
+					int elementWidth = fixedWidth(elementType);
+					if(elementWidth >= 0) {
+						stack.pop();
+						skipBytes(arrayLength(size, elementWidth));
+					} else {
+						skipContainers(stack.size - 1);
+					}
+				}
+				break;
+
+			case COMPOUND:
+				stack.push(NbtTagType.COMPOUND);
+				if(!visitor.enterCompound(name)) {
+					skipContainers(stack.size - 1);
+				}
+				break;
+
+			default:
+				throw new NbtException("Unsupported tag type in container: " + type);
+		}
+	}
+
+	/**
+	 * Reports the contents of every container on the stack to a visitor, in a flat loop that mirrors
+	 * {@link #skipContainers}.
+	 */
+	private void walk(NbtVisitor visitor) throws IOException {
+
+		while(stack.size > 0) {
+			int top = stack.size - 1;
+			if(stack.type[top] == NbtTagType.COMPOUND) {
+				NbtTagType type = NbtTagType.valueOf(readByte());
+				if(type == NbtTagType.END) {
+					stack.pop();
+					visitor.exitCompound();
+				} else {
+					visitValue(visitor, type, readName());
+				}
+			} else if(stack.remaining[top] > 0) {
+				--stack.remaining[top];
+				visitValue(visitor, stack.elementType[top], null);
+			} else {
+				stack.pop();
+				visitor.exitList();
+			}
+		}
+	}
+
+	private static int arrayLength(int count, int elementWidth) {
+
+		if(count < 0) {
+			throw new NbtException("Negative array length " + count);
+		}
+		long length = (long)count * elementWidth;
+		if(length > Integer.MAX_VALUE) {
+			throw new NbtException("Array length " + count + " is too large");
+		}
+		return (int)length;
+	}
+
+	/**
+	 * Returns the encoded size of a value of the given type, or -1 if values of the type do not have
+	 * a fixed size.
+	 */
+	private static int fixedWidth(NbtTagType type) {
+
+		switch(type) {
+			case END: return 0;
+			case BYTE: return 1;
+			case SHORT: return 2;
+			case INT: return 4;
+			case LONG: return 8;
+			case FLOAT: return 4;
+			case DOUBLE: return 8;
+
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Signals that a non-blocking parser has not been fed enough input to complete the current read.
+	 * Every read in the state machine happens before the state it produces is updated, so a parser
+	 * can rewind its input to the {@link #markToken() start of the failed token} and retry it once
+	 * more input arrives. A single instance without a stack trace is shared, as this is part of
+	 * normal control flow.
+	 */
+	static final class InputUnderflowException extends RuntimeException {
+
+		static final InputUnderflowException INSTANCE = new InputUnderflowException();
+		private static final long serialVersionUID = 1L;
+
+		private InputUnderflowException() {
+
+			super("Insufficient input", null, false, false);
+		}
+	}
+
+	/**
+	 * Array-backed stack of the containers (compounds and lists) that are currently open. Element
+	 * type and remaining element count are only meaningful for lists.
+	 */
+	private static final class Stack {
+
+		NbtTagType[] elementType = new NbtTagType[16];
+		private final int maxDepth;
+		int[] remaining = new int[16];
+		int size;
+		NbtTagType[] type = new NbtTagType[16];
+
+		Stack(int maxDepth) {
+
+			this.maxDepth = maxDepth;
+		}
+
+		void pop() {
+
+			if(size == 0) {
+				throw new NbtException("Unexpected END tag outside of a compound");
+			}
+			--size;
+		}
+
+		void push(NbtTagType containerType) {
+
+			if(size == maxDepth) {
+				throw new NbtException("Nesting depth exceeds the maximum of " + maxDepth);
+			}
+			if(size == type.length) {
+				int capacity = size * 2;
+				elementType = Arrays.copyOf(elementType, capacity);
+				remaining = Arrays.copyOf(remaining, capacity);
+				type = Arrays.copyOf(type, capacity);
+			}
+			type[size] = containerType;
+			remaining[size] = 0;
+			++size;
+		}
+	}
+}
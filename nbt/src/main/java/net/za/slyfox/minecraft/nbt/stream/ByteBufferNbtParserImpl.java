@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * {@link NbtParser} implementation that reads NBT data directly from a heap or direct {@code
+ * ByteBuffer}. The buffer contents are read using absolute big-endian reads from the position of the
+ * buffer at construction time up to its limit; neither the position nor the byte order of the
+ * caller's buffer is modified, and the data is never copied into an intermediate stream. The parser
+ * can be {@link #reset(ByteBuffer) reset} to read another buffer.
+ */
+public class ByteBufferNbtParserImpl extends AbstractNbtParser {
+
+	private ByteBuffer buffer;
+	private int position;
+	private int start;
+
+	public ByteBufferNbtParserImpl(ByteBuffer buffer) {
+
+		this(buffer, null);
+	}
+
+	public ByteBufferNbtParserImpl(ByteBuffer buffer, Map<String, ?> configuration) {
+
+		super(configuration);
+		this.buffer = buffer.duplicate();
+		this.position = buffer.position();
+		this.start = position;
+	}
+
+	/**
+	 * Creates a parser that reads only the payload of a single value of the given type from the
+	 * buffer, as found after the name of a tag. This allows a subtree of a document to be parsed
+	 * without parsing the data that precedes it.
+	 *
+	 * @param buffer the buffer to read the payload from, starting at its position
+	 * @param payloadType the tag type of the value
+	 * @param configuration the parser configuration, or {@code null} for the defaults
+	 */
+	public ByteBufferNbtParserImpl(ByteBuffer buffer, NbtTagType payloadType,
+			Map<String, ?> configuration) {
+
+		this(buffer, configuration);
+		startPayload(payloadType);
+	}
+
+	@Override
+	public void reset(ByteBuffer buffer) {
+
+		resetState();
+		this.buffer = buffer.duplicate();
+		this.position = buffer.position();
+		this.start = position;
+	}
+
+	/**
+	 * Discards the state of the parser and prepares it to read only the payload of a single value
+	 * of the given type from the remaining contents of the given buffer, in the same way as {@link
+	 * #ByteBufferNbtParserImpl(ByteBuffer, NbtTagType, Map)}. Reusing one parser in this way avoids
+	 * creating a parser and its tag name table for each value.
+	 */
+	public void reset(ByteBuffer buffer, NbtTagType payloadType) {
+
+		reset(buffer);
+		startPayload(payloadType);
+	}
+
+	@Override
+	protected long getStreamOffset() {
+
+		return position - start;
+	}
+
+	@Override
+	protected byte readByte() {
+
+		return buffer.get(position++);
+	}
+
+	@Override
+	protected void readBytes(byte[] array, int count) {
+
+		requireBytes(count);
+		buffer.position(position);
+		buffer.get(array, 0, count);
+		position += count;
+	}
+
+	@Override
+	protected double readDouble() {
+
+		double value = buffer.getDouble(position);
+		position += 8;
+		return value;
+	}
+
+	@Override
+	protected float readFloat() {
+
+		float value = buffer.getFloat(position);
+		position += 4;
+		return value;
+	}
+
+	@Override
+	protected int readInt() {
+
+		int value = buffer.getInt(position);
+		position += 4;
+		return value;
+	}
+
+	@Override
+	protected void readInts(int[] array, int count) {
+
+		requireBytes(count * 4);
+		buffer.position(position);
+		buffer.asIntBuffer().get(array, 0, count);
+		position += count * 4;
+	}
+
+	@Override
+	protected void readLazyString(StringView view) {
+
+		int length = readStringLength();
+		view.set(buffer, position, length);
+		position += length;
+	}
+
+	@Override
+	protected long readLong() {
+
+		long value = buffer.getLong(position);
+		position += 8;
+		return value;
+	}
+
+	@Override
+	protected short readShort() {
+
+		short value = buffer.getShort(position);
+		position += 2;
+		return value;
+	}
+
+	@Override
+	protected String readName() {
+
+		int length = readStringLength();
+		int offset = position;
+		position += length;
+		return (names != null) ? names.get(buffer, offset, length)
+				: decoder.decode(buffer, offset, length);
+	}
+
+	@Override
+	protected String readString() {
+
+		int length = readStringLength();
+		int offset = position;
+		position += length;
+		return decoder.decode(buffer, offset, length);
+	}
+
+	/**
+	 * Verifies that {@code count} bytes remain in the buffer, so that bulk reads of truncated input
+	 * fail in the same way as the absolute reads do.
+	 *
+	 * @throws IndexOutOfBoundsException if the buffer ends before the bytes do
+	 */
+	@Override
+	protected void requireBytes(int count) {
+
+		if(count > buffer.limit() - position) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	@Override
+	protected void skipBytes(int count) {
+
+		requireBytes(count);
+		position += count;
+	}
+
+	/**
+	 * Reads the length prefix of a string, verifying that the string data lies within the buffer.
+	 */
+	private int readStringLength() {
+
+		int length = buffer.getShort(position) & 0xFFFF;
+		position += 2;
+		requireBytes(length);
+		return length;
+	}
+}
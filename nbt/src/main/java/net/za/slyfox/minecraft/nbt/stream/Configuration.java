@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.util.Map;
+
+/**
+ * Helpers for reading values from the configuration maps passed to parser and reader factories.
+ * Values may be given in their boxed form or as strings.
+ */
+public final class Configuration {
+
+	private Configuration() { }
+
+	public static boolean getBoolean(Map<String, ?> configuration, String key,
+			boolean defaultValue) {
+
+		Object value = (configuration != null) ? configuration.get(key) : null;
+		if(value == null) {
+			return defaultValue;
+		} else if(value instanceof Boolean) {
+			return (Boolean)value;
+		} else {
+			return Boolean.parseBoolean(value.toString());
+		}
+	}
+
+	public static int getInt(Map<String, ?> configuration, String key, int defaultValue) {
+
+		Object value = (configuration != null) ? configuration.get(key) : null;
+		if(value == null) {
+			return defaultValue;
+		} else if(value instanceof Number) {
+			return ((Number)value).intValue();
+		} else {
+			return Integer.parseInt(value.toString());
+		}
+	}
+}
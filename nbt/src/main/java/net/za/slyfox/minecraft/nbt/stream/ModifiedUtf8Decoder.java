@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+
+/**
+ * Decodes modified UTF-8 string data, as written by {@link java.io.DataOutput#writeUTF}, from byte
+ * arrays or buffers. Each decoder keeps a reusable character buffer, so instances must not be shared
+ * between threads.
+ *
+ * <p>Almost all NBT strings are pure ASCII, so the input is first scanned eight bytes at a time for
+ * bytes with the high bit set. An ASCII prefix is copied without per-character branching, and a
+ * string that is entirely ASCII is handed straight to the {@code String} constructor as ISO-8859-1,
+ * which is a plain copy.</p>
+ */
+final class ModifiedUtf8Decoder {
+
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	private char[] chars = new char[64];
+
+	String decode(byte[] bytes, int offset, int length) {
+
+		final int end = offset + length;
+		int ascii = asciiPrefixLength(bytes, offset, length);
+		if(ascii == length) {
+			return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+		}
+		final char[] chars = ensureCapacity(length);
+		int count = 0;
+		while(count < ascii) {
+			chars[count++] = (char)bytes[offset++];
+		}
+		while(offset < end) {
+			int a = bytes[offset++] & 0xFF;
+			if(a < 0x80) {
+				chars[count++] = (char)a;
+			} else if((a & 0xE0) == 0xC0) {
+				if(offset >= end) {
+					throw malformed(offset);
+				}
+				int b = bytes[offset++];
+				if((b & 0xC0) != 0x80) {
+					throw malformed(offset);
+				}
+				chars[count++] = (char)(((a & 0x1F) << 6) | (b & 0x3F));
+			} else if((a & 0xF0) == 0xE0) {
+				if(offset + 1 >= end) {
+					throw malformed(offset);
+				}
+				int b = bytes[offset++];
+				int c = bytes[offset++];
+				if(((b & 0xC0) != 0x80) || ((c & 0xC0) != 0x80)) {
+					throw malformed(offset);
+				}
+				chars[count++] = (char)(((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F));
+			} else {
+				throw malformed(offset);
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	String decode(ByteBuffer buffer, int offset, int length) {
+
+		final int end = offset + length;
+		int ascii = asciiPrefixLength(buffer, offset, length);
+		if((ascii == length) && buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + offset, length,
+					StandardCharsets.ISO_8859_1);
+		}
+		final char[] chars = ensureCapacity(length);
+		int count = 0;
+		while(count < ascii) {
+			chars[count++] = (char)buffer.get(offset++);
+		}
+		while(offset < end) {
+			int a = buffer.get(offset++) & 0xFF;
+			if(a < 0x80) {
+				chars[count++] = (char)a;
+			} else if((a & 0xE0) == 0xC0) {
+				if(offset >= end) {
+					throw malformed(offset);
+				}
+				int b = buffer.get(offset++);
+				if((b & 0xC0) != 0x80) {
+					throw malformed(offset);
+				}
+				chars[count++] = (char)(((a & 0x1F) << 6) | (b & 0x3F));
+			} else if((a & 0xF0) == 0xE0) {
+				if(offset + 1 >= end) {
+					throw malformed(offset);
+				}
+				int b = buffer.get(offset++);
+				int c = buffer.get(offset++);
+				if(((b & 0xC0) != 0x80) || ((c & 0xC0) != 0x80)) {
+					throw malformed(offset);
+				}
+				chars[count++] = (char)(((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F));
+			} else {
+				throw malformed(offset);
+			}
+		}
+		return new String(chars, 0, count);
+	}
+
+	/**
+	 * Returns the number of leading bytes in the given range that are ASCII characters.
+	 */
+	static int asciiPrefixLength(byte[] bytes, int offset, int length) {
+
+		int i = 0;
+		for(; i + 8 <= length; i += 8) {
+			int p = offset + i;
+			if(((bytes[p] | bytes[p + 1] | bytes[p + 2] | bytes[p + 3] | bytes[p + 4]
+					| bytes[p + 5] | bytes[p + 6] | bytes[p + 7]) & 0x80) != 0) {
+				break;
+			}
+		}
+		for(; i < length; ++i) {
+			if(bytes[offset + i] < 0) {
+				break;
+			}
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the number of leading bytes in the given range that are ASCII characters.
+	 */
+	static int asciiPrefixLength(ByteBuffer buffer, int offset, int length) {
+
+		int i = 0;
+		for(; i + 8 <= length; i += 8) {
+			if((buffer.getLong(offset + i) & HIGH_BITS) != 0) {
+				break;
+			}
+		}
+		for(; i < length; ++i) {
+			if(buffer.get(offset + i) < 0) {
+				break;
+			}
+		}
+		return i;
+	}
+
+	private char[] ensureCapacity(int length) {
+
+		if(chars.length < length) {
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+		return chars;
+	}
+
+	private static NbtException malformed(int offset) {
+
+		return new NbtException("Malformed modified UTF-8 string data near offset " + offset);
+	}
+}
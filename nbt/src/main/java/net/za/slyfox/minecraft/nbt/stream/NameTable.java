@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Bounded symbol table that maps the raw modified UTF-8 bytes of tag names to canonical {@code
+ * String} instances. Lookups hash the encoded bytes in place, so a hit neither decodes nor
+ * allocates. The table is an open-addressing hash table that grows up to a fixed number of entries.
+ * Once it is full, the next name that is not found clears the table before it is cached, so that
+ * a parser that is reused for many documents caches the names of recent documents rather than
+ * those of the first. Names longer than {@link #MAX_NAME_LENGTH} bytes are decoded without being
+ * cached, so the memory held by the table is bounded regardless of the input.
+ */
+final class NameTable {
+
+	static final int MAX_NAME_LENGTH = 64;
+
+	private final ModifiedUtf8Decoder decoder;
+	private int[] hashes = new int[64];
+	private byte[][] keys = new byte[64][];
+	private final int maxEntries;
+	private int size;
+	private String[] values = new String[64];
+
+	NameTable(int maxEntries, ModifiedUtf8Decoder decoder) {
+
+		this.decoder = decoder;
+		this.maxEntries = maxEntries;
+	}
+
+	String get(byte[] bytes, int offset, int length) {
+
+		if(length > MAX_NAME_LENGTH) {
+			return decoder.decode(bytes, offset, length);
+		}
+		int hash = 0;
+		for(int i = 0; i < length; ++i) {
+			hash = 31 * hash + bytes[offset + i];
+		}
+		hash = mix(hash);
+
+		int mask = keys.length - 1;
+		for(int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			if((hashes[slot] == hash) && matches(keys[slot], bytes, offset, length)) {
+				return values[slot];
+			}
+		}
+
+		String name = decoder.decode(bytes, offset, length);
+		insert(hash, Arrays.copyOfRange(bytes, offset, offset + length), name);
+		return name;
+	}
+
+	String get(ByteBuffer buffer, int offset, int length) {
+
+		if(length > MAX_NAME_LENGTH) {
+			return decoder.decode(buffer, offset, length);
+		}
+		int hash = 0;
+		for(int i = 0; i < length; ++i) {
+			hash = 31 * hash + buffer.get(offset + i);
+		}
+		hash = mix(hash);
+
+		int mask = keys.length - 1;
+		for(int slot = hash & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+			if((hashes[slot] == hash) && matches(keys[slot], buffer, offset, length)) {
+				return values[slot];
+			}
+		}
+
+		String name = decoder.decode(buffer, offset, length);
+		byte[] key = new byte[length];
+		for(int i = 0; i < length; ++i) {
+			key[i] = buffer.get(offset + i);
+		}
+		insert(hash, key, name);
+		return name;
+	}
+
+	/**
+	 * Adds a name that is not in the table, clearing the table first if it is full.
+	 */
+	private void insert(int hash, byte[] key, String name) {
+
+		if(size >= maxEntries) {
+			Arrays.fill(keys, null);
+			Arrays.fill(values, null);
+			size = 0;
+		}
+		if((size + 1) * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+		int mask = keys.length - 1;
+		int slot = hash & mask;
+		while(keys[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+		hashes[slot] = hash;
+		keys[slot] = key;
+		values[slot] = name;
+		++size;
+	}
+
+	private void rehash(int capacity) {
+
+		int[] oldHashes = hashes;
+		byte[][] oldKeys = keys;
+		String[] oldValues = values;
+		hashes = new int[capacity];
+		keys = new byte[capacity][];
+		values = new String[capacity];
+
+		int mask = capacity - 1;
+		for(int i = 0; i < oldKeys.length; ++i) {
+			if(oldKeys[i] != null) {
+				int slot = oldHashes[i] & mask;
+				while(keys[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[i];
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private static boolean matches(byte[] key, byte[] bytes, int offset, int length) {
+
+		if(key.length != length) {
+			return false;
+		}
+		for(int i = 0; i < length; ++i) {
+			if(key[i] != bytes[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean matches(byte[] key, ByteBuffer buffer, int offset, int length) {
+
+		if(key.length != length) {
+			return false;
+		}
+		for(int i = 0; i < length; ++i) {
+			if(key[i] != buffer.get(offset + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int mix(int hash) {
+
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		return hash ^ (hash >>> 13);
+	}
+}
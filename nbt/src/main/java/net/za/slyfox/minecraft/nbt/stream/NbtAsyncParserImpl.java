@@ -0,0 +1,324 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+
+/**
+ * {@link NbtAsyncParser} implementation that accumulates fed input in a growable internal buffer.
+ * Each token is parsed from the buffer as in {@link ByteBufferNbtParserImpl}; when a read runs past
+ * the end of the input fed so far, the parser rewinds to the start of the token and reports {@link
+ * NbtParser.Event#NEED_MORE_INPUT}. Skips advance one token at a time in the same way, and skip the
+ * contents of strings and arrays as they are fed. Consumed input is discarded when more input is
+ * fed, so the buffer only needs to hold the largest single token, or the largest bulk array.
+ */
+public class NbtAsyncParserImpl extends AbstractNbtParser implements NbtAsyncParser {
+
+	private static final int INITIAL_CAPACITY = 4096;
+
+	private ByteBuffer buffer;
+	private byte[] data = new byte[INITIAL_CAPACITY];
+	private long discarded;
+	private boolean endOfInput;
+	private int limit;
+	/** Position of the start of the token being read. */
+	private int mark;
+	private int position;
+
+	public NbtAsyncParserImpl() {
+
+		this(null);
+	}
+
+	public NbtAsyncParserImpl(Map<String, ?> configuration) {
+
+		super(configuration);
+		this.buffer = ByteBuffer.wrap(data);
+	}
+
+	/**
+	 * Visits the document, which must already have been fed in full, as a visitor cannot be suspended
+	 * to wait for more input.
+	 *
+	 * @throws NbtException when the input fed so far ends before the document does
+	 */
+	@Override
+	public void accept(NbtVisitor visitor) {
+
+		try {
+			super.accept(visitor);
+		} catch(InputUnderflowException e) {
+			throw new NbtException("The document has not been fed in full");
+		}
+	}
+
+	@Override
+	public void endOfInput() {
+
+		endOfInput = true;
+	}
+
+	@Override
+	public void feedInput(ByteBuffer input) {
+
+		if(endOfInput) {
+			throw new IllegalStateException("End of input has already been signalled");
+		}
+		int count = input.remaining();
+		if(position > 0) {
+			discarded += position;
+			System.arraycopy(data, position, data, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		if(limit + count > data.length) {
+			data = Arrays.copyOf(data, Math.max(limit + count, data.length * 2));
+			buffer = ByteBuffer.wrap(data);
+		}
+		input.get(data, limit, count);
+		limit += count;
+	}
+
+	@Override
+	public boolean needsInput() {
+
+		return position == limit;
+	}
+
+	@Override
+	public Event next() {
+
+		try {
+			skipPendingArray();
+			resumeSkip();
+			return super.next();
+		} catch(InputUnderflowException e) {
+			position = mark;
+			return Event.NEED_MORE_INPUT;
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		}
+	}
+
+	/**
+	 * Discards the state of the parser and any input fed to it, keeping its internal buffer, and
+	 * feeds the remaining contents of the given buffer as the first input for the next document.
+	 */
+	@Override
+	public void reset(ByteBuffer input) {
+
+		resetState();
+		discarded = 0;
+		endOfInput = false;
+		limit = 0;
+		mark = 0;
+		position = 0;
+		feedInput(input.duplicate());
+	}
+
+	/**
+	 * Skips the children of the current compound as far as the input fed so far allows. The rest of
+	 * the skip is completed by the following calls to {@link #next()}.
+	 */
+	@Override
+	public void skipChildren() {
+
+		try {
+			super.skipChildren();
+		} catch(InputUnderflowException e) {
+			position = mark;
+		}
+	}
+
+	/**
+	 * Skips the current value as far as the input fed so far allows. The rest of the skip is
+	 * completed by the following calls to {@link #next()}.
+	 */
+	@Override
+	public void skipValue() {
+
+		try {
+			super.skipValue();
+		} catch(InputUnderflowException e) {
+			position = mark;
+		}
+	}
+
+	/**
+	 * Returns the capacity of the internal buffer.
+	 */
+	int getCapacity() {
+
+		return data.length;
+	}
+
+	@Override
+	protected long getStreamOffset() {
+
+		return discarded + position;
+	}
+
+	@Override
+	protected byte readByte() {
+
+		require(1);
+		return data[position++];
+	}
+
+	@Override
+	protected void readBytes(byte[] array, int count) {
+
+		require(count);
+		System.arraycopy(data, position, array, 0, count);
+		position += count;
+	}
+
+	@Override
+	protected void markToken() {
+
+		mark = position;
+	}
+
+	@Override
+	protected double readDouble() {
+
+		require(8);
+		double value = buffer.getDouble(position);
+		position += 8;
+		return value;
+	}
+
+	@Override
+	protected float readFloat() {
+
+		require(4);
+		float value = buffer.getFloat(position);
+		position += 4;
+		return value;
+	}
+
+	@Override
+	protected int readInt() {
+
+		require(4);
+		int value = buffer.getInt(position);
+		position += 4;
+		return value;
+	}
+
+	@Override
+	protected void readInts(int[] array, int count) {
+
+		require(count * 4);
+		buffer.position(position);
+		buffer.asIntBuffer().get(array, 0, count);
+		position += count * 4;
+	}
+
+	@Override
+	protected void readLazyString(StringView view) {
+
+		int length = readStringLength();
+		view.set(data, position, length);
+		position += length;
+	}
+
+	@Override
+	protected long readLong() {
+
+		require(8);
+		long value = buffer.getLong(position);
+		position += 8;
+		return value;
+	}
+
+	@Override
+	protected String readName() {
+
+		int length = readStringLength();
+		int offset = position;
+		position += length;
+		return (names != null) ? names.get(data, offset, length) : decoder.decode(data, offset, length);
+	}
+
+	@Override
+	protected short readShort() {
+
+		require(2);
+		short value = buffer.getShort(position);
+		position += 2;
+		return value;
+	}
+
+	@Override
+	protected String readString() {
+
+		int length = readStringLength();
+		int offset = position;
+		position += length;
+		return decoder.decode(data, offset, length);
+	}
+
+	@Override
+	protected void requireBytes(int count) {
+
+		require(count);
+	}
+
+	@Override
+	protected int skipAvailable(int count) {
+
+		require(1);
+		int skipped = Math.min(count, limit - position);
+		position += skipped;
+		return skipped;
+	}
+
+	@Override
+	protected void skipBytes(int count) {
+
+		require(count);
+		position += count;
+	}
+
+	/**
+	 * Verifies that {@code count} bytes of input are available from the current position.
+	 *
+	 * @throws InputUnderflowException if the bytes have not been fed yet
+	 * @throws IndexOutOfBoundsException if the bytes will never be fed
+	 */
+	private void require(int count) {
+
+		if(limit - position < count) {
+			if(endOfInput) {
+				throw new IndexOutOfBoundsException();
+			}
+			throw InputUnderflowException.INSTANCE;
+		}
+	}
+
+	private int readStringLength() {
+
+		require(2);
+		int length = ((data[position] & 0xFF) << 8) | (data[position + 1] & 0xFF);
+		position += 2;
+		require(length);
+		return length;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.Map;
+
+public class NbtGeneratorFactoryImpl implements NbtGeneratorFactory {
+
+	private final Map<String, ?> configuration;
+
+	public NbtGeneratorFactoryImpl(Map<String, ?> configuration) {
+
+		this.configuration = Collections.singletonMap(NbtGenerator.BUFFER_SIZE, Configuration.getInt(
+				configuration, NbtGenerator.BUFFER_SIZE, NbtGeneratorImpl.DEFAULT_BUFFER_SIZE));
+	}
+
+	@Override
+	public NbtGenerator createGenerator(OutputStream outputStream) {
+
+		return new NbtGeneratorImpl(outputStream, configuration);
+	}
+
+	@Override
+	public NbtGenerator createGenerator(WritableByteChannel channel) {
+
+		return new NbtGeneratorImpl(channel, configuration);
+	}
+
+	@Override
+	public Map<String, ?> getConfigInUse() {
+
+		return configuration;
+	}
+}
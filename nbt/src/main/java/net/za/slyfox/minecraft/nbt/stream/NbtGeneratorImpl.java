@@ -0,0 +1,503 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+
+/**
+ * {@link NbtGenerator} implementation that encodes tags into a reusable internal buffer, which is
+ * written to an {@code OutputStream} or a {@code WritableByteChannel} in blocks of the buffer size.
+ * Numbers and strings are encoded directly into the buffer, so writing a value does not allocate.
+ */
+public class NbtGeneratorImpl implements NbtGenerator {
+
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final byte[] buffer;
+	private final ByteBuffer bufferView;
+	private final WritableByteChannel channel;
+	private boolean closed;
+	private final OutputStream outputStream;
+	private int position;
+	private boolean rootWritten;
+	private final Stack stack = new Stack();
+
+	public NbtGeneratorImpl(OutputStream outputStream) {
+
+		this(outputStream, null);
+	}
+
+	public NbtGeneratorImpl(OutputStream outputStream, Map<String, ?> configuration) {
+
+		this(outputStream, null, configuration);
+	}
+
+	public NbtGeneratorImpl(WritableByteChannel channel, Map<String, ?> configuration) {
+
+		this(null, channel, configuration);
+	}
+
+	private NbtGeneratorImpl(OutputStream outputStream, WritableByteChannel channel,
+			Map<String, ?> configuration) {
+
+		int bufferSize = Configuration.getInt(configuration, BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+		if(bufferSize < 16) {
+			throw new IllegalArgumentException("Buffer size must be at least 16 bytes");
+		}
+		this.buffer = new byte[bufferSize];
+		this.bufferView = (channel != null) ? ByteBuffer.wrap(buffer) : null;
+		this.channel = channel;
+		this.outputStream = outputStream;
+	}
+
+	@Override
+	public void close() {
+
+		if(closed) {
+			return;
+		}
+		closed = true;
+		try {
+			flushBuffer();
+			if(outputStream != null) {
+				outputStream.close();
+			} else {
+				channel.close();
+			}
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		}
+		if(stack.size > 0) {
+			throw new NbtException("Incomplete NBT data: " + stack.size + " containers not closed");
+		}
+	}
+
+	@Override
+	public void flush() {
+
+		try {
+			flushBuffer();
+			if(outputStream != null) {
+				outputStream.flush();
+			}
+		} catch(IOException e) {
+			throw new NbtException("I/O error", e);
+		}
+	}
+
+	@Override
+	public NbtGenerator writeByte(byte value) {
+
+		beginElement(NbtTagType.BYTE);
+		putByte(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeByte(String name, byte value) {
+
+		beginNamed(NbtTagType.BYTE, name);
+		putByte(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeByteArray(byte[] value) {
+
+		beginElement(NbtTagType.BYTE_ARRAY);
+		putByteArray(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeByteArray(String name, byte[] value) {
+
+		beginNamed(NbtTagType.BYTE_ARRAY, name);
+		putByteArray(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeDouble(double value) {
+
+		beginElement(NbtTagType.DOUBLE);
+		putLong(Double.doubleToRawLongBits(value));
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeDouble(String name, double value) {
+
+		beginNamed(NbtTagType.DOUBLE, name);
+		putLong(Double.doubleToRawLongBits(value));
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeEnd() {
+
+		if(stack.size == 0) {
+			throw new IllegalStateException("No open compound or list to end");
+		}
+		int top = stack.size - 1;
+		if(stack.type[top] == NbtTagType.COMPOUND) {
+			putByte(NbtTagType.END.id);
+		} else if(stack.remaining[top] > 0) {
+			throw new IllegalStateException(stack.remaining[top]
+					+ " elements of the list have not been written");
+		}
+		--stack.size;
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeFloat(float value) {
+
+		beginElement(NbtTagType.FLOAT);
+		putInt(Float.floatToRawIntBits(value));
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeFloat(String name, float value) {
+
+		beginNamed(NbtTagType.FLOAT, name);
+		putInt(Float.floatToRawIntBits(value));
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeInt(int value) {
+
+		beginElement(NbtTagType.INT);
+		putInt(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeInt(String name, int value) {
+
+		beginNamed(NbtTagType.INT, name);
+		putInt(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeIntArray(int[] value) {
+
+		beginElement(NbtTagType.INT_ARRAY);
+		putIntArray(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeIntArray(String name, int[] value) {
+
+		beginNamed(NbtTagType.INT_ARRAY, name);
+		putIntArray(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeLong(long value) {
+
+		beginElement(NbtTagType.LONG);
+		putLong(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeLong(String name, long value) {
+
+		beginNamed(NbtTagType.LONG, name);
+		putLong(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeShort(short value) {
+
+		beginElement(NbtTagType.SHORT);
+		putShort(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeShort(String name, short value) {
+
+		beginNamed(NbtTagType.SHORT, name);
+		putShort(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeStartCompound() {
+
+		beginElement(NbtTagType.COMPOUND);
+		stack.push(NbtTagType.COMPOUND, null, 0);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeStartCompound(String name) {
+
+		if((stack.size == 0) && !rootWritten) {
+			rootWritten = true;
+			putByte(NbtTagType.COMPOUND.id);
+			putString(name);
+		} else {
+			beginNamed(NbtTagType.COMPOUND, name);
+		}
+		stack.push(NbtTagType.COMPOUND, null, 0);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeStartList(NbtTagType elementType, int size) {
+
+		beginElement(NbtTagType.LIST);
+		putListHeader(elementType, size);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeStartList(String name, NbtTagType elementType, int size) {
+
+		beginNamed(NbtTagType.LIST, name);
+		putListHeader(elementType, size);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeString(String value) {
+
+		beginElement(NbtTagType.STRING);
+		putString(value);
+		return this;
+	}
+
+	@Override
+	public NbtGenerator writeString(String name, String value) {
+
+		beginNamed(NbtTagType.STRING, name);
+		putString(value);
+		return this;
+	}
+
+	/**
+	 * Verifies that a value of the given type may be written as the next element of the innermost
+	 * list, and counts it against the declared size of the list.
+	 */
+	private void beginElement(NbtTagType type) {
+
+		int top = stack.size - 1;
+		if((top < 0) || (stack.type[top] != NbtTagType.LIST)) {
+			throw new IllegalStateException("Unnamed " + type + " values may only be written in a list");
+		}
+		if(stack.elementType[top] != type) {
+			throw new IllegalStateException("Cannot write " + type + " value to a list of "
+					+ stack.elementType[top]);
+		}
+		if(stack.remaining[top] == 0) {
+			throw new IllegalStateException("All elements of the list have already been written");
+		}
+		--stack.remaining[top];
+	}
+
+	/**
+	 * Verifies that a named tag may be written in the current context, and writes its type and name.
+	 */
+	private void beginNamed(NbtTagType type, String name) {
+
+		if((stack.size == 0) || (stack.type[stack.size - 1] != NbtTagType.COMPOUND)) {
+			throw new IllegalStateException("Named " + type + " tags may only be written in a compound");
+		}
+		putByte(type.id);
+		putString(name);
+	}
+
+	/**
+	 * Writes the buffered output to the output source, and empties the buffer.
+	 */
+	private void flushBuffer() throws IOException {
+
+		if(position == 0) {
+			return;
+		}
+		if(outputStream != null) {
+			outputStream.write(buffer, 0, position);
+		} else {
+			bufferView.clear();
+			bufferView.limit(position);
+			while(bufferView.hasRemaining()) {
+				channel.write(bufferView);
+			}
+		}
+		position = 0;
+	}
+
+	private void putByte(byte value) {
+
+		require(1);
+		buffer[position++] = value;
+	}
+
+	private void putByteArray(byte[] value) {
+
+		putInt(value.length);
+		int offset = 0;
+		while(offset < value.length) {
+			if(position == buffer.length) {
+				require(buffer.length);
+			}
+			int count = Math.min(value.length - offset, buffer.length - position);
+			System.arraycopy(value, offset, buffer, position, count);
+			position += count;
+			offset += count;
+		}
+	}
+
+	private void putInt(int value) {
+
+		require(4);
+		buffer[position] = (byte)(value >>> 24);
+		buffer[position + 1] = (byte)(value >>> 16);
+		buffer[position + 2] = (byte)(value >>> 8);
+		buffer[position + 3] = (byte)value;
+		position += 4;
+	}
+
+	private void putIntArray(int[] value) {
+
+		putInt(value.length);
+		for(int element : value) {
+			putInt(element);
+		}
+	}
+
+	private void putListHeader(NbtTagType elementType, int size) {
+
+		if(size < 0) {
+			throw new IllegalArgumentException("Negative list size " + size);
+		}
+		putByte(elementType.id);
+		putInt(size);
+		stack.push(NbtTagType.LIST, elementType, size);
+	}
+
+	private void putLong(long value) {
+
+		putInt((int)(value >>> 32));
+		putInt((int)value);
+	}
+
+	private void putShort(short value) {
+
+		require(2);
+		buffer[position] = (byte)(value >>> 8);
+		buffer[position + 1] = (byte)value;
+		position += 2;
+	}
+
+	/**
+	 * Writes a string in the modified UTF-8 encoding used by NBT, preceded by its encoded length.
+	 */
+	private void putString(String value) {
+
+		int length = value.length();
+		int encodedLength = length;
+		for(int i = 0; i < length; ++i) {
+			char c = value.charAt(i);
+			if((c == 0) || (c >= 0x80)) {
+				encodedLength += (c >= 0x800) ? 2 : 1;
+			}
+		}
+		if(encodedLength > 0xFFFF) {
+			throw new NbtException("Encoded string length " + encodedLength + " exceeds 65535 bytes");
+		}
+		putShort((short)encodedLength);
+		if((encodedLength == length) && (length <= buffer.length)) {
+			require(length);
+			for(int i = 0; i < length; ++i) {
+				buffer[position + i] = (byte)value.charAt(i);
+			}
+			position += length;
+			return;
+		}
+		for(int i = 0; i < length; ++i) {
+			char c = value.charAt(i);
+			if((c != 0) && (c < 0x80)) {
+				require(1);
+				buffer[position++] = (byte)c;
+			} else if(c < 0x800) {
+				require(2);
+				buffer[position++] = (byte)(0xC0 | (c >> 6));
+				buffer[position++] = (byte)(0x80 | (c & 0x3F));
+			} else {
+				require(3);
+				buffer[position++] = (byte)(0xE0 | (c >> 12));
+				buffer[position++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+				buffer[position++] = (byte)(0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	/**
+	 * Ensures that at least {@code count} bytes, which must not exceed the buffer size, can be
+	 * written to the buffer, flushing it if necessary.
+	 */
+	private void require(int count) {
+
+		if(buffer.length - position < count) {
+			try {
+				flushBuffer();
+			} catch(IOException e) {
+				throw new NbtException("I/O error", e);
+			}
+		}
+	}
+
+	/**
+	 * Array-backed stack of the containers that are currently open, as in {@link AbstractNbtParser}.
+	 * Element type and remaining element count are only meaningful for lists.
+	 */
+	private static final class Stack {
+
+		NbtTagType[] elementType = new NbtTagType[16];
+		int[] remaining = new int[16];
+		int size;
+		NbtTagType[] type = new NbtTagType[16];
+
+		void push(NbtTagType containerType, NbtTagType containerElementType, int count) {
+
+			if(size == type.length) {
+				int capacity = size * 2;
+				elementType = Arrays.copyOf(elementType, capacity);
+				remaining = Arrays.copyOf(remaining, capacity);
+				type = Arrays.copyOf(type, capacity);
+			}
+			type[size] = containerType;
+			elementType[size] = containerElementType;
+			remaining[size] = count;
+			++size;
+		}
+	}
+}
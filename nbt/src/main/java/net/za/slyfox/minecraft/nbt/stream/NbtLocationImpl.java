@@ -16,6 +16,7 @@ package net.za.slyfox.minecraft.nbt.stream;
 public class NbtLocationImpl implements NbtLocation {
 
 	private int depth;
+	private long streamOffset = -1;
 
 	public void decrementDepth() {
 
@@ -28,6 +29,12 @@ public class NbtLocationImpl implements NbtLocation {
 		return depth;
 	}
 
+	@Override
+	public long getStreamOffset() {
+
+		return streamOffset;
+	}
+
 	public void incrementDepth() {
 
 		++depth;
@@ -37,4 +44,9 @@ public class NbtLocationImpl implements NbtLocation {
 
 		this.depth = depth;
 	}
+
+	public void setStreamOffset(long streamOffset) {
+
+		this.streamOffset = streamOffset;
+	}
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NbtParserFactoryImpl implements NbtParserFactory {
+
+	private final Map<String, ?> configuration;
+
+	public NbtParserFactoryImpl(Map<String, ?> configuration) {
+
+		Map<String, Object> configInUse = new HashMap<>();
+		configInUse.put(NbtParser.BUFFER_SIZE,
+				Configuration.getInt(configuration, NbtParser.BUFFER_SIZE, 0));
+		configInUse.put(NbtParser.BULK_ARRAYS,
+				Configuration.getBoolean(configuration, NbtParser.BULK_ARRAYS, false));
+		configInUse.put(NbtParser.LAZY_STRINGS,
+				Configuration.getBoolean(configuration, NbtParser.LAZY_STRINGS, false));
+		configInUse.put(NbtParser.MAX_ARRAY_LENGTH, Configuration.getInt(configuration,
+				NbtParser.MAX_ARRAY_LENGTH, AbstractNbtParser.DEFAULT_MAX_ARRAY_LENGTH));
+		configInUse.put(NbtParser.MAX_DEPTH, Configuration.getInt(configuration,
+				NbtParser.MAX_DEPTH, AbstractNbtParser.DEFAULT_MAX_DEPTH));
+		configInUse.put(NbtParser.NAME_CACHE_SIZE, Configuration.getInt(configuration,
+				NbtParser.NAME_CACHE_SIZE, AbstractNbtParser.DEFAULT_NAME_CACHE_SIZE));
+		this.configuration = Collections.unmodifiableMap(configInUse);
+	}
+
+	@Override
+	public NbtAsyncParser createAsyncParser() {
+
+		return new NbtAsyncParserImpl(configuration);
+	}
+
+	@Override
+	public NbtParser createParser(InputStream inputStream) {
+
+		return new NbtParserImpl(inputStream, configuration);
+	}
+
+	@Override
+	public NbtParser createParser(ByteBuffer buffer) {
+
+		return new ByteBufferNbtParserImpl(buffer, configuration);
+	}
+
+	@Override
+	public Map<String, ?> getConfigInUse() {
+
+		return configuration;
+	}
+}
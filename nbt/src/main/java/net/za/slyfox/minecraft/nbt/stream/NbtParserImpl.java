@@ -13,89 +13,187 @@
  */
 package net.za.slyfox.minecraft.nbt.stream;
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
-import java.util.NoSuchElementException;
-import java.util.Queue;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Map;
+
+/**
+ * {@link NbtParser} implementation that reads NBT data from an {@code InputStream}. The parser can be
+ * {@link #reset(InputStream) reset} to read another stream, in which case its read buffer is kept
+ * and any data read ahead from the previous stream is discarded.
+ */
+public class NbtParserImpl extends AbstractNbtParser {
+
+	private final ResettableBufferedInputStream bufferedStream;
+	private final ResettableDataInputStream inputStream;
+	private IntBuffer intView;
+	private byte[] scratch = new byte[0];
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+	public NbtParserImpl(InputStream inputStream) {
 
-import net.za.slyfox.minecraft.nbt.NbtException;
+		this(inputStream, null);
+	}
 
-public class NbtParserImpl implements NbtParser {
+	public NbtParserImpl(InputStream inputStream, Map<String, ?> configuration) {
 
-	private final Queue<Action> actions = new LinkedList<>();
-	private ActionResult actionResult;
-	private final NbtLocationImpl location = new NbtLocationImpl();
-	private final Logger log = LoggerFactory.getLogger(getClass());
+		super(configuration);
+		int bufferSize = Configuration.getInt(configuration, BUFFER_SIZE, 0);
+		this.bufferedStream = (bufferSize > 0)
+				? new ResettableBufferedInputStream(inputStream, bufferSize) : null;
+		this.inputStream = new ResettableDataInputStream((bufferedStream != null)
+				? bufferedStream : inputStream);
+	}
 
-	public NbtParserImpl(InputStream inputStream) {
+	@Override
+	public void reset(InputStream inputStream) {
 
-		DataInputStream dataInputStream = new DataInputStream(inputStream);
-		actions.add(new ReadTagTypeAction(dataInputStream));
-		actions.add(new ReadStringAction(dataInputStream, true));
-		actions.add(new ParseCompoundAction(dataInputStream));
+		resetState();
+		if(bufferedStream != null) {
+			bufferedStream.setInput(inputStream);
+		} else {
+			this.inputStream.setInput(inputStream);
+		}
 	}
 
 	@Override
-	public void close() throws IOException {
+	protected byte readByte() throws IOException {
 
+		return inputStream.readByte();
 	}
 
 	@Override
-	public NbtLocation getLocation() {
+	protected void readBytes(byte[] array, int count) throws IOException {
 
-		Action action = actions.peek();
-		if(action instanceof ParseCompoundAction) {
-			location.setDepth(((ParseCompoundAction)action).getDepth());
-		} else {
-			location.setDepth(0);
+		inputStream.readFully(array, 0, count);
+	}
+
+	@Override
+	protected double readDouble() throws IOException {
+
+		return inputStream.readDouble();
+	}
+
+	@Override
+	protected float readFloat() throws IOException {
+
+		return inputStream.readFloat();
+	}
+
+	@Override
+	protected int readInt() throws IOException {
+
+		return inputStream.readInt();
+	}
+
+	@Override
+	protected void readInts(int[] array, int count) throws IOException {
+
+		int length = count * 4;
+		ensureScratch(length);
+		inputStream.readFully(scratch, 0, length);
+		if(count > 0) {
+			intView.clear();
+			intView.get(array, 0, count);
 		}
-		return location;
 	}
 
 	@Override
-	public Number getNumber() {
+	protected void readLazyString(StringView view) throws IOException {
 
-		return actionResult.getNumber();
+		int length = inputStream.readUnsignedShort();
+		ensureScratch(length);
+		inputStream.readFully(scratch, 0, length);
+		view.set(scratch, 0, length);
 	}
 
 	@Override
-	public String getString() {
+	protected long readLong() throws IOException {
 
-		return actionResult.getString();
+		return inputStream.readLong();
 	}
 
 	@Override
-	public NbtTagType getTagType() {
+	protected short readShort() throws IOException {
 
-		return actionResult.getTagType();
+		return inputStream.readShort();
 	}
 
 	@Override
-	public boolean hasNext() {
+	protected String readName() throws IOException {
 
-		return !actions.isEmpty() && !actions.peek().isComplete();
+		int length = inputStream.readUnsignedShort();
+		ensureScratch(length);
+		inputStream.readFully(scratch, 0, length);
+		return (names != null) ? names.get(scratch, 0, length) : decoder.decode(scratch, 0, length);
 	}
 
 	@Override
-	public Event next() {
+	protected String readString() throws IOException {
+
+		int length = inputStream.readUnsignedShort();
+		ensureScratch(length);
+		inputStream.readFully(scratch, 0, length);
+		return decoder.decode(scratch, 0, length);
+	}
 
-		if(!hasNext()) {
-			throw new NoSuchElementException();
+	@Override
+	protected void skipBytes(int count) throws IOException {
+
+		while(count > 0) {
+			int skipped = inputStream.skipBytes(count);
+			if(skipped == 0) {
+				inputStream.readByte();
+				skipped = 1;
+			}
+			count -= skipped;
 		}
-		Action action = actions.peek();
-		try {
-			actionResult = action.execute();
-		} catch(IOException e) {
-			throw new NbtException("I/O error", e);
+	}
+
+	private void ensureScratch(int length) {
+
+		if(scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+			intView = ByteBuffer.wrap(scratch).asIntBuffer();
 		}
-		if(action.isComplete()) {
-			actions.remove();
+	}
+
+	/**
+	 * Buffered stream whose source can be replaced, discarding the buffered data but keeping the
+	 * buffer.
+	 */
+	private static final class ResettableBufferedInputStream extends BufferedInputStream {
+
+		ResettableBufferedInputStream(InputStream in, int size) {
+
+			super(in, size);
+		}
+
+		void setInput(InputStream input) {
+
+			in = input;
+			count = 0;
+			markpos = -1;
+			pos = 0;
+		}
+	}
+
+	/**
+	 * Data input stream whose source can be replaced.
+	 */
+	private static final class ResettableDataInputStream extends DataInputStream {
+
+		ResettableDataInputStream(InputStream in) {
+
+			super(in);
+		}
+
+		void setInput(InputStream input) {
+
+			in = input;
 		}
-		return actionResult.getEvent();
 	}
 }
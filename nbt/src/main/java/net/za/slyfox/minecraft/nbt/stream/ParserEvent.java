@@ -0,0 +1,215 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+
+/**
+ * Mutable holder for the most recent parser event and its value. A single instance is owned by each
+ * parser and overwritten on every call to {@link NbtParser#next}, so that producing an event does
+ * not allocate. Numeric values are held in primitive fields and only boxed when {@link #getNumber} is
+ * called.
+ */
+final class ParserEvent {
+
+	private CharSequence chars;
+	private int arraySize;
+	private NbtTagType arrayType;
+	private double doubleValue;
+	private Event event;
+	private long longValue;
+	private NbtTagType numberType;
+	private String string;
+	private NbtTagType tagType;
+
+	int getArraySize() {
+
+		return arraySize;
+	}
+
+	NbtTagType getArrayType() {
+
+		return arrayType;
+	}
+
+	public Event getEvent() {
+
+		return event;
+	}
+
+	/**
+	 * Verifies that the current event is {@link Event#VALUE_ARRAY} for an array of the given element
+	 * type, and that {@code length} is large enough to hold its contents.
+	 *
+	 * @return the number of elements in the current array
+	 */
+	int checkArray(NbtTagType elementType, int length) {
+
+		if((event != Event.VALUE_ARRAY) || (arrayType != elementType)) {
+			throw new IllegalStateException("Invalid parser state for " + elementType
+					+ " array contents: " + event);
+		}
+		if(length < arraySize) {
+			throw new IllegalArgumentException("Array of length " + length
+					+ " cannot hold " + arraySize + " elements");
+		}
+		return arraySize;
+	}
+
+	public byte getByte() {
+
+		ensureNumber();
+		return isFloatingPoint() ? (byte)doubleValue : (byte)longValue;
+	}
+
+	public double getDouble() {
+
+		ensureNumber();
+		return isFloatingPoint() ? doubleValue : (double)longValue;
+	}
+
+	public float getFloat() {
+
+		ensureNumber();
+		return isFloatingPoint() ? (float)doubleValue : (float)longValue;
+	}
+
+	public int getInt() {
+
+		ensureNumber();
+		return isFloatingPoint() ? (int)doubleValue : (int)longValue;
+	}
+
+	public long getLong() {
+
+		ensureNumber();
+		return isFloatingPoint() ? (long)doubleValue : longValue;
+	}
+
+	public Number getNumber() {
+
+		ensureNumber();
+		switch(numberType) {
+			case BYTE: return (byte)longValue;
+			case DOUBLE: return doubleValue;
+			case FLOAT: return (float)doubleValue;
+			case INT: return (int)longValue;
+			case LONG: return longValue;
+			case SHORT: return (short)longValue;
+
+			default:
+				throw new IllegalStateException("Unknown number type " + numberType);
+		}
+	}
+
+	public short getShort() {
+
+		ensureNumber();
+		return isFloatingPoint() ? (short)doubleValue : (short)longValue;
+	}
+
+	public CharSequence getCharSequence() {
+
+		ensureString();
+		return chars;
+	}
+
+	public String getString() {
+
+		ensureString();
+		if(string == null) {
+			string = chars.toString();
+		}
+		return string;
+	}
+
+	public NbtTagType getTagType() {
+
+		if((event != Event.TAG_ID) && (event != Event.LIST_TAG_ID)) {
+			throw new IllegalStateException("Invalid parser state for getTagType: " + event);
+		}
+		return tagType;
+	}
+
+	/**
+	 * Clears the current event, so that value accessors fail until the next event is produced.
+	 */
+	void clear() {
+
+		this.event = null;
+	}
+
+	void setArray(NbtTagType elementType, int size) {
+
+		this.event = Event.VALUE_ARRAY;
+		this.arrayType = elementType;
+		this.arraySize = size;
+	}
+
+	void setFloatingPoint(Event event, NbtTagType numberType, double value) {
+
+		this.event = event;
+		this.numberType = numberType;
+		this.doubleValue = value;
+	}
+
+	void setIntegral(Event event, NbtTagType numberType, long value) {
+
+		this.event = event;
+		this.numberType = numberType;
+		this.longValue = value;
+	}
+
+	void setString(Event event, String string) {
+
+		this.event = event;
+		this.string = string;
+		this.chars = string;
+	}
+
+	/**
+	 * Sets a string event whose value is decoded from the given view on demand.
+	 */
+	void setString(Event event, StringView view) {
+
+		this.event = event;
+		this.string = null;
+		this.chars = view;
+	}
+
+	void setTagType(Event event, NbtTagType tagType) {
+
+		this.event = event;
+		this.tagType = tagType;
+	}
+
+	private void ensureString() {
+
+		if((event != Event.TAG_NAME) && (event != Event.VALUE_STRING)) {
+			throw new IllegalStateException("Invalid parser state for string value: " + event);
+		}
+	}
+
+	private void ensureNumber() {
+
+		if((event != Event.ARRAY_SIZE) && (event != Event.VALUE_NUMBER)) {
+			throw new IllegalStateException("Invalid parser state for number value: " + event);
+		}
+	}
+
+	private boolean isFloatingPoint() {
+
+		return (numberType == NbtTagType.FLOAT) || (numberType == NbtTagType.DOUBLE);
+	}
+}
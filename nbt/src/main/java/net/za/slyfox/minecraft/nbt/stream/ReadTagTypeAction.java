@@ -1,54 +0,0 @@
-/*
- * Copyright 2014 Philip Cronje
- *
- * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
- * in compliance with the License. You may obtain a copy of the License at
- *
- *     http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software distributed under the License
- * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
- * or implied. See the License for the specific language governing permissions and limitations under
- * the License.
- */
-package net.za.slyfox.minecraft.nbt.stream;
-
-import java.io.DataInputStream;
-import java.io.IOException;
-
-import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
-
-class ReadTagTypeAction extends Action {
-
-	private final Event event;
-
-	public ReadTagTypeAction(DataInputStream inputStream) {
-
-		this(inputStream, false);
-	}
-
-	public ReadTagTypeAction(DataInputStream inputStream, boolean isList) {
-
-		super(inputStream);
-		event = isList ? Event.LIST_TAG_ID : Event.TAG_ID;
-	}
-
-	@Override
-	public ActionResult execute() throws IOException {
-
-		try {
-			byte tagTypeByte = inputStream.readByte();
-			final NbtTagType tagType = NbtTagType.valueOf(tagTypeByte);
-			return new ActionResult(event) {
-
-				@Override
-				public NbtTagType getTagType() {
-
-					return tagType;
-				}
-			};
-		} finally {
-			setComplete();
-		}
-	}
-}
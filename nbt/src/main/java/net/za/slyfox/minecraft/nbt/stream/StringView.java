@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable {@code CharSequence} over undecoded modified UTF-8 string data in a byte array or buffer.
+ * For ASCII content, {@link #length} and {@link #charAt} read the underlying bytes directly, so
+ * comparing or inspecting a string does not construct a {@code String}. Other content is decoded on
+ * first use. A view is only valid until it is repositioned over the next string.
+ */
+final class StringView implements CharSequence {
+
+	private static final int ASCII_UNKNOWN = 0;
+	private static final int ASCII_YES = 1;
+	private static final int ASCII_NO = 2;
+
+	private int ascii;
+	private ByteBuffer buffer;
+	private byte[] bytes;
+	private String decoded;
+	private final ModifiedUtf8Decoder decoder;
+	private int length;
+	private int offset;
+
+	StringView(ModifiedUtf8Decoder decoder) {
+
+		this.decoder = decoder;
+	}
+
+	void set(byte[] bytes, int offset, int length) {
+
+		this.bytes = bytes;
+		this.buffer = null;
+		reset(offset, length);
+	}
+
+	void set(ByteBuffer buffer, int offset, int length) {
+
+		this.bytes = null;
+		this.buffer = buffer;
+		reset(offset, length);
+	}
+
+	@Override
+	public char charAt(int index) {
+
+		if(!isAscii()) {
+			return toString().charAt(index);
+		}
+		if((index < 0) || (index >= length)) {
+			throw new IndexOutOfBoundsException("Index " + index + ", length " + length);
+		}
+		return (char)((bytes != null) ? bytes[offset + index] : buffer.get(offset + index));
+	}
+
+	@Override
+	public int length() {
+
+		return isAscii() ? length : toString().length();
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+
+		return toString().subSequence(start, end);
+	}
+
+	@Override
+	public String toString() {
+
+		if(decoded == null) {
+			decoded = (bytes != null) ? decoder.decode(bytes, offset, length)
+					: decoder.decode(buffer, offset, length);
+		}
+		return decoded;
+	}
+
+	private boolean isAscii() {
+
+		if(ascii == ASCII_UNKNOWN) {
+			int prefix = (bytes != null)
+					? ModifiedUtf8Decoder.asciiPrefixLength(bytes, offset, length)
+					: ModifiedUtf8Decoder.asciiPrefixLength(buffer, offset, length);
+			ascii = (prefix == length) ? ASCII_YES : ASCII_NO;
+		}
+		return ascii == ASCII_YES;
+	}
+
+	private void reset(int offset, int length) {
+
+		this.offset = offset;
+		this.length = length;
+		this.ascii = ASCII_UNKNOWN;
+		this.decoded = null;
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtGenerator;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+public class LazyNbtCompoundImplTest {
+
+	@Test
+	public void decodesOnAccess() throws IOException {
+
+		NbtCompound root = read();
+
+		assertThat(root.getName(), is("root"));
+		assertThat(root.size(), is(4));
+		assertThat(root.containsKey("level"), is(true));
+		assertThat(root.getCompound("level"), is(instanceOf(LazyNbtCompoundImpl.class)));
+		assertThat(((NbtNumber)root.getCompound("level").get("x")).getNumber(), is((Object)7));
+		assertThat(root.getString("name"), is("test"));
+		assertThat(((NbtList<?>)root.get("pos")).size(), is(2));
+		assertThat(((NbtIntArray)root.get("ints")).getArray()[1], is(-1));
+		assertThat(root.get("missing"), is(nullValue()));
+	}
+
+	@Test
+	public void mutation() throws IOException {
+
+		NbtCompound root = read();
+
+		NbtString changed = new NbtStringImpl("name", "changed");
+		assertThat(((NbtString)root.put("name", changed)).getString(), is("test"));
+		assertThat(root.put("name", new NbtStringImpl("name", "again")), is((NbtValue)changed));
+		assertThat(root.put("added", changed), is(nullValue()));
+		assertThat(root.remove("added"), is((NbtValue)changed));
+		root.put("name", changed);
+		assertThat(root.remove("pos"), is(instanceOf(NbtList.class)));
+
+		assertThat(root.size(), is(3));
+		assertThat(root.getString("name"), is("changed"));
+		assertThat(root.containsKey("pos"), is(false));
+		assertThat(root.entrySet().size(), is(3));
+	}
+
+	@Test
+	public void listsAreDecodedToTheConfiguredDepth() throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGenerator generator = new NbtGeneratorImpl(outputStream);
+		generator.writeStartCompound("").writeStartList("deep", NbtTagType.LIST, 1);
+		for(int i = 1; i < 600; ++i) {
+			generator.writeStartList(NbtTagType.LIST, (i < 599) ? 1 : 0);
+		}
+		for(int i = 0; i < 600; ++i) {
+			generator.writeEnd();
+		}
+		generator.writeEnd().close();
+
+		Map<String, Object> config = new HashMap<>();
+		config.put(NbtReader.LAZY_COMPOUNDS, true);
+		config.put(NbtParser.MAX_DEPTH, 1000);
+		NbtCompound root = new NbtReaderFactoryImpl(config).createReader(
+				ByteBuffer.wrap(outputStream.toByteArray())).read();
+
+		assertThat(((NbtList<?>)root.get("deep")).size(), is(1));
+	}
+
+	private static NbtCompound read() throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGenerator generator = new NbtGeneratorImpl(outputStream);
+		generator.writeStartCompound("root")
+				.writeStartCompound("level")
+				.writeInt("x", 7)
+				.writeEnd()
+				.writeString("name", "test")
+				.writeStartList("pos", NbtTagType.DOUBLE, 2)
+				.writeDouble(1)
+				.writeDouble(2)
+				.writeEnd()
+				.writeIntArray("ints", new int[] { 1, -1 })
+				.writeEnd()
+				.close();
+
+		ByteBuffer buffer = ByteBuffer.allocate(outputStream.size() + 3);
+		buffer.position(3);
+		buffer.put(outputStream.toByteArray());
+		buffer.position(3);
+		return new NbtReaderFactoryImpl(Collections.singletonMap(NbtReader.LAZY_COMPOUNDS, "true"))
+				.createReader(buffer).read();
+	}
+}
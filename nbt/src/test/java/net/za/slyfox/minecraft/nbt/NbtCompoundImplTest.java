@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class NbtCompoundImplTest {
+
+	@Test
+	public void mapContractAcrossIndexThreshold() {
+
+		NbtCompoundImpl compound = new NbtCompoundImpl();
+		Map<String, NbtValue> expected = new HashMap<>();
+		for(int i = 0; i < 40; ++i) {
+			NbtValue value = new NbtIntImpl(i);
+			assertThat(compound.put("key" + i, value), is(nullValue()));
+			expected.put("key" + i, value);
+			assertThat(compound, is(expected));
+		}
+		for(int i = 0; i < 40; i += 3) {
+			assertThat(compound.remove("key" + i), is(expected.remove("key" + i)));
+			assertThat(compound, is(expected));
+		}
+		for(String key : expected.keySet()) {
+			assertThat(compound.containsKey(new String(key)), is(true));
+		}
+		assertThat(compound.get("key0"), is(nullValue()));
+		assertThat(compound.hashCode(), is(expected.hashCode()));
+	}
+
+	@Test
+	public void putReplacesInPlace() {
+
+		NbtCompoundImpl compound = new NbtCompoundImpl();
+		compound.put("id", new NbtShortImpl((short)1));
+		compound.put("Count", new NbtByteImpl((byte)1));
+
+		assertThat(compound.put("id", new NbtShortImpl((short)2)),
+				is((NbtValue)new NbtShortImpl((short)1)));
+		assertThat(compound.keySet(), contains("id", "Count"));
+		assertThat(compound.getShort("id"), is((short)2));
+	}
+
+	@Test
+	public void iteratorRemoveAndSetValue() {
+
+		NbtCompoundImpl compound = new NbtCompoundImpl();
+		for(int i = 0; i < 12; ++i) {
+			compound.put("key" + i, new NbtIntImpl(i));
+		}
+
+		Iterator<Map.Entry<String, NbtValue>> iterator = compound.entrySet().iterator();
+		List<String> kept = new ArrayList<>();
+		while(iterator.hasNext()) {
+			Map.Entry<String, NbtValue> entry = iterator.next();
+			if(compound.getInt(entry.getKey()) % 2 == 0) {
+				iterator.remove();
+			} else {
+				entry.setValue(new NbtIntImpl(-1));
+				kept.add(entry.getKey());
+			}
+		}
+
+		assertThat(compound.size(), is(6));
+		assertThat(new ArrayList<>(compound.keySet()), is(kept));
+		assertThat(compound.getInt("key11"), is(-1));
+		assertThat(compound.containsKey("key4"), is(false));
+	}
+}
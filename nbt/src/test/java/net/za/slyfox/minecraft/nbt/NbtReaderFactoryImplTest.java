@@ -0,0 +1,259 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser;
+import net.za.slyfox.minecraft.nbt.stream.NbtParserFactoryImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+public class NbtReaderFactoryImplTest {
+
+	@Test
+	public void configInUse() {
+
+		Map<String, ?> config = new NbtReaderFactoryImpl(Collections.singletonMap(
+				NbtParser.MAX_DEPTH, "64")).getConfigInUse();
+
+		assertThat((Integer)config.get(NbtParser.BUFFER_SIZE), is(8192));
+		assertThat((Boolean)config.get(NbtParser.BULK_ARRAYS), is(true));
+		assertThat((Integer)config.get(NbtParser.MAX_DEPTH), is(64));
+		assertThat((Integer)config.get(NbtParser.MAX_ARRAY_LENGTH), is(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void bulkArraysCannotBeDisabled() {
+
+		Map<String, ?> config = new NbtReaderFactoryImpl(Collections.singletonMap(
+				NbtParser.BULK_ARRAYS, false)).getConfigInUse();
+
+		assertThat((Boolean)config.get(NbtParser.BULK_ARRAYS), is(true));
+	}
+
+	@Test
+	public void deeplyNestedListsDoNotOverflowTheStack() throws IOException {
+
+		NbtReader reader = new NbtReaderFactoryImpl(Collections.singletonMap(NbtParser.MAX_DEPTH,
+				Integer.MAX_VALUE)).createReader(new ByteArrayInputStream(nestedLists(100000)));
+
+		NbtList<?> list = reader.read().getList("");
+		for(int i = 1; i < 100000; ++i) {
+			list = (NbtList<?>)list.get(0);
+		}
+		assertThat(list.getElementType(), is(NbtTagType.END));
+	}
+
+	@Test(expected = NbtException.class)
+	public void readerMaxDepthExceeded() throws IOException {
+
+		Map<String, Object> config = new HashMap<>();
+		config.put(NbtParser.BULK_ARRAYS, true);
+		config.put(NbtParser.MAX_DEPTH, Integer.MAX_VALUE);
+		NbtParser parser = new NbtParserFactoryImpl(config).createParser(new ByteArrayInputStream(
+				nestedLists(100)));
+
+		new NbtReaderImpl(parser, 64, 0).read();
+	}
+
+	@Test
+	public void resetToNewStream() throws IOException {
+
+		NbtReader reader = new NbtReaderFactoryImpl(null).createReader(new GZIPInputStream(
+				NbtReaderFactoryImplTest.class.getResourceAsStream(
+						"/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		assertThat(reader.read().getName(), is("Level"));
+
+		reader.reset(new ByteArrayInputStream(Arrays.copyOf(nestedLists(3), 12)));
+		try {
+			reader.read(null);
+			fail("Expected NbtException");
+		} catch(NbtException e) {
+			// The truncated document leaves the reader in the middle of a list
+		}
+		reader.reset(NbtReaderFactoryImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/hello_world.nbt"));
+		NbtCompound compound = reader.read();
+
+		assertThat(compound.getName(), is("hello world"));
+		assertThat(compound.getString("name"), is("Bananrama"));
+	}
+
+	@Test
+	public void resetToNewBuffer() throws IOException {
+
+		byte[] nested = nestedLists(2);
+		NbtReader reader = new NbtReaderFactoryImpl(null).createReader(ByteBuffer.wrap(nested));
+		assertThat(reader.read().getList("").size(), is(1));
+
+		ByteBuffer buffer = ByteBuffer.wrap(nestedLists(1));
+		reader.reset(buffer);
+
+		assertThat(reader.read().getList("").isEmpty(), is(true));
+		assertThat(buffer.position(), is(0));
+	}
+
+	@Test
+	public void canonicalValuesAreShared() throws IOException {
+
+		NbtReaderFactory factory = new NbtReaderFactoryImpl(Collections.singletonMap(
+				NbtReader.CANONICAL_CACHE_SIZE, "256"));
+		NbtReader reader = factory.createReader(new GZIPInputStream(
+				NbtReaderFactoryImplTest.class.getResourceAsStream(
+						"/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		NbtCompound first = reader.read();
+		reader.reset(new GZIPInputStream(NbtReaderFactoryImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		NbtCompound second = reader.read();
+
+		assertThat(first == second, is(false));
+		assertThat(first.getCompound("nested compound test")
+				== second.getCompound("nested compound test"), is(true));
+		assertThat(first.getList("listTest (compound)") == second.getList("listTest (compound)"),
+				is(true));
+		assertThat((Integer)factory.getConfigInUse().get(NbtReader.CANONICAL_CACHE_SIZE), is(256));
+	}
+
+	@Test
+	public void identicalSubtreesAreShared() throws IOException {
+
+		ByteArrayOutputStream generated = new ByteArrayOutputStream();
+		NbtGeneratorImpl generator = new NbtGeneratorImpl(generated);
+		generator.writeStartCompound("").writeStartList("Items", NbtTagType.COMPOUND, 2);
+		for(int i = 0; i < 2; ++i) {
+			generator.writeStartCompound().writeString("id", "minecraft:stone")
+					.writeByte("Count", (byte)64).writeEnd();
+		}
+		generator.writeEnd().writeEnd().close();
+
+		NbtReader reader = new NbtReaderFactoryImpl(Collections.singletonMap(
+				NbtReader.CANONICAL_CACHE_SIZE, 16)).createReader(ByteBuffer.wrap(
+						generated.toByteArray()));
+		NbtList<NbtCompound> items = reader.read().getList("Items");
+
+		assertThat(items.get(0) == items.get(1), is(true));
+		try {
+			items.get(0).remove("Count");
+			fail("Expected UnsupportedOperationException");
+		} catch(UnsupportedOperationException e) {
+			// Shared compounds are frozen
+		}
+	}
+
+	@Test
+	public void arraysAreViewsOverTheSource() throws IOException {
+
+		for(boolean lazy : new boolean[] { false, true }) {
+			Map<String, Object> config = new HashMap<>();
+			config.put(NbtReader.ARRAY_VIEWS, true);
+			config.put(NbtReader.LAZY_COMPOUNDS, lazy);
+			NbtReaderFactory factory = new NbtReaderFactoryImpl(config);
+
+			ByteArrayOutputStream generated = new ByteArrayOutputStream();
+			generated.write(new byte[3]);
+			new NbtGeneratorImpl(generated).writeStartCompound("")
+					.writeByteArray("Blocks", new byte[] { 1, 2, 3 })
+					.writeIntArray("Heights", new int[] { 10, -20 })
+					.writeStartList("Sections", NbtTagType.INT_ARRAY, 1)
+					.writeIntArray(new int[] { 7 }).writeEnd().writeEnd().close();
+			byte[] source = generated.toByteArray();
+			ByteBuffer buffer = ByteBuffer.wrap(source);
+			buffer.position(3);
+			NbtCompound compound = factory.createReader(buffer).read();
+
+			NbtByteArray blocks = (NbtByteArray)compound.get("Blocks");
+			NbtIntArray heights = (NbtIntArray)compound.get("Heights");
+			NbtList<NbtIntArray> sections = compound.getList("Sections");
+			assertThat(blocks.getArray(), is(new byte[] { 1, 2, 3 }));
+			assertThat(heights.getArray(), is(new int[] { 10, -20 }));
+			assertThat(sections.get(0).getArray(), is(new int[] { 7 }));
+			assertThat(blocks.asByteBuffer().isReadOnly(), is(true));
+			assertThat(heights.asIntBuffer().isReadOnly(), is(true));
+
+			// The contents of "Blocks" follow the 3 bytes of padding, the root header and its own
+			// header, and are shared with the source rather than copied
+			source[3 + 3 + 9 + 4] = 9;
+			assertThat(blocks.asByteBuffer().get(0), is((byte)9));
+			blocks.getArray()[1] = 0;
+			assertThat(blocks.asByteBuffer().get(1), is((byte)2));
+			assertThat((Boolean)factory.getConfigInUse().get(NbtReader.ARRAY_VIEWS), is(true));
+		}
+	}
+
+	@Test
+	public void canonicalArraysAreReadOnly() throws IOException {
+
+		for(boolean arrayViews : new boolean[] { false, true }) {
+			Map<String, Object> config = new HashMap<>();
+			config.put(NbtReader.ARRAY_VIEWS, arrayViews);
+			config.put(NbtReader.CANONICAL_CACHE_SIZE, 16);
+			NbtReader reader = new NbtReaderFactoryImpl(config)
+					.createReader(ByteBuffer.allocate(0));
+
+			ByteArrayOutputStream generated = new ByteArrayOutputStream();
+			new NbtGeneratorImpl(generated).writeStartCompound("")
+					.writeByteArray("Blocks", new byte[] { 1, 2, 3 })
+					.writeIntArray("Heights", new int[] { 10, -20 }).writeEnd().close();
+			byte[] source = generated.toByteArray();
+			reader.reset(ByteBuffer.wrap(source));
+			NbtCompound first = reader.read();
+			reader.reset(ByteBuffer.wrap(source));
+			NbtCompound second = reader.read();
+
+			NbtByteArray blocks = (NbtByteArray)first.get("Blocks");
+			NbtIntArray heights = (NbtIntArray)first.get("Heights");
+			assertThat(second.get("Blocks") == blocks, is(true));
+			assertThat(second.get("Heights") == heights, is(true));
+			blocks.getArray()[0] = 9;
+			heights.getArray()[0] = 9;
+			assertThat(second.getByteArray("Blocks"), is(new byte[] { 1, 2, 3 }));
+			assertThat(second.getIntArray("Heights"), is(new int[] { 10, -20 }));
+
+			// Arrays in the table are copied out of the source buffer
+			Arrays.fill(source, (byte)0);
+			assertThat(blocks.getArray(), is(new byte[] { 1, 2, 3 }));
+			assertThat(heights.getArray(), is(new int[] { 10, -20 }));
+		}
+	}
+
+	/**
+	 * Creates a root compound holding a single list, in which each list holds exactly one list,
+	 * {@code depth} lists deep.
+	 */
+	private static byte[] nestedLists(int depth) throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		outputStream.write(new byte[] { 0x0a, 0x00, 0x00, 0x09, 0x00, 0x00 });
+		for(int i = 1; i < depth; ++i) {
+			outputStream.write(new byte[] { 0x09, 0x00, 0x00, 0x00, 0x01 });
+		}
+		outputStream.write(new byte[] { 0x00, 0x00, 0x00, 0x00, 0x00, 0x00 });
+		return outputStream.toByteArray();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtParserImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+public class NbtStructureTest {
+
+	@Test
+	public void streamHashMatchesTreeHash() throws IOException {
+
+		NbtCompound compound = new NbtReaderFactoryImpl(null).createReader(bigTest()).read();
+
+		assertThat(NbtStructure.hash(new NbtParserImpl(bigTest())), is(NbtStructure.hash(compound)));
+	}
+
+	@Test
+	public void compoundOrderIsIgnored() {
+
+		NbtCompoundImpl a = new NbtCompoundImpl("a");
+		a.put("id", new NbtStringImpl("minecraft:stone"));
+		a.put("Count", new NbtByteImpl((byte)64));
+		NbtCompoundImpl b = new NbtCompoundImpl("b");
+		b.put("Count", new NbtByteImpl((byte)64));
+		b.put("id", new NbtStringImpl("minecraft:stone"));
+
+		assertThat(NbtStructure.hash(a), is(NbtStructure.hash(b)));
+		assertThat(NbtStructure.equal(a, b), is(true));
+
+		b.put("Count", new NbtShortImpl((short)64));
+
+		assertThat(NbtStructure.hash(a), is(not(NbtStructure.hash(b))));
+		assertThat(NbtStructure.equal(a, b), is(false));
+	}
+
+	@Test(timeout = 5000)
+	public void deepUnfrozenTreesAreComparedInLinearTime() {
+
+		NbtCompound a = deepCompound(0);
+		NbtCompound b = deepCompound(1);
+
+		assertThat(NbtStructure.equal(a, b), is(false));
+		assertThat(NbtStructure.equal(a, deepCompound(0)), is(true));
+	}
+
+	@Test
+	public void onlyFrozenCompoundsCacheTheirHash() {
+
+		NbtCompoundImpl compound = new NbtCompoundImpl("a");
+		compound.put("id", new NbtStringImpl("minecraft:stone"));
+		NbtStructure.hash(compound);
+
+		assertThat(compound.isStructuralHashCached(), is(false));
+
+		compound.freeze();
+
+		assertThat(compound.isStructuralHashCached(), is(false));
+
+		NbtStructure.hash(compound);
+
+		assertThat(compound.isStructuralHashCached(), is(true));
+	}
+
+	@Test
+	public void listOrderIsSignificant() {
+
+		NbtIntListImpl a = new NbtIntListImpl(null, new int[] { 1, 2 });
+		NbtListImpl<NbtInt> b = new NbtListImpl<>(null, NbtTagType.INT);
+		b.add(new NbtIntImpl(1));
+		b.add(new NbtIntImpl(2));
+
+		assertThat(NbtStructure.hash(a), is(NbtStructure.hash(b)));
+		assertThat(NbtStructure.equal(a, b), is(true));
+
+		a.setInt(0, 2);
+		a.setInt(1, 1);
+
+		assertThat(NbtStructure.hash(a), is(not(NbtStructure.hash(b))));
+		assertThat(NbtStructure.equal(a, b), is(false));
+	}
+
+	@Test
+	public void sharedDocumentsAreEqual() throws IOException {
+
+		NbtReader reader = new NbtReaderFactoryImpl(Collections.singletonMap(
+				NbtReader.CANONICAL_CACHE_SIZE, 256)).createReader(bigTest());
+		NbtCompound first = reader.read();
+		reader.reset(bigTest());
+		NbtCompound second = reader.read();
+
+		assertThat(NbtStructure.equal(first, second), is(true));
+		assertThat(NbtStructure.hash(first), is(NbtStructure.hash(second)));
+	}
+
+	/**
+	 * Returns a chain of 2000 nested compounds, each of which has 100 integer tags besides the next
+	 * compound, with the given value at the bottom.
+	 */
+	private static NbtCompound deepCompound(int value) {
+
+		NbtCompoundImpl compound = new NbtCompoundImpl();
+		compound.put("value", new NbtIntImpl(value));
+		for(int depth = 0; depth < 2000; ++depth) {
+			NbtCompoundImpl parent = new NbtCompoundImpl();
+			for(int i = 0; i < 100; ++i) {
+				parent.put("i" + i, new NbtIntImpl(i));
+			}
+			parent.put("c", compound);
+			compound = parent;
+		}
+		return compound;
+	}
+
+	private static InputStream bigTest() throws IOException {
+
+		return new GZIPInputStream(NbtStructureTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/bigtest.nbt"));
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPInputStream;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+import org.junit.Test;
+
+public class NbtWriterImplTest {
+
+	@Test
+	public void helloWorld() throws IOException {
+
+		byte[] expected = readFully(NbtWriterImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/hello_world.nbt"));
+		NbtCompound compound = new NbtReaderImpl(new ByteArrayInputStream(expected)).read();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		new NbtWriterImpl(outputStream).write(compound);
+
+		assertThat(outputStream.toByteArray(), is(expected));
+	}
+
+	@Test
+	public void allListElementTypes() throws IOException {
+
+		ByteArrayOutputStream generated = new ByteArrayOutputStream();
+		new NbtGeneratorImpl(generated)
+				.writeStartCompound("lists")
+				.writeStartList("bytes", NbtTagType.BYTE, 2).writeByte((byte)1).writeByte((byte)2)
+						.writeEnd()
+				.writeStartList("doubles", NbtTagType.DOUBLE, 2).writeDouble(0.5).writeDouble(-1.0)
+						.writeEnd()
+				.writeStartList("empty", NbtTagType.END, 0).writeEnd()
+				.writeStartList("ints", NbtTagType.INT, 3).writeInt(1).writeInt(2).writeInt(3)
+						.writeEnd()
+				.writeStartList("lists", NbtTagType.LIST, 2)
+						.writeStartList(NbtTagType.STRING, 1).writeString("inner").writeEnd()
+						.writeStartList(NbtTagType.LONG, 1).writeLong(42L).writeEnd()
+						.writeEnd()
+				.writeStartList("byteArrays", NbtTagType.BYTE_ARRAY, 1)
+						.writeByteArray(new byte[] { 1, 2, 3 }).writeEnd()
+				.writeStartList("strings", NbtTagType.STRING, 2).writeString("a").writeString("b")
+						.writeEnd()
+				.writeEnd()
+				.close();
+		byte[] original = generated.toByteArray();
+
+		NbtCompound compound = new NbtReaderImpl(new ByteArrayInputStream(original)).read();
+
+		NbtDoubleList doubles = (NbtDoubleList)compound.<NbtDouble>getList("doubles");
+		assertThat(doubles.getElementType(), is(NbtTagType.DOUBLE));
+		assertThat(doubles.getDouble(1), is(-1.0));
+		assertThat(((NbtIntList)compound.<NbtInt>getList("ints")).getInt(2), is(3));
+		assertThat(compound.getList("empty").getElementType(), is(NbtTagType.END));
+		assertThat(compound.getList("empty").isEmpty(), is(true));
+		NbtList<NbtList<?>> lists = compound.getList("lists");
+		assertThat(((NbtString)lists.get(0).get(0)).getString(), is("inner"));
+		assertThat(((NbtLongList)lists.get(1)).getLong(0), is(42L));
+		assertThat(((NbtByteArray)compound.getList("byteArrays").get(0)).getArray(),
+				is(new byte[] { 1, 2, 3 }));
+		assertThat(((NbtNumber)compound.getList("bytes").get(1)).byteValue(), is((byte)2));
+		assertThat(compound.getList("strings").size(), is(2));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtWriter writer = new NbtWriterImpl(outputStream);
+		assertThat(writer.getSerializedSize(compound), is(original.length));
+		writer.write(compound);
+		assertThat(outputStream.toByteArray(), is(original));
+	}
+
+	@Test
+	public void bigTestRoundTrip() throws IOException {
+
+		byte[] original = readFully(new GZIPInputStream(NbtWriterImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		NbtCompound compound = new NbtReaderImpl(new ByteArrayInputStream(original)).read();
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtWriter writer = new NbtWriterImpl(outputStream);
+
+		assertThat(writer.getSerializedSize(compound), is(original.length));
+		writer.write(compound);
+		assertThat(outputStream.size(), is(original.length));
+
+		NbtCompound copy = new NbtReaderImpl(new ByteArrayInputStream(outputStream.toByteArray()))
+				.read();
+		assertThat(copy.getName(), is("Level"));
+		assertThat(copy.keySet(), is(compound.keySet()));
+		assertThat(copy.getCompound("nested compound test").getCompound("egg").getString("name"),
+				is("Eggbert"));
+		assertThat(((NbtByteArray)copy.get("byteArrayTest (the first 1000 values of (n*n*255+n*7)%100, "
+				+ "starting with n=0 (0, 62, 34, 16, 8, ...))")).getArray().length, is(1000));
+	}
+
+	@Test
+	public void writeToDirectBuffer() throws IOException {
+
+		byte[] original = readFully(new GZIPInputStream(NbtWriterImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/bigtest.nbt")));
+		NbtCompound compound = new NbtReaderImpl(new ByteArrayInputStream(original)).read();
+		NbtWriter writer = new NbtWriterImpl(new ByteArrayOutputStream());
+		ByteBuffer buffer = ByteBuffer.allocateDirect(original.length + 4)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(0);
+
+		writer.writeTo(compound, buffer);
+
+		assertThat(buffer.position(), is(original.length + 4));
+		assertThat(buffer.order(), is(ByteOrder.LITTLE_ENDIAN));
+		buffer.flip();
+		buffer.position(4);
+		NbtCompound copy = new NbtReaderImpl(new ByteArrayInputStream(readFully(buffer))).read();
+		assertThat(copy.keySet(), is(compound.keySet()));
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void writeToSmallBuffer() throws IOException {
+
+		NbtCompound compound = new NbtReaderImpl(NbtWriterImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/hello_world.nbt")).read();
+
+		new NbtWriterImpl(new ByteArrayOutputStream()).writeTo(compound, ByteBuffer.allocate(16));
+	}
+
+	private static byte[] readFully(ByteBuffer buffer) {
+
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static byte[] readFully(InputStream inputStream) throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] chunk = new byte[4096];
+		int count;
+		while((count = inputStream.read(chunk)) != -1) {
+			outputStream.write(chunk, 0, count);
+		}
+		return outputStream.toByteArray();
+	}
+}
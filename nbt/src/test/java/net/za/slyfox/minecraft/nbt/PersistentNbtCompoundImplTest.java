@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.spi.NbtProvider;
+
+public class PersistentNbtCompoundImplTest {
+
+	@Test
+	public void mapContractAcrossTrieLevels() {
+
+		PersistentNbtCompound compound = PersistentNbtCompoundImpl.empty("");
+		Map<String, NbtValue> expected = new HashMap<>();
+		for(int i = 0; i < 2000; ++i) {
+			NbtValue value = new NbtIntImpl(i);
+			compound = compound.with("key" + i, value);
+			expected.put("key" + i, value);
+		}
+		// "Aa" and "BB" have equal hash codes, and share a collision node
+		compound = compound.with("Aa", new NbtIntImpl(-1)).with("BB", new NbtIntImpl(-2));
+		expected.put("Aa", new NbtIntImpl(-1));
+		expected.put("BB", new NbtIntImpl(-2));
+		assertThat(compound, is(expected));
+
+		for(int i = 0; i < 2000; i += 3) {
+			compound = compound.without("key" + i);
+			expected.remove("key" + i);
+		}
+		compound = compound.without("Aa").without("missing");
+		expected.remove("Aa");
+
+		assertThat(compound, is(expected));
+		assertThat(compound.size(), is(expected.size()));
+		assertThat(compound.get("key0"), is(nullValue()));
+		assertThat(compound.getInt("BB"), is(-2));
+		assertThat(compound.hashCode(), is(expected.hashCode()));
+	}
+
+	@Test
+	public void snapshotsShareUnchangedSubtrees() throws IOException {
+
+		NbtCompound tree = new NbtReaderFactoryImpl(null).createReader(new GZIPInputStream(
+				PersistentNbtCompoundImplTest.class.getResourceAsStream(
+						"/net/za/slyfox/minecraft/nbt/bigtest.nbt"))).read();
+		PersistentNbtCompound snapshot = NbtProvider.provider().createPersistentFactory().copyOf(
+				tree);
+		PersistentNbtCompound nested = (PersistentNbtCompound)snapshot.getCompound(
+				"nested compound test");
+		PersistentNbtCompound egg = (PersistentNbtCompound)nested.getCompound("egg");
+
+		PersistentNbtCompound edited = snapshot.with("nested compound test", nested.with("egg",
+				egg.with("name", new NbtStringImpl("name", "Humpty"))));
+
+		assertThat(NbtStructure.equal(snapshot, tree), is(true));
+		assertThat(snapshot.getCompound("nested compound test").getCompound("egg").getString("name"),
+				is("Eggbert"));
+		assertThat(edited.getCompound("nested compound test").getCompound("egg").getString("name"),
+				is("Humpty"));
+		assertThat(edited.get("listTest (compound)") == snapshot.get("listTest (compound)"),
+				is(true));
+		assertThat(edited.getCompound("nested compound test").get("ham") == nested.get("ham"),
+				is(true));
+		assertThat(snapshot.without("intTest").with("intTest", snapshot.get("intTest")),
+				is((Map<String, NbtValue>)snapshot));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void mapOperationsCannotModify() {
+
+		PersistentNbtCompoundImpl.empty("").with("id", new NbtIntImpl(1)).remove("id");
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+public class PersistentNbtListImplTest {
+
+	@Test
+	public void listsAreDerivedWithoutCopying() {
+
+		PersistentNbtList<NbtValue> list = PersistentNbtListImpl.empty(null, NbtTagType.END);
+		for(int i = 0; i < 1100; ++i) {
+			list = list.plus(new NbtIntImpl(i));
+		}
+		PersistentNbtList<NbtValue> edited = list.with(1050, new NbtIntImpl(-1));
+
+		assertThat(list.getElementType(), is(NbtTagType.INT));
+		assertThat(list.size(), is(1100));
+		assertThat(((NbtInt)list.get(1050)).intValue(), is(1050));
+		assertThat(((NbtInt)edited.get(1050)).intValue(), is(-1));
+		assertThat(((NbtInt)edited.get(1099)).intValue(), is(1099));
+		assertThat(PersistentNbtListImpl.copyOf(new NbtIntListImpl(null, new int[] { 5, 6 }))
+				.get(1), is((NbtValue)new NbtIntImpl(6)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void listElementTypeIsChecked() {
+
+		PersistentNbtListImpl.<NbtValue>empty(null, NbtTagType.INT).plus(new NbtStringImpl("x"));
+	}
+}
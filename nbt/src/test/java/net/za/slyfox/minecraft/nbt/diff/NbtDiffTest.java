@@ -0,0 +1,264 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.diff;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.NbtCompound;
+import net.za.slyfox.minecraft.nbt.NbtException;
+import net.za.slyfox.minecraft.nbt.NbtReaderFactoryImpl;
+import net.za.slyfox.minecraft.nbt.NbtStructure;
+import net.za.slyfox.minecraft.nbt.diff.NbtEdit.Operation;
+import net.za.slyfox.minecraft.nbt.stream.NbtGeneratorImpl;
+import net.za.slyfox.minecraft.nbt.stream.NbtTagType;
+
+public class NbtDiffTest {
+
+	private static final String BYTE_ARRAY = "byteArrayTest (the first 1000 values of "
+			+ "(n*n*255+n*7)%100, starting with n=0 (0, 62, 34, 16, 8, ...))";
+	private static final int DEEP_DOCUMENT_DEPTH = 500;
+	private static final int DEEP_DOCUMENT_WIDTH = 200;
+
+	@Test
+	public void identicalTreesHaveAnEmptyPatch() throws IOException {
+
+		assertThat(NbtDiff.diff(bigTest(), bigTest()).isEmpty(), is(true));
+	}
+
+	@Test
+	public void patchTurnsBaseIntoTarget() throws IOException {
+
+		NbtCompound base = bigTest();
+		NbtCompound target = modify(bigTest());
+		NbtPatch patch = NbtDiff.diff(base, target);
+
+		List<String> edits = new ArrayList<>();
+		for(NbtEdit edit : patch.getEdits()) {
+			edits.add(edit.getOperation() + " " + edit.getPath());
+		}
+		assertThat(edits.size(), is(6));
+		assertThat(edits.containsAll(Arrays.asList("REMOVE [shortTest]", "ADD [copiedLong]",
+				"CHANGE [nested compound test, egg, name]", "SPLICE [" + BYTE_ARRAY + "]",
+				"REMOVE [listTest (compound), 1, created-on]")), is(true));
+
+		patch.apply(base);
+
+		assertThat(NbtStructure.equal(base, target), is(true));
+	}
+
+	@Test
+	public void encodedPatchRoundTrips() throws IOException {
+
+		NbtCompound target = modify(bigTest());
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		NbtGeneratorImpl generator = new NbtGeneratorImpl(encoded);
+		NbtDiff.diff(bigTest(), target).write(generator);
+		generator.close();
+
+		NbtPatch patch = NbtPatch.read(new NbtReaderFactoryImpl(null).createReader(
+				new ByteArrayInputStream(encoded.toByteArray())).read());
+		NbtCompound base = bigTest();
+		patch.apply(base);
+
+		assertThat(NbtStructure.equal(base, target), is(true));
+	}
+
+	@Test
+	public void arraysChangingLengthAreSpliced() throws IOException {
+
+		int[] before = new int[256];
+		int[] after = new int[260];
+		for(int i = 0; i < after.length; ++i) {
+			after[i] = (i < 100) ? i : i - 4;
+			if(i < before.length) {
+				before[i] = i;
+			}
+		}
+		NbtCompound base = intArrayDocument(before);
+		NbtCompound target = intArrayDocument(after);
+		NbtPatch patch = NbtDiff.diff(base, target);
+
+		assertThat(patch.getEdits().size(), is(1));
+		NbtEdit edit = patch.getEdits().get(0);
+		assertThat(edit.getOperation(), is(Operation.SPLICE));
+		assertThat(edit.getOffset(), is(100));
+		assertThat(edit.getLength(), is(0));
+
+		patch.apply(base);
+
+		assertThat(base.getIntArray("Heights"), is(after));
+	}
+
+	@Test
+	public void arraysWithoutCommonElementsAreReplaced() throws IOException {
+
+		int[] before = new int[256];
+		int[] after = new int[260];
+		for(int i = 0; i < after.length; ++i) {
+			after[i] = i + 1000;
+			if(i < before.length) {
+				before[i] = i;
+			}
+		}
+		NbtPatch patch = NbtDiff.diff(intArrayDocument(before), intArrayDocument(after));
+
+		assertThat(patch.getEdits().size(), is(1));
+		assertThat(patch.getEdits().get(0).getOperation(), is(Operation.CHANGE));
+	}
+
+	@Test
+	public void listsChangingSizeAreSpliced() throws IOException {
+
+		NbtCompound base = entityDocument(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+		NbtCompound target = entityDocument(0, 1, 2, 3, 100, 4, 5, 6, 7, 8, 9);
+		NbtPatch patch = NbtDiff.diff(base, target);
+
+		assertThat(patch.getEdits().size(), is(1));
+		NbtEdit edit = patch.getEdits().get(0);
+		assertThat(edit.getOperation(), is(Operation.SPLICE));
+		assertThat(edit.getPath(), is(Arrays.<Object>asList("Entities")));
+		assertThat(edit.getOffset(), is(4));
+		assertThat(edit.getLength(), is(0));
+
+		ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+		NbtGeneratorImpl generator = new NbtGeneratorImpl(encoded);
+		patch.write(generator);
+		generator.close();
+		NbtPatch.read(new NbtReaderFactoryImpl(null).createReader(
+				new ByteArrayInputStream(encoded.toByteArray())).read()).apply(base);
+
+		assertThat(NbtStructure.equal(base, target), is(true));
+
+		patch = NbtDiff.diff(target, entityDocument(0, 1, 2, 3, 100, 4, 5, 7, 8, 9));
+		edit = patch.getEdits().get(0);
+		assertThat(patch.getEdits().size(), is(1));
+		assertThat(edit.getOperation(), is(Operation.SPLICE));
+		assertThat(edit.getOffset(), is(7));
+		assertThat(edit.getLength(), is(1));
+	}
+
+	@Test(timeout = 5000)
+	public void freshlyReadDeepTreesAreDiffedInLinearTime() {
+
+		NbtCompound base = deepDocument(0);
+		NbtCompound target = deepDocument(1);
+		NbtPatch patch = NbtDiff.diff(base, target);
+
+		assertThat(patch.getEdits().size(), is(1));
+		NbtEdit edit = patch.getEdits().get(0);
+		assertThat(edit.getOperation(), is(Operation.CHANGE));
+		assertThat(edit.getPath().size(), is(DEEP_DOCUMENT_DEPTH + 1));
+
+		patch.apply(base);
+
+		assertThat(NbtStructure.equal(base, target), is(true));
+	}
+
+	@Test(expected = NbtException.class)
+	public void patchMustMatchBase() throws IOException {
+
+		NbtCompound base = bigTest();
+		NbtPatch patch = NbtDiff.diff(base, modify(bigTest()));
+		patch.apply(base);
+		patch.apply(base);
+	}
+
+	private static NbtCompound bigTest() throws IOException {
+
+		return new NbtReaderFactoryImpl(null).createReader(new GZIPInputStream(
+				NbtDiffTest.class.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")))
+				.read();
+	}
+
+	/**
+	 * Returns a document of nested compounds, each of which has a number of integer tags besides
+	 * the next compound, with the given value at the bottom. The tree is read without
+	 * canonicalisation, so none of its compounds cache their structural hash.
+	 */
+	private static NbtCompound deepDocument(int value) {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGeneratorImpl generator = new NbtGeneratorImpl(outputStream);
+		generator.writeStartCompound("");
+		for(int depth = 0; depth < DEEP_DOCUMENT_DEPTH; ++depth) {
+			for(int i = 0; i < DEEP_DOCUMENT_WIDTH; ++i) {
+				generator.writeInt("i" + i, i);
+			}
+			generator.writeStartCompound("c");
+		}
+		generator.writeInt("value", value);
+		for(int depth = 0; depth <= DEEP_DOCUMENT_DEPTH; ++depth) {
+			generator.writeEnd();
+		}
+		generator.close();
+		return new NbtReaderFactoryImpl(null).createReader(new ByteArrayInputStream(
+				outputStream.toByteArray())).read();
+	}
+
+	/**
+	 * Returns a document with an {@code Entities} list of compounds with the given identifiers.
+	 */
+	private static NbtCompound entityDocument(int... ids) {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGeneratorImpl generator = new NbtGeneratorImpl(outputStream);
+		generator.writeStartCompound("");
+		generator.writeStartList("Entities", NbtTagType.COMPOUND, ids.length);
+		for(int id : ids) {
+			generator.writeStartCompound().writeInt("id", id).writeString("type", "zombie")
+					.writeEnd();
+		}
+		generator.writeEnd().writeEnd().close();
+		return new NbtReaderFactoryImpl(null).createReader(new ByteArrayInputStream(
+				outputStream.toByteArray())).read();
+	}
+
+	private static NbtCompound intArrayDocument(int[] heights) {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new NbtGeneratorImpl(outputStream).writeStartCompound("").writeIntArray("Heights", heights)
+				.writeEnd().close();
+		return new NbtReaderFactoryImpl(null).createReader(new ByteArrayInputStream(
+				outputStream.toByteArray())).read();
+	}
+
+	/**
+	 * Removes, adds and changes tags throughout the given tree, including two separate ranges of the
+	 * byte array.
+	 */
+	private static NbtCompound modify(NbtCompound compound) {
+
+		compound.remove("shortTest");
+		compound.put("copiedLong", compound.get("longTest"));
+		NbtCompound nested = compound.getCompound("nested compound test");
+		nested.getCompound("egg").put("name", nested.getCompound("ham").get("name"));
+		byte[] bytes = compound.getByteArray(BYTE_ARRAY);
+		bytes[10] = 1;
+		bytes[11] = 2;
+		bytes[500] = 3;
+		((NbtCompound)compound.getList("listTest (compound)").get(1)).remove("created-on");
+		return compound;
+	}
+}
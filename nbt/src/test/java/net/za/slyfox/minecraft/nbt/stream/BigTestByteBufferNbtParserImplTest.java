@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+
+import org.junit.Test;
+
+public class BigTestByteBufferNbtParserImplTest extends BigTestNbtParserTest {
+
+	/** A compound holding a byte array that declares 10 bytes but contains 2. */
+	private static final byte[] TRUNCATED_ARRAY = {
+			0x0a, 0x00, 0x00,
+			0x07, 0x00, 0x01, 'a', 0x00, 0x00, 0x00, 0x0a, 0x05, 0x05 };
+
+	@Override
+	protected NbtParser createParser(InputStream inputStream) {
+
+		return new ByteBufferNbtParserImpl(TestBuffers.readFully(inputStream, true));
+	}
+
+	@Override
+	protected NbtParser createParser(InputStream inputStream, Map<String, ?> configuration) {
+
+		return new ByteBufferNbtParserImpl(TestBuffers.readFully(inputStream, true),
+				configuration);
+	}
+
+	@Test(expected = NbtException.class)
+	public void truncatedBulkArray() {
+
+		NbtParser parser = new ByteBufferNbtParserImpl(ByteBuffer.wrap(TRUNCATED_ARRAY),
+				Collections.singletonMap(NbtParser.BULK_ARRAYS, true));
+		while(parser.next() != NbtParser.Event.VALUE_ARRAY) {
+			// Advance to the array contents
+		}
+		parser.readByteArray(new byte[10]);
+	}
+
+	@Test(expected = NbtException.class)
+	public void truncatedArrayVisited() {
+
+		new ByteBufferNbtParserImpl(ByteBuffer.wrap(TRUNCATED_ARRAY)).accept(
+				new NbtVisitorAdapter() { });
+	}
+}
@@ -13,34 +13,21 @@
  */
 package net.za.slyfox.minecraft.nbt.stream;
 
-import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+import java.io.InputStream;
+import java.util.Map;
 
-class ActionResult {
+public class BigTestNbtAsyncParserImplTest extends BigTestNbtParserTest {
 
-	private final Event event;
+	@Override
+	protected NbtParser createParser(InputStream inputStream) {
 
-	public ActionResult(Event event) {
-
-		this.event = event;
-	}
-
-	public final Event getEvent() {
-
-		return event;
-	}
-
-	public Number getNumber() {
-
-		throw new IllegalStateException("Invalid parser state for " + getClass());
-	}
-
-	public String getString() {
-
-		throw new IllegalStateException("Invalid parser state for " + getClass());
+		return createParser(inputStream, null);
 	}
 
-	public NbtTagType getTagType() {
+	@Override
+	protected NbtParser createParser(InputStream inputStream, Map<String, ?> configuration) {
 
-		throw new IllegalStateException("Invalid parser state for " + getClass());
+		return new FeedingNbtParser(new NbtAsyncParserImpl(configuration),
+				TestBuffers.readFully(inputStream, false), 1);
 	}
 }
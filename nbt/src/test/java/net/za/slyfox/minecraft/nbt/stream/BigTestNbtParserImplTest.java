@@ -14,6 +14,7 @@
 package net.za.slyfox.minecraft.nbt.stream;
 
 import java.io.InputStream;
+import java.util.Map;
 
 public class BigTestNbtParserImplTest extends BigTestNbtParserTest {
 
@@ -22,4 +23,10 @@ public class BigTestNbtParserImplTest extends BigTestNbtParserTest {
 
 		return new NbtParserImpl(inputStream);
 	}
+
+	@Override
+	protected NbtParser createParser(InputStream inputStream, Map<String, ?> configuration) {
+
+		return new NbtParserImpl(inputStream, configuration);
+	}
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Adapts an {@link NbtAsyncParser} to the blocking {@link NbtParser} contract for the shared parser
+ * tests, feeding it the input in fixed-size fragments whenever it asks for more. Skips are preceded by
+ * feeding all remaining input, so that their effect is visible immediately as the tests expect.
+ */
+final class FeedingNbtParser implements NbtParser {
+
+	private final int fragmentSize;
+	private final ByteBuffer input;
+	private final NbtAsyncParser parser;
+
+	FeedingNbtParser(NbtAsyncParser parser, ByteBuffer input, int fragmentSize) {
+
+		this.fragmentSize = fragmentSize;
+		this.input = input;
+		this.parser = parser;
+	}
+
+	@Override
+	public void accept(NbtVisitor visitor) {
+
+		feed(input.remaining());
+		parser.accept(visitor);
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		parser.close();
+	}
+
+	@Override
+	public byte getByte() {
+
+		return parser.getByte();
+	}
+
+	@Override
+	public CharSequence getCharSequence() {
+
+		return parser.getCharSequence();
+	}
+
+	@Override
+	public double getDouble() {
+
+		return parser.getDouble();
+	}
+
+	@Override
+	public float getFloat() {
+
+		return parser.getFloat();
+	}
+
+	@Override
+	public int getInt() {
+
+		return parser.getInt();
+	}
+
+	@Override
+	public NbtLocation getLocation() {
+
+		return parser.getLocation();
+	}
+
+	@Override
+	public long getLong() {
+
+		return parser.getLong();
+	}
+
+	@Override
+	public Number getNumber() {
+
+		return parser.getNumber();
+	}
+
+	@Override
+	public short getShort() {
+
+		return parser.getShort();
+	}
+
+	@Override
+	public String getString() {
+
+		return parser.getString();
+	}
+
+	@Override
+	public NbtTagType getTagType() {
+
+		return parser.getTagType();
+	}
+
+	@Override
+	public boolean hasNext() {
+
+		return parser.hasNext();
+	}
+
+	@Override
+	public Event next() {
+
+		Event event;
+		while((event = parser.next()) == Event.NEED_MORE_INPUT) {
+			feed(fragmentSize);
+		}
+		return event;
+	}
+
+	@Override
+	public void readByteArray(byte[] array) {
+
+		parser.readByteArray(array);
+	}
+
+	@Override
+	public void readIntArray(int[] array) {
+
+		parser.readIntArray(array);
+	}
+
+	@Override
+	public void reset(InputStream inputStream) {
+
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void reset(ByteBuffer buffer) {
+
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void skipChildren() {
+
+		feed(input.remaining());
+		parser.skipChildren();
+	}
+
+	@Override
+	public void skipValue() {
+
+		feed(input.remaining());
+		parser.skipValue();
+	}
+
+	private void feed(int count) {
+
+		if(!input.hasRemaining()) {
+			parser.endOfInput();
+			return;
+		}
+		ByteBuffer fragment = input.duplicate();
+		fragment.limit(fragment.position() + Math.min(count, input.remaining()));
+		parser.feedInput(fragment);
+		input.position(fragment.position());
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.InputStream;
+import java.util.Map;
+
+public class HelloWorldNbtAsyncParserImplTest extends HelloWorldNbtParserTest {
+
+	@Override
+	protected NbtParser createParser(InputStream inputStream) {
+
+		return createParser(inputStream, null);
+	}
+
+	@Override
+	protected NbtParser createParser(InputStream inputStream, Map<String, ?> configuration) {
+
+		return new FeedingNbtParser(new NbtAsyncParserImpl(configuration),
+				TestBuffers.readFully(inputStream, false), 1);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+
+public class ModifiedUtf8DecoderTest {
+
+	private final ModifiedUtf8Decoder decoder = new ModifiedUtf8Decoder();
+
+	@Test
+	public void ascii() throws IOException {
+
+		assertRoundTrip("minecraft:stone_bricks");
+	}
+
+	@Test
+	public void empty() throws IOException {
+
+		assertRoundTrip("");
+	}
+
+	@Test
+	public void nonAsciiAfterAsciiPrefix() throws IOException {
+
+		assertRoundTrip("HELLO WORLD THIS IS A TEST STRING \u00C5\u00C4\u00D6!");
+	}
+
+	@Test
+	public void threeByteAndNulCharacters() throws IOException {
+
+		assertRoundTrip("\u2603 snow\u0000man \u20AC");
+	}
+
+	@Test(expected = NbtException.class)
+	public void truncatedSequence() {
+
+		decoder.decode(new byte[] { 'a', (byte)0xE2, (byte)0x98 }, 0, 3);
+	}
+
+	@Test
+	public void stringView() throws IOException {
+
+		byte[] bytes = encode("Bananrama");
+		StringView view = new StringView(decoder);
+		view.set(bytes, 2, bytes.length - 2);
+
+		assertThat(view.length(), is(9));
+		assertThat(view.charAt(1), is('a'));
+		assertThat("Bananrama".contentEquals(view), is(true));
+
+		bytes = encode("\u00C5ngstr\u00F6m");
+		view.set(ByteBuffer.wrap(bytes), 2, bytes.length - 2);
+		assertThat(view.length(), is(8));
+		assertThat(view.toString(), is("\u00C5ngstr\u00F6m"));
+	}
+
+	private void assertRoundTrip(String string) throws IOException {
+
+		byte[] bytes = encode(string);
+		int length = bytes.length - 2;
+		assertThat(decoder.decode(bytes, 2, length), is(string));
+		assertThat(decoder.decode(ByteBuffer.wrap(bytes), 2, length), is(string));
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes);
+		assertThat(decoder.decode(direct, 2, length), is(string));
+	}
+
+	private static byte[] encode(String string) throws IOException {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		new DataOutputStream(outputStream).writeUTF(string);
+		return outputStream.toByteArray();
+	}
+}
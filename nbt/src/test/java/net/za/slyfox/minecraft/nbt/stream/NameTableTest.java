@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class NameTableTest {
+
+	@Test
+	public void repeatedNameIsCanonical() {
+
+		NameTable table = new NameTable(16, new ModifiedUtf8Decoder());
+		byte[] bytes = "xxCountyy".getBytes(StandardCharsets.UTF_8);
+
+		String first = table.get(bytes, 2, 5);
+		String second = table.get(ByteBuffer.wrap(bytes), 2, 5);
+
+		assertThat(first, is("Count"));
+		assertThat(second, is(sameInstance(first)));
+	}
+
+	@Test
+	public void fullTableIsReplacedByLaterNames() {
+
+		NameTable table = new NameTable(2, new ModifiedUtf8Decoder());
+		byte[] id = "id".getBytes(StandardCharsets.UTF_8);
+		byte[] count = "Count".getBytes(StandardCharsets.UTF_8);
+		byte[] damage = "Damage".getBytes(StandardCharsets.UTF_8);
+
+		String firstId = table.get(id, 0, id.length);
+		table.get(count, 0, count.length);
+		assertThat(table.get(id, 0, id.length), is(sameInstance(firstId)));
+
+		String firstDamage = table.get(damage, 0, damage.length);
+
+		assertThat(table.get(damage, 0, damage.length), is(sameInstance(firstDamage)));
+		assertThat(table.get(id, 0, id.length), is("id"));
+		assertThat(table.get(id, 0, id.length), is(not(sameInstance(firstId))));
+	}
+
+	@Test
+	public void growsBeyondInitialCapacity() {
+
+		NameTable table = new NameTable(1000, new ModifiedUtf8Decoder());
+		String[] names = new String[200];
+		for(int i = 0; i < names.length; ++i) {
+			byte[] bytes = ("name" + i).getBytes(StandardCharsets.UTF_8);
+			names[i] = table.get(bytes, 0, bytes.length);
+		}
+		for(int i = 0; i < names.length; ++i) {
+			byte[] bytes = ("name" + i).getBytes(StandardCharsets.UTF_8);
+			assertThat(table.get(bytes, 0, bytes.length), is(sameInstance(names[i])));
+		}
+	}
+}
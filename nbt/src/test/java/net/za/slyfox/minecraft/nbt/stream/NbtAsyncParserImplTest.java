@@ -0,0 +1,216 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+
+import org.junit.Test;
+
+public class NbtAsyncParserImplTest {
+
+	@Test
+	public void fragmentSizesProduceSameEvents() throws IOException {
+
+		List<String> expected = events(new ByteBufferNbtParserImpl(bigTest()));
+
+		for(int fragmentSize : new int[] { 1, 3, 7, 100, 4096 }) {
+			NbtParser parser = new FeedingNbtParser(new NbtAsyncParserImpl(), bigTest(), fragmentSize);
+			assertThat("fragment size " + fragmentSize, events(parser), is(expected));
+		}
+	}
+
+	@Test
+	public void needMoreInputDoesNotConsume() {
+
+		NbtAsyncParserImpl parser = new NbtAsyncParserImpl();
+
+		assertThat(parser.next(), is(Event.NEED_MORE_INPUT));
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 0x0a, 0x00 }));
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.NEED_MORE_INPUT));
+		assertThat(parser.needsInput(), is(false));
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 0x02, 'h' }));
+		assertThat(parser.next(), is(Event.NEED_MORE_INPUT));
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 'i' }));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("hi"));
+		assertThat(parser.needsInput(), is(true));
+	}
+
+	@Test
+	public void skipChildrenAfterUnreadBulkArrayCompletesOnNext() {
+
+		NbtAsyncParserImpl parser = new NbtAsyncParserImpl(
+				Collections.singletonMap(NbtParser.BULK_ARRAYS, true));
+		parser.feedInput(ByteBuffer.wrap(new byte[] {
+				0x0a, 0x00, 0x00,
+				0x0a, 0x00, 0x01, 'a',
+				0x07, 0x00, 0x01, 'x', 0x00, 0x00, 0x00, 0x02, 0x05, 0x05 }));
+
+		while(parser.next() != Event.ARRAY_SIZE) {
+			// Skip events preceding the byte array
+		}
+		assertThat(parser.next(), is(Event.VALUE_ARRAY));
+		parser.skipChildren();
+		assertThat(parser.next(), is(Event.NEED_MORE_INPUT));
+
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 0x00, 0x01, 0x00, 0x01, 'b', 0x7f, 0x00 }));
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.BYTE));
+		assertThat(parser.getLocation().getDepth(), is(1));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("b"));
+	}
+
+	@Test
+	public void skipValueCompletesOnNext() {
+
+		NbtAsyncParserImpl parser = new NbtAsyncParserImpl();
+		parser.feedInput(ByteBuffer.wrap(new byte[] {
+				0x0a, 0x00, 0x00,
+				0x0a, 0x00, 0x01, 'a', 0x01, 0x00, 0x01, 'b' }));
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		parser.skipValue();
+		assertThat(parser.next(), is(Event.NEED_MORE_INPUT));
+
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 0x05, 0x00, 0x01 }));
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.getLocation().getDepth(), is(1));
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 0x00, 0x01, 'c', 0x7f, 0x00 }));
+		assertThat(parser.next(), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("c"));
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getByte(), is((byte)127));
+		assertThat(parser.next(), is(Event.TAG_ID));
+		assertThat(parser.hasNext(), is(false));
+	}
+
+	@Test
+	public void skipValueKeepsBufferBounded() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(new byte[] { 0x0a, 0x00, 0x00 });
+		out.writeByte(0x09);
+		out.writeUTF("list");
+		out.writeByte(0x0a);
+		out.writeInt(100);
+		for(int i = 0; i < 100; ++i) {
+			out.writeByte(0x07);
+			out.writeUTF("array");
+			out.writeInt(10000);
+			out.write(new byte[10000]);
+			out.writeByte(0x08);
+			out.writeUTF("string");
+			out.writeUTF("value " + i);
+			out.writeByte(0x00);
+		}
+		out.write(new byte[] { 0x01, 0x00, 0x01, 'b', 0x7f, 0x00 });
+		ByteBuffer input = ByteBuffer.wrap(bytes.toByteArray());
+
+		NbtAsyncParserImpl parser = new NbtAsyncParserImpl();
+		int capacity = parser.getCapacity();
+		assertThat(next(parser, input), is(Event.TAG_ID));
+		assertThat(next(parser, input), is(Event.TAG_NAME));
+		assertThat(next(parser, input), is(Event.TAG_ID));
+		assertThat(next(parser, input), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("list"));
+		parser.skipValue();
+		assertThat(next(parser, input), is(Event.TAG_ID));
+		assertThat(parser.getTagType(), is(NbtTagType.BYTE));
+		assertThat(next(parser, input), is(Event.TAG_NAME));
+		assertThat(parser.getString(), is("b"));
+		assertThat(parser.getCapacity(), is(capacity));
+	}
+
+	@Test(expected = NbtException.class)
+	public void truncatedInputAfterEndOfInput() {
+
+		NbtAsyncParserImpl parser = new NbtAsyncParserImpl();
+		parser.feedInput(ByteBuffer.wrap(new byte[] { 0x0a, 0x00 }));
+		parser.endOfInput();
+
+		assertThat(parser.next(), is(Event.TAG_ID));
+		parser.next();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void feedInputAfterEndOfInput() {
+
+		NbtAsyncParserImpl parser = new NbtAsyncParserImpl();
+		parser.endOfInput();
+
+		parser.feedInput(ByteBuffer.allocate(1));
+	}
+
+	private static ByteBuffer bigTest() throws IOException {
+
+		return TestBuffers.readFully(new GZIPInputStream(NbtAsyncParserImplTest.class
+				.getResourceAsStream("/net/za/slyfox/minecraft/nbt/bigtest.nbt")), false);
+	}
+
+	/**
+	 * Advances the parser, feeding it the input in 256-byte fragments until it has enough.
+	 */
+	private static Event next(NbtAsyncParserImpl parser, ByteBuffer input) {
+
+		Event event;
+		while((event = parser.next()) == Event.NEED_MORE_INPUT) {
+			ByteBuffer fragment = input.duplicate();
+			fragment.limit(fragment.position() + Math.min(256, input.remaining()));
+			parser.feedInput(fragment);
+			input.position(fragment.position());
+		}
+		return event;
+	}
+
+	private static List<String> events(NbtParser parser) {
+
+		List<String> events = new ArrayList<>();
+		while(parser.hasNext()) {
+			Event event = parser.next();
+			switch(event) {
+				case TAG_ID:
+				case LIST_TAG_ID:
+					events.add(event + " " + parser.getTagType());
+					break;
+				case TAG_NAME:
+				case VALUE_STRING:
+					events.add(event + " " + parser.getString());
+					break;
+				default:
+					events.add(event + " " + parser.getNumber());
+					break;
+			}
+		}
+		return events;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import net.za.slyfox.minecraft.nbt.NbtException;
+import net.za.slyfox.minecraft.nbt.stream.NbtParser.Event;
+
+public class NbtGeneratorImplTest {
+
+	@Test
+	public void helloWorld() {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGenerator generator = new NbtGeneratorImpl(outputStream);
+
+		generator.writeStartCompound("hello world")
+				.writeString("name", "Bananrama")
+				.writeEnd()
+				.close();
+
+		ByteBuffer expected = TestBuffers.readFully(NbtGeneratorImplTest.class.getResourceAsStream(
+				"/net/za/slyfox/minecraft/nbt/hello_world.nbt"), false);
+		assertThat(ByteBuffer.wrap(outputStream.toByteArray()), is(expected));
+	}
+
+	@Test
+	public void roundTripThroughChannel() {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		NbtGenerator generator = new NbtGeneratorImpl(Channels.newChannel(outputStream),
+				Collections.singletonMap(NbtGenerator.BUFFER_SIZE, 16));
+		byte[] bytes = new byte[100];
+		bytes[99] = 99;
+
+		generator.writeStartCompound("")
+				.writeStartList("items", NbtTagType.COMPOUND, 1)
+				.writeStartCompound()
+				.writeLong("id", Long.MIN_VALUE)
+				.writeString("text", "\u00C5\u0000\u20AC long enough to span the buffer")
+				.writeEnd()
+				.writeEnd()
+				.writeStartList("pos", NbtTagType.DOUBLE, 2)
+				.writeDouble(1.5)
+				.writeDouble(-0.25)
+				.writeEnd()
+				.writeByteArray("bytes", bytes)
+				.writeIntArray("ints", new int[] { 1, -1 })
+				.writeEnd()
+				.close();
+
+		NbtParser parser = new ByteBufferNbtParserImpl(ByteBuffer.wrap(outputStream.toByteArray()));
+		while(parser.next() != Event.TAG_NAME || !parser.getString().equals("id")) {
+			// Skip events preceding the id value
+		}
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getLong(), is(Long.MIN_VALUE));
+		parser.next();
+		parser.next();
+		assertThat(parser.next(), is(Event.VALUE_STRING));
+		assertThat(parser.getString(), is("\u00C5\u0000\u20AC long enough to span the buffer"));
+		while(parser.next() != Event.VALUE_NUMBER) {
+			// Skip events preceding the first position
+		}
+		assertThat(parser.getDouble(), is(1.5));
+		assertThat(parser.next(), is(Event.VALUE_NUMBER));
+		assertThat(parser.getDouble(), is(-0.25));
+		while(parser.next() != Event.ARRAY_SIZE) {
+			// Skip events preceding the byte array
+		}
+		assertThat(parser.getInt(), is(100));
+		for(int i = 0; i < 100; ++i) {
+			parser.next();
+		}
+		assertThat(parser.getByte(), is((byte)99));
+		while(parser.hasNext()) {
+			parser.next();
+		}
+		assertThat(parser.getLocation().getDepth(), is(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void elementTypeMismatch() {
+
+		new NbtGeneratorImpl(new ByteArrayOutputStream())
+				.writeStartCompound("")
+				.writeStartList("list", NbtTagType.INT, 1)
+				.writeShort((short)1);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void listShorterThanDeclared() {
+
+		new NbtGeneratorImpl(new ByteArrayOutputStream())
+				.writeStartCompound("")
+				.writeStartList("list", NbtTagType.INT, 2)
+				.writeInt(1)
+				.writeEnd();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void namedValueInList() {
+
+		new NbtGeneratorImpl(new ByteArrayOutputStream())
+				.writeStartCompound("")
+				.writeStartList("list", NbtTagType.INT, 1)
+				.writeInt("value", 1);
+	}
+
+	@Test(expected = NbtException.class)
+	public void closeWithOpenCompound() {
+
+		new NbtGeneratorImpl(new ByteArrayOutputStream())
+				.writeStartCompound("")
+				.close();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Philip Cronje
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.za.slyfox.minecraft.nbt.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+final class TestBuffers {
+
+	private TestBuffers() { }
+
+	static ByteBuffer readFully(InputStream inputStream, boolean direct) {
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		byte[] chunk = new byte[4096];
+		try {
+			int count;
+			while((count = inputStream.read(chunk)) != -1) {
+				outputStream.write(chunk, 0, count);
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException("Unable to read test resource", e);
+		}
+		byte[] bytes = outputStream.toByteArray();
+		ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(bytes.length)
+				: ByteBuffer.allocate(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+		return buffer;
+	}
+}
@@ -24,12 +24,21 @@ import org.slf4j.LoggerFactory;
 
 import net.za.slyfox.minecraft.nbt.NbtCompound;
 import net.za.slyfox.minecraft.nbt.NbtReader;
+import net.za.slyfox.minecraft.nbt.NbtReaderFactory;
 import net.za.slyfox.minecraft.nbt.spi.NbtProvider;
 
 public class RegionReader {
 
 	private final ChunkDataHeaderReader chunkDataHeaderReader;
 	private final Logger log = LoggerFactory.getLogger(getClass());
+	private final NbtReaderFactory nbtReaderFactory = NbtProvider.provider().createReaderFactory(null);
+	/**
+	 * Buffer reader of the current thread for uncompressed chunks, reset for each chunk so that its
+	 * buffers are reused.
+	 */
+	private final ThreadLocal<NbtReader> nbtBufferReaders = new ThreadLocal<>();
+	/** Stream reader of the current thread for compressed chunks, reset in the same way. */
+	private final ThreadLocal<NbtReader> nbtReaders = new ThreadLocal<>();
 	private final RegionHeaderReader regionHeaderReader;
 
 	@Inject
@@ -54,24 +63,46 @@ public class RegionReader {
 
 		ByteBuffer chunkBuffer = buffer.duplicate();
 		chunkBuffer.limit(chunkBuffer.position() + chunkDataHeader.getSize());
-		InputStream inputStream = new ByteBufferInputStream(chunkBuffer);
+		InputStream inputStream;
 		switch(chunkDataHeader.getCompressionType()) {
 			case GZIP:
 				log.debug("Using GZIP compression");
-				inputStream = new GZIPInputStream(inputStream);
+				inputStream = new GZIPInputStream(new ByteBufferInputStream(chunkBuffer));
 				break;
 
 			case ZLIB:
 				log.debug("Using ZLIB compression");
-				inputStream = new InflaterInputStream(inputStream);
+				inputStream = new InflaterInputStream(new ByteBufferInputStream(chunkBuffer));
 				break;
 
 			default:
-				log.debug("Unknown compression type");
-				break;
+				log.debug("Unknown compression type, reading the chunk data from the buffer");
+				return readUncompressedChunk(chunkBuffer);
+		}
+
+		NbtReader nbtReader = nbtReaders.get();
+		if(nbtReader == null) {
+			nbtReader = nbtReaderFactory.createReader(inputStream);
+			nbtReaders.set(nbtReader);
+		} else {
+			nbtReader.reset(inputStream);
 		}
+		return nbtReader.read();
+	}
 
-		NbtReader nbtReader = NbtProvider.provider().createReader(inputStream);
+	/**
+	 * Reads uncompressed chunk data directly from the region buffer, without going through a
+	 * stream.
+	 */
+	private NbtCompound readUncompressedChunk(ByteBuffer chunkBuffer) {
+
+		NbtReader nbtReader = nbtBufferReaders.get();
+		if(nbtReader == null) {
+			nbtReader = nbtReaderFactory.createReader(chunkBuffer);
+			nbtBufferReaders.set(nbtReader);
+		} else {
+			nbtReader.reset(chunkBuffer);
+		}
 		return nbtReader.read();
 	}
 